@@ -7,23 +7,42 @@ import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.crypto.ECDSASigner;
 import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.impl.ECDSA;
 import com.nimbusds.jose.jwk.*;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.X509CertUtils;
 import de.adorsys.sts.common.model.KeyAndJwk;
+import de.adorsys.sts.common.signer.Ed25519JcaSigner;
 
 import javax.crypto.spec.SecretKeySpec;
-import java.security.Key;
-import java.security.KeyPair;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
+import java.security.*;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
 
 public class KeyConverter {
 
+    private static final String ED25519 = "Ed25519";
+
+    // DER prefixes of the X.509 public key and PKCS#8 private key encoding of Ed25519 keys (RFC 8410)
+    private static final byte[] ED25519_PUBLIC_KEY_PREFIX = {
+            0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00
+    };
+    private static final byte[] ED25519_PRIVATE_KEY_PREFIX = {
+            0x30, 0x2e, 0x02, 0x01, 0x00, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x04, 0x22, 0x04, 0x20
+    };
+    private static final int ED25519_KEY_LENGTH = 32;
+
     /**
      * Converts the specified of JSON Web Keys (JWK) it's standard Java
      * class representation. Asymmetric {@link RSAKey RSA} and
      * {@link ECKey EC key} pairs are converted to
      * {@link java.security.PublicKey} and {@link java.security.PrivateKey}
-     * (if specified) objects. {@link OctetSequenceKey secret JWKs} are
+     * (if specified) objects, Ed25519 {@link OctetKeyPair octet key pairs} need
+     * a JCA provider supporting Ed25519. {@link OctetSequenceKey secret JWKs} are
      * converted to {@link javax.crypto.SecretKey} objects.
      *
      * @param jwk jwk
@@ -31,11 +50,15 @@ public class KeyConverter {
      */
     public static Key toPrivateOrSecret(final JWK jwk) {
         try {
-            if (jwk instanceof RSAKey) {
-                KeyPair keyPair = ((RSAKey)jwk).toKeyPair();
+            if (jwk instanceof RSAKey || jwk instanceof ECKey) {
+                KeyPair keyPair = ((AsymmetricJWK)jwk).toKeyPair();
                 if (keyPair.getPrivate() != null) {
                     return keyPair.getPrivate();
                 }
+            } else if (jwk instanceof OctetKeyPair) {
+                if (jwk.isPrivate()) {
+                    return toEd25519PrivateKey((OctetKeyPair) jwk);
+                }
             } else if (jwk instanceof SecretJWK) {
                 return ((SecretJWK)jwk).toSecretKey();
             }
@@ -75,11 +98,13 @@ public class KeyConverter {
 
     public static Key toPublic(final JWK jwk) {
         try {
-            if (jwk instanceof RSAKey) {
-                KeyPair keyPair = ((RSAKey)jwk).toKeyPair();
+            if (jwk instanceof RSAKey || jwk instanceof ECKey) {
+                KeyPair keyPair = ((AsymmetricJWK)jwk).toKeyPair();
                 if (keyPair.getPublic() != null) {
                     return keyPair.getPublic();
                 }
+            } else if (jwk instanceof OctetKeyPair) {
+                return toEd25519PublicKey((OctetKeyPair) jwk);
             } else {
                 throw new RuntimeException("Cannot extract public key from non AssymetricJWK");
             }
@@ -98,16 +123,81 @@ public class KeyConverter {
         }
     }
 
+    /**
+     * Loads the key pair of the specified alias as JWK. Unlike {@link JWK#load(KeyStore, String, char[])} this
+     * supports Ed25519 key pairs too.
+     *
+     * @param keyStore keystore
+     * @param alias alias of the key
+     * @param pin password of the key
+     * @return private JWK
+     */
+    public static JWK load(KeyStore keyStore, String alias, char[] pin) throws KeyStoreException, JOSEException {
+        Certificate certificate = keyStore.getCertificate(alias);
+        if (!isEd25519(certificate)) {
+            return JWK.load(keyStore, alias, pin);
+        }
+
+        OctetKeyPair.Builder builder = ed25519PublicKey(keyStore, alias, (X509Certificate) certificate);
+
+        // no x5c: nimbus validates the chain with the default X.509 certificate factory, which can't parse Ed25519
+        try {
+            Key key = keyStore.getKey(alias, pin);
+            if (key instanceof PrivateKey) {
+                builder.d(Base64URL.encode(rawKey(key, ED25519_PRIVATE_KEY_PREFIX)));
+            }
+        } catch (UnrecoverableKeyException | NoSuchAlgorithmException e) {
+            throw new JOSEException("Couldn't load Ed25519 key pair " + alias + ": " + e.getMessage(), e);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Loads the public key of the specified alias from its certificate, the private key is not decrypted.
+     *
+     * @param keyStore keystore
+     * @param alias alias of the key
+     * @return public JWK, null if the alias has no X.509 certificate (i.e. a secret key)
+     */
+    public static JWK loadPublic(KeyStore keyStore, String alias) throws KeyStoreException, JOSEException {
+        Certificate certificate = keyStore.getCertificate(alias);
+        if (!(certificate instanceof X509Certificate)) {
+            return null;
+        }
+
+        X509Certificate x509Certificate = (X509Certificate) certificate;
+        if (isEd25519(certificate)) {
+            return ed25519PublicKey(keyStore, alias, x509Certificate).build();
+        }
+
+        // same attributes as JWK#load, apart from the private key
+        JWK jwk = JWK.parse(x509Certificate);
+        if (jwk instanceof RSAKey) {
+            return new RSAKey.Builder((RSAKey) jwk).keyID(alias).keyStore(keyStore).build();
+        } else if (jwk instanceof ECKey) {
+            return new ECKey.Builder((ECKey) jwk).keyID(alias).keyStore(keyStore).build();
+        }
+
+        return jwk;
+    }
+
     public static JWSAlgorithm getJWSAlgo(KeyAndJwk randomKey) {
         Algorithm algorithm = randomKey.jwk.getAlgorithm();
         if(algorithm!=null && (algorithm instanceof JWSAlgorithm)) return (JWSAlgorithm) algorithm;
 
+        if(randomKey.jwk instanceof ECKey){
+            return resolveECDSAAlgorithm((ECKey) randomKey.jwk);
+        }
+
         KeyType keyType = randomKey.jwk.getKeyType();
         if(keyType!=null){
             if(KeyType.RSA.equals(keyType)){
                 return JWSAlgorithm.RS256;
             } else if(KeyType.EC.equals(keyType)){
                 return JWSAlgorithm.ES256;
+            } else if(KeyType.OKP.equals(keyType)){
+                return JWSAlgorithm.EdDSA;
             } else if(KeyType.OCT.equals(keyType)){
                 return JWSAlgorithm.HS256;
             } else {
@@ -116,8 +206,8 @@ public class KeyConverter {
         } else {
             if(randomKey.jwk instanceof RSAKey){
                 return JWSAlgorithm.RS256;
-            } else if (randomKey.jwk instanceof ECKey){
-                return JWSAlgorithm.ES256;
+            } else if (randomKey.jwk instanceof OctetKeyPair){
+                return JWSAlgorithm.EdDSA;
             } else if (randomKey.jwk instanceof OctetSequenceKey){
                 return JWSAlgorithm.HS256;
             } else {
@@ -131,10 +221,92 @@ public class KeyConverter {
             return new RSASSASigner((RSAKey)randomKey.jwk);
         } else if (randomKey.jwk instanceof ECKey){
             return new ECDSASigner((ECKey)randomKey.jwk);
+        } else if (randomKey.jwk instanceof OctetKeyPair){
+            Key key = randomKey.key instanceof PrivateKey ? randomKey.key : toPrivateOrSecret(randomKey.jwk);
+            if (key == null) {
+                throw new JOSEException("Ed25519 key " + randomKey.jwk.getKeyID() + " has no private key");
+            }
+
+            return new Ed25519JcaSigner((PrivateKey) key);
         } else if (randomKey.jwk instanceof OctetSequenceKey){
             return new MACSigner((OctetSequenceKey)randomKey.jwk);
         } else {
             throw new IllegalStateException("Unknown key type: " + randomKey.jwk.getClass().getName());
         }
     }
+
+    private static boolean isEd25519(Certificate certificate) {
+        return certificate instanceof X509Certificate && ED25519.equals(certificate.getPublicKey().getAlgorithm());
+    }
+
+    private static OctetKeyPair.Builder ed25519PublicKey(KeyStore keyStore, String alias, X509Certificate certificate) throws JOSEException {
+        return new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(rawKey(certificate.getPublicKey(), ED25519_PUBLIC_KEY_PREFIX)))
+                .keyUse(KeyUse.from(certificate))
+                .keyID(alias)
+                .x509CertSHA256Thumbprint(X509CertUtils.computeSHA256Thumbprint(certificate))
+                .keyStore(keyStore);
+    }
+
+    private static JWSAlgorithm resolveECDSAAlgorithm(ECKey ecKey) {
+        try {
+            return ECDSA.resolveAlgorithm(ecKey.getCurve());
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Unsupported curve: " + ecKey.getCurve(), e);
+        }
+    }
+
+    private static PrivateKey toEd25519PrivateKey(OctetKeyPair okp) throws JOSEException {
+        checkEd25519(okp);
+        byte[] encoded = concat(ED25519_PRIVATE_KEY_PREFIX, okp.getDecodedD());
+
+        try {
+            return KeyFactory.getInstance(ED25519).generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new JOSEException("Couldn't create Ed25519 private key: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param okp Ed25519 octet key pair
+     * @return public key, needs a JCA provider supporting Ed25519
+     */
+    public static PublicKey toEd25519PublicKey(OctetKeyPair okp) throws JOSEException {
+        checkEd25519(okp);
+        byte[] encoded = concat(ED25519_PUBLIC_KEY_PREFIX, okp.getDecodedX());
+
+        try {
+            return KeyFactory.getInstance(ED25519).generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new JOSEException("Couldn't create Ed25519 public key: " + e.getMessage(), e);
+        }
+    }
+
+    private static void checkEd25519(OctetKeyPair okp) throws JOSEException {
+        if (!Curve.Ed25519.equals(okp.getCurve())) {
+            throw new JOSEException("Unsupported curve: " + okp.getCurve());
+        }
+    }
+
+    /**
+     * Extracts the raw key from its DER encoding. The private key may be followed by the public key (PKCS#8 v2),
+     * so only the algorithm identifier and the key header are checked, not the sequence length and version.
+     */
+    private static byte[] rawKey(Key key, byte[] prefix) throws JOSEException {
+        byte[] encoded = key.getEncoded();
+        int length = prefix.length + ED25519_KEY_LENGTH;
+        int checkFrom = prefix[2] == 0x02 ? 5 : 2;
+
+        if (encoded == null || encoded.length < length
+                || !Arrays.equals(Arrays.copyOfRange(encoded, checkFrom, prefix.length), Arrays.copyOfRange(prefix, checkFrom, prefix.length))) {
+            throw new JOSEException("Unexpected encoding of Ed25519 key");
+        }
+
+        return Arrays.copyOfRange(encoded, prefix.length, length);
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] key) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length + key.length);
+        System.arraycopy(key, 0, result, prefix.length, key.length);
+        return result;
+    }
 }
@@ -0,0 +1,72 @@
+package de.adorsys.sts.common.lock;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Token issued with every lease of a lock. The tokens of a lock are strictly increasing, so a write of a holder whose
+ * lease has been taken over by another node meanwhile can be rejected (see {@link FencingTokenSource#verifyCurrent()}).
+ */
+public final class FencingToken {
+
+    private static final ThreadLocal<FencingToken> CURRENT = new ThreadLocal<>();
+
+    private final String lockName;
+    private final long value;
+
+    public FencingToken(String lockName, long value) {
+        this.lockName = lockName;
+        this.value = value;
+    }
+
+    public String getLockName() {
+        return lockName;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * @return Token of the lease the current thread executes under, empty outside of a lease.
+     */
+    public static Optional<FencingToken> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Executes the task with this token bound to the current thread.
+     */
+    public void runWith(Runnable task) {
+        FencingToken previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FencingToken that = (FencingToken) o;
+        return value == that.value && lockName.equals(that.lockName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lockName, value);
+    }
+
+    @Override
+    public String toString() {
+        return lockName + "#" + value;
+    }
+}
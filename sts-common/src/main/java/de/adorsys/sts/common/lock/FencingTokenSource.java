@@ -0,0 +1,27 @@
+package de.adorsys.sts.common.lock;
+
+public interface FencingTokenSource {
+
+    /**
+     * Issues a new token for the lock, all tokens issued for the lock before become stale.
+     */
+    FencingToken next(String lockName);
+
+    /**
+     * @return true if no newer token has been issued for the lock of the given token.
+     */
+    boolean isCurrent(FencingToken token);
+
+    /**
+     * Rejects a write of the current thread if it executes under a lease which has been taken over meanwhile.
+     *
+     * @throws StaleFencingTokenException if a newer token has been issued for the lock of the current thread
+     */
+    default void verifyCurrent() {
+        FencingToken.current().ifPresent(token -> {
+            if (!isCurrent(token)) {
+                throw new StaleFencingTokenException(token);
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package de.adorsys.sts.common.lock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fencing tokens of a single process, i.e. for tests or a single node without shared persistence.
+ */
+public class InMemoryFencingTokenSource implements FencingTokenSource {
+
+    private final Map<String, AtomicLong> tokens = new ConcurrentHashMap<>();
+
+    @Override
+    public FencingToken next(String lockName) {
+        return new FencingToken(lockName, counter(lockName).incrementAndGet());
+    }
+
+    @Override
+    public boolean isCurrent(FencingToken token) {
+        return counter(token.getLockName()).get() == token.getValue();
+    }
+
+    private AtomicLong counter(String lockName) {
+        return tokens.computeIfAbsent(lockName, name -> new AtomicLong());
+    }
+}
@@ -0,0 +1,8 @@
+package de.adorsys.sts.common.lock;
+
+public class StaleFencingTokenException extends RuntimeException {
+
+    public StaleFencingTokenException(FencingToken token) {
+        super("Lease " + token + " has been taken over by another holder");
+    }
+}
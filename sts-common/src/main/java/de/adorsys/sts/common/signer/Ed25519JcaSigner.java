@@ -0,0 +1,50 @@
+package de.adorsys.sts.common.signer;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.impl.AlgorithmSupportMessage;
+import com.nimbusds.jose.crypto.impl.EdDSAProvider;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.Signature;
+
+/**
+ * EdDSA signer for Ed25519 keys which uses the JCA (i.e. the BouncyCastle provider) instead of Tink, which is
+ * required by the nimbus {@link com.nimbusds.jose.crypto.Ed25519Signer}.
+ */
+public class Ed25519JcaSigner extends EdDSAProvider implements JWSSigner {
+
+    private static final String JCA_ALGORITHM = "Ed25519";
+
+    private final PrivateKey privateKey;
+
+    public Ed25519JcaSigner(PrivateKey privateKey) {
+        this.privateKey = privateKey;
+    }
+
+    @Override
+    public Base64URL sign(JWSHeader header, byte[] signingInput) throws JOSEException {
+        if (!JWSAlgorithm.EdDSA.equals(header.getAlgorithm())) {
+            throw new JOSEException(AlgorithmSupportMessage.unsupportedJWSAlgorithm(header.getAlgorithm(), supportedJWSAlgorithms()));
+        }
+
+        try {
+            Provider provider = getJCAContext().getProvider();
+            Signature signature = provider != null
+                    ? Signature.getInstance(JCA_ALGORITHM, provider)
+                    : Signature.getInstance(JCA_ALGORITHM);
+
+            signature.initSign(privateKey);
+            signature.update(signingInput);
+
+            return Base64URL.encode(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException("Ed25519 signature failed: " + e.getMessage(), e);
+        }
+    }
+}
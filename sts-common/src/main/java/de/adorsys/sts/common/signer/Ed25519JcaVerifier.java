@@ -0,0 +1,75 @@
+package de.adorsys.sts.common.signer;
+
+import com.nimbusds.jose.CriticalHeaderParamsAware;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.impl.AlgorithmSupportMessage;
+import com.nimbusds.jose.crypto.impl.CriticalHeaderParamsDeferral;
+import com.nimbusds.jose.crypto.impl.EdDSAProvider;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Set;
+
+/**
+ * EdDSA verifier for Ed25519 keys which uses the JCA (i.e. the BouncyCastle provider) instead of Tink, which is
+ * required by the nimbus {@link com.nimbusds.jose.crypto.Ed25519Verifier}. Counterpart of {@link Ed25519JcaSigner}.
+ */
+public class Ed25519JcaVerifier extends EdDSAProvider implements JWSVerifier, CriticalHeaderParamsAware {
+
+    private static final String JCA_ALGORITHM = "Ed25519";
+
+    private final CriticalHeaderParamsDeferral critPolicy = new CriticalHeaderParamsDeferral();
+
+    private final PublicKey publicKey;
+
+    public Ed25519JcaVerifier(PublicKey publicKey) {
+        this.publicKey = publicKey;
+    }
+
+    @Override
+    public Set<String> getProcessedCriticalHeaderParams() {
+        return critPolicy.getProcessedCriticalHeaderParams();
+    }
+
+    @Override
+    public Set<String> getDeferredCriticalHeaderParams() {
+        return critPolicy.getDeferredCriticalHeaderParams();
+    }
+
+    @Override
+    public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException {
+        if (!JWSAlgorithm.EdDSA.equals(header.getAlgorithm())) {
+            throw new JOSEException(AlgorithmSupportMessage.unsupportedJWSAlgorithm(header.getAlgorithm(), supportedJWSAlgorithms()));
+        }
+
+        if (!critPolicy.headerPasses(header)) {
+            return false;
+        }
+
+        try {
+            Provider provider = getJCAContext().getProvider();
+            Signature verifier = provider != null
+                    ? Signature.getInstance(JCA_ALGORITHM, provider)
+                    : Signature.getInstance(JCA_ALGORITHM);
+
+            verifier.initVerify(publicKey);
+            verifier.update(signingInput);
+
+            return verifier.verify(signature.decode());
+        } catch (InvalidKeyException e) {
+            throw new JOSEException("Invalid Ed25519 public key: " + e.getMessage(), e);
+        } catch (SignatureException e) {
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException("Ed25519 verification failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.adorsys.sts.common.signer;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSSigner;
+import de.adorsys.sts.common.converter.KeyConverter;
+import de.adorsys.sts.common.model.KeyAndJwk;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link JWSSigner} per key id, so the private key is imported only once per signing key.
+ * Nimbus signers create their {@link java.security.Signature} per call and are safe to share between threads.
+ *
+ * Only keys announced by {@link #retainOnly(Collection)} are cached, all others get a fresh signer each time.
+ */
+public class JWSSignerRegistry {
+
+    private final Map<String, JWSSigner> signers = new ConcurrentHashMap<>();
+    private volatile Set<String> signingKeyIds = Collections.emptySet();
+
+    public JWSSigner findSigner(KeyAndJwk keyAndJwk) throws JOSEException {
+        String keyId = keyAndJwk.jwk.getKeyID();
+
+        if (keyId == null || !signingKeyIds.contains(keyId)) {
+            return KeyConverter.findSigner(keyAndJwk);
+        }
+
+        JWSSigner signer = signers.get(keyId);
+        if (signer == null) {
+            signer = KeyConverter.findSigner(keyAndJwk);
+            JWSSigner existing = signers.putIfAbsent(keyId, signer);
+            if (existing != null) {
+                signer = existing;
+            } else if (!signingKeyIds.contains(keyId)) {
+                // key was dropped concurrently
+                signers.remove(keyId, signer);
+            }
+        }
+
+        return signer;
+    }
+
+    /**
+     * Sets the key ids which are currently valid for signing. Signers of all other keys are dropped.
+     *
+     * @param keyIds ids of all keys in VALID state
+     */
+    public void retainOnly(Collection<String> keyIds) {
+        Set<String> retained = Collections.unmodifiableSet(new HashSet<>(keyIds));
+        signingKeyIds = retained;
+        signers.keySet().retainAll(retained);
+    }
+
+    public int size() {
+        return signers.size();
+    }
+}
@@ -0,0 +1,47 @@
+package de.adorsys.sts.common.signer;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Verifier factory of nimbus, which creates {@link Ed25519JcaVerifier} for EdDSA signed tokens in addition.
+ */
+public class JcaJWSVerifierFactory extends DefaultJWSVerifierFactory {
+
+    private static final Set<JWSAlgorithm> SUPPORTED;
+
+    static {
+        Set<JWSAlgorithm> supported = new LinkedHashSet<>(DefaultJWSVerifierFactory.SUPPORTED_ALGORITHMS);
+        supported.add(JWSAlgorithm.EdDSA);
+        SUPPORTED = Collections.unmodifiableSet(supported);
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return SUPPORTED;
+    }
+
+    @Override
+    public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+        if (!JWSAlgorithm.EdDSA.equals(header.getAlgorithm())) {
+            return super.createJWSVerifier(header, key);
+        }
+
+        if (!(key instanceof PublicKey)) {
+            throw new JOSEException("Unexpected key type for EdDSA: " + key.getClass());
+        }
+
+        Ed25519JcaVerifier verifier = new Ed25519JcaVerifier((PublicKey) key);
+        verifier.getJCAContext().setProvider(getJCAContext().getProvider());
+        return verifier;
+    }
+}
@@ -0,0 +1,67 @@
+package de.adorsys.sts.common.benchmark;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import de.adorsys.sts.common.converter.KeyConverter;
+import de.adorsys.sts.common.model.KeyAndJwk;
+import de.adorsys.sts.common.signer.JWSSignerRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating a signer per token (previous behaviour) with signers reused from {@link JWSSignerRegistry}.
+ * Run with `main` from the IDE, it is not executed as part of the test phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWSSignerBenchmark {
+
+    private KeyAndJwk signKey;
+    private JWSSignerRegistry registry;
+    private JWSHeader header;
+    private JWTClaimsSet claims;
+
+    @Setup
+    public void setup() throws Exception {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("sign-key").keyUse(KeyUse.SIGNATURE).generate();
+        signKey = new KeyAndJwk(rsaKey.toPrivateKey(), rsaKey);
+
+        registry = new JWSSignerRegistry();
+        registry.retainOnly(Collections.singletonList(rsaKey.getKeyID()));
+
+        header = new JWSHeader.Builder(JWSAlgorithm.RS256).type(JOSEObjectType.JWT).keyID(rsaKey.getKeyID()).build();
+        claims = new JWTClaimsSet.Builder().subject("benchmark").issuer("sts").build();
+    }
+
+    @Benchmark
+    public String perCallSigner() throws Exception {
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(KeyConverter.findSigner(signKey));
+        return jwt.serialize();
+    }
+
+    @Benchmark
+    public String cachedSigner() throws Exception {
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(registry.findSigner(signKey));
+        return jwt.serialize();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JWSSignerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package de.adorsys.sts.common.signer;
+
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import de.adorsys.sts.common.model.KeyAndJwk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JWSSignerRegistryTest {
+
+    private final JWSSignerRegistry registry = new JWSSignerRegistry();
+
+    private KeyAndJwk signKey;
+
+    @BeforeEach
+    void generateKey() throws Exception {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("sign-key").keyUse(KeyUse.SIGNATURE).generate();
+        signKey = new KeyAndJwk(rsaKey.toPrivateKey(), rsaKey);
+    }
+
+    @Test
+    void reusesSignerOfValidKey() throws Exception {
+        registry.retainOnly(Collections.singletonList("sign-key"));
+
+        JWSSigner signer = registry.findSigner(signKey);
+
+        assertSame(signer, registry.findSigner(signKey));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void dropsSignerWhenKeyIsNoLongerValid() throws Exception {
+        registry.retainOnly(Collections.singletonList("sign-key"));
+        JWSSigner signer = registry.findSigner(signKey);
+
+        registry.retainOnly(Collections.emptyList());
+
+        assertEquals(0, registry.size());
+        assertNotSame(signer, registry.findSigner(signKey));
+        assertEquals(0, registry.size());
+    }
+}
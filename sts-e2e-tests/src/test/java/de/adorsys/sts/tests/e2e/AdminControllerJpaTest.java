@@ -13,6 +13,7 @@ import org.springframework.test.context.ContextConfiguration;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @JpaPersistenceAutoConfiguration
@@ -43,4 +44,15 @@ class AdminControllerJpaTest extends BaseEndpointTest {
         .andReturn();
 
     }
+
+    @Test
+    @SneakyThrows
+    void getKeyUsageTest() {
+        mvc.perform(get("/admin/keyUsage")
+                .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].keyId").isNotEmpty())
+                .andExpect(jsonPath("$[0].signatures").isNumber())
+                .andReturn();
+    }
 }
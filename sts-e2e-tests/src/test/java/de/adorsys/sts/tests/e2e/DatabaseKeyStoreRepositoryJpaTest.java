@@ -0,0 +1,153 @@
+package de.adorsys.sts.tests.e2e;
+
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreConflictException;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.keymanagement.service.KeyStoreGenerator;
+import de.adorsys.sts.persistence.jpa.DatabaseKeyStoreRepository;
+import de.adorsys.sts.persistence.jpa.entity.JpaKeyEntryAttributes;
+import de.adorsys.sts.persistence.jpa.entity.JpaKeyStore;
+import de.adorsys.sts.persistence.jpa.mapping.KeyStoreEntityMapper;
+import de.adorsys.sts.persistence.jpa.repository.JpaKeyEntryAttributesRepository;
+import de.adorsys.sts.persistence.jpa.repository.JpaKeyStoreRepository;
+import de.adorsys.sts.tests.BaseSpringTest;
+import de.adorsys.sts.tests.CleanupDbBeforeAfterClass;
+import de.adorsys.sts.tests.JpaPersistenceAutoConfiguration;
+import de.adorsys.sts.tests.config.WithControllableClock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
+
+/**
+ * Tests that key entries are persisted one by one, only changed entries are written and keystores persisted as a
+ * whole are migrated once. The whole keystore is still written for older versions.
+ */
+@JpaPersistenceAutoConfiguration
+@ContextConfiguration(classes = WithControllableClock.class)
+@DirtiesContext(classMode = BEFORE_EACH_TEST_METHOD)
+@CleanupDbBeforeAfterClass
+class DatabaseKeyStoreRepositoryJpaTest extends BaseSpringTest {
+
+    @Autowired
+    private DatabaseKeyStoreRepository repository;
+
+    @Autowired
+    private JpaKeyStoreRepository keyStoreRepository;
+
+    @Autowired
+    private JpaKeyEntryAttributesRepository keyEntryRepository;
+
+    @Autowired
+    private KeyStoreGenerator keyStoreGenerator;
+
+    @Autowired
+    private KeyStoreEntityMapper keyStoreEntityMapper;
+
+    @Autowired
+    private KeyManagementProperties properties;
+
+    @Autowired
+    private Juggler juggler;
+
+    @Test
+    void testOnlyChangedEntriesPersisted() {
+        if (!repository.exists()) {
+            repository.save(keyStoreGenerator.generate());
+        }
+
+        StsKeyStore keyStore = repository.load();
+        JpaKeyStore persistentKeyStore = keyStoreRepository.findByName(keyStoreName());
+        Map<String, Long> versionsBefore = entryVersions(persistentKeyStore.getId());
+
+        assertThat(versionsBefore.keySet()).isEqualTo(keyStore.getEntries().keySet());
+
+        KeyEntry removed = keyStore.getView().all().iterator().next();
+        keyStore.getView().remove(removed);
+        repository.save(keyStore);
+
+        JpaKeyStore updatedKeyStore = keyStoreRepository.findByName(keyStoreName());
+        Map<String, Long> versionsAfter = entryVersions(updatedKeyStore.getId());
+
+        assertThat(updatedKeyStore.getVersion()).isEqualTo(persistentKeyStore.getVersion() + 1);
+        assertThat(versionsAfter).doesNotContainKey(removed.getAlias());
+        versionsAfter.forEach((alias, version) -> assertThat(version).isEqualTo(versionsBefore.get(alias)));
+
+        // the whole keystore is still written for older versions
+        StsKeyStore legacy = keyStoreEntityMapper.mapFromEntity(updatedKeyStore, keyEntryRepository.findAllByKeyStoreId(updatedKeyStore.getId()));
+        assertThat(legacy.getEntries().keySet()).isEqualTo(versionsAfter.keySet());
+
+        StsKeyStore reloaded = repository.load();
+        assertThat(reloaded.getEntries().keySet()).isEqualTo(versionsAfter.keySet());
+        reloaded.getEntries().forEach((alias, entry) -> {
+            assertThat(entry.getState()).isEqualTo(keyStore.getEntries().get(alias).getState());
+            assertThat(entry.getKeyUsage()).isEqualTo(keyStore.getEntries().get(alias).getKeyUsage());
+        });
+    }
+
+    @Test
+    void testWholeKeyStoreMigratedOnce() {
+        if (!repository.exists()) {
+            repository.save(keyStoreGenerator.generate());
+        }
+
+        StsKeyStore keyStore = repository.load();
+        JpaKeyStore persistentKeyStore = keyStoreRepository.findByName(keyStoreName());
+        persistentKeyStore.setKeystore(keyStore.getKeyStoreCopy().toBytes(juggler, () -> properties.getKeystore().getPassword().toCharArray()));
+        persistentKeyStore.setVersion(null);
+        persistentKeyStore.setSchemaVersion(null);
+        keyStoreRepository.save(persistentKeyStore);
+        keyEntryRepository.findAllByKeyStoreId(persistentKeyStore.getId()).forEach(keyEntry -> {
+            keyEntry.setKeyData(null);
+            keyEntry.setVersion(null);
+            keyEntryRepository.save(keyEntry);
+        });
+
+        assertThat(repository.migrate()).isTrue();
+        assertThat(repository.migrate()).isFalse();
+
+        JpaKeyStore migratedKeyStore = keyStoreRepository.findByName(keyStoreName());
+        assertThat(migratedKeyStore.getKeystore()).isNotNull();
+        assertThat(migratedKeyStore.getVersion()).isNotNull();
+        assertThat(migratedKeyStore.getSchemaVersion()).isEqualTo(KeyStoreRepository.CURRENT_SCHEMA_VERSION);
+        assertThat(keyEntryRepository.findAllByKeyStoreId(migratedKeyStore.getId()))
+                .allSatisfy(keyEntry -> assertThat(keyEntry.getKeyData()).isNotNull());
+        assertThat(repository.load().getEntries().keySet()).isEqualTo(keyStore.getEntries().keySet());
+    }
+
+    @Test
+    void testKeyStoreOfOutdatedVersionNotSaved() {
+        if (!repository.exists()) {
+            repository.save(keyStoreGenerator.generate());
+        }
+
+        StsKeyStore outdated = repository.load();
+        StsKeyStore current = repository.load();
+        current.getView().add(keyStoreGenerator.generateSecretKeyEntryForInstantUsage().getKey());
+        repository.save(current);
+
+        outdated.getView().remove(outdated.getView().all().iterator().next());
+
+        assertThatThrownBy(() -> repository.save(outdated)).isInstanceOf(KeyStoreConflictException.class);
+        assertThat(repository.load().getEntries().keySet()).isEqualTo(current.getEntries().keySet());
+    }
+
+    private String keyStoreName() {
+        return properties.getKeystore().getName();
+    }
+
+    private Map<String, Long> entryVersions(Long keyStoreId) {
+        return keyEntryRepository.findAllByKeyStoreId(keyStoreId).stream()
+                .collect(Collectors.toMap(JpaKeyEntryAttributes::getAlias, JpaKeyEntryAttributes::getVersion));
+    }
+}
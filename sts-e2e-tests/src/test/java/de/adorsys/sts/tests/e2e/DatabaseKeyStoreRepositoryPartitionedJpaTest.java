@@ -0,0 +1,93 @@
+package de.adorsys.sts.tests.e2e;
+
+import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+import de.adorsys.sts.keymanagement.model.StsKeyEntry;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.keymanagement.service.KeyStoreGenerator;
+import de.adorsys.sts.persistence.jpa.DatabaseKeyStoreRepository;
+import de.adorsys.sts.persistence.jpa.repository.JpaKeyStoreRepository;
+import de.adorsys.sts.tests.BaseSpringTest;
+import de.adorsys.sts.tests.CleanupDbBeforeAfterClass;
+import de.adorsys.sts.tests.JpaPersistenceAutoConfiguration;
+import de.adorsys.sts.tests.config.WithControllableClock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
+
+/**
+ * Tests that only the partitions of key usages with changed entries get a new version, and that the whole keystore is
+ * not written anymore once legacy keystores are disabled.
+ */
+@JpaPersistenceAutoConfiguration
+@ContextConfiguration(classes = WithControllableClock.class)
+@TestPropertySource(properties = {
+        "sts.keymanagement.keystore.partitioned=true",
+        "sts.keymanagement.keystore.legacy-keystore=false"
+})
+@DirtiesContext(classMode = BEFORE_EACH_TEST_METHOD)
+@CleanupDbBeforeAfterClass
+class DatabaseKeyStoreRepositoryPartitionedJpaTest extends BaseSpringTest {
+
+    @Autowired
+    private DatabaseKeyStoreRepository repository;
+
+    @Autowired
+    private KeyStoreGenerator keyStoreGenerator;
+
+    @Autowired
+    private JpaKeyStoreRepository keyStoreRepository;
+
+    @Autowired
+    private KeyManagementProperties properties;
+
+    @Test
+    void testOnlyChangedPartitionUpdated() {
+        if (!repository.exists()) {
+            repository.save(keyStoreGenerator.generate());
+        }
+
+        StsKeyStore keyStore = repository.load();
+        ZonedDateTime firstUpdate = keyStore.getPartitionUpdate(KeyUsage.Signature);
+        ZonedDateTime secondUpdate = keyStore.getLastUpdate().plusMinutes(1).truncatedTo(ChronoUnit.SECONDS);
+
+        assertThat(keyStore.getPartitionUpdates()).containsOnlyKeys(KeyUsage.values());
+
+        KeyEntry removed = keyStore.getView().all().stream()
+                .filter(it -> ((StsKeyEntry) it.getMeta()).getKeyUsage() == KeyUsage.SecretKey)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        keyStore.getView().remove(removed);
+        keyStore.setLastUpdate(secondUpdate);
+        repository.save(keyStore);
+
+        StsKeyStore reloaded = repository.load();
+
+        assertThat(keyStore.getPartitionUpdates()).isEqualTo(reloaded.getPartitionUpdates());
+        assertThat(reloaded.getPartitionUpdate(KeyUsage.SecretKey)).isEqualTo(secondUpdate);
+        assertThat(reloaded.getPartitionUpdate(KeyUsage.Signature)).isEqualTo(firstUpdate);
+        assertThat(reloaded.getPartitionUpdate(KeyUsage.Encryption)).isEqualTo(firstUpdate);
+    }
+
+    @Test
+    void testWholeKeyStoreClearedWithoutLegacyKeystore() {
+        if (!repository.exists()) {
+            repository.save(keyStoreGenerator.generate());
+        }
+
+        StsKeyStore keyStore = repository.load();
+        keyStore.getView().remove(keyStore.getView().all().iterator().next());
+        repository.save(keyStore);
+
+        assertThat(keyStoreRepository.findByName(properties.getKeystore().getName()).getKeystore()).isNull();
+    }
+}
@@ -0,0 +1,89 @@
+package de.adorsys.sts.tests.e2e;
+
+import com.jayway.jsonpath.JsonPath;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import de.adorsys.sts.common.converter.KeyConverter;
+import de.adorsys.sts.tests.BaseEndpointTest;
+import de.adorsys.sts.tests.CleanupDbBeforeAfterClass;
+import de.adorsys.sts.tests.JpaPersistenceAutoConfiguration;
+import de.adorsys.sts.tests.config.WithPasswordGrantConfig;
+import de.adorsys.sts.tests.config.WithPopConfig;
+import de.adorsys.sts.tests.config.WithoutWebSecurityConfig;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.security.PublicKey;
+import java.security.Signature;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests that Ed25519 signature keys are published by /pop and used for signing tokens.
+ */
+@JpaPersistenceAutoConfiguration
+@ContextConfiguration(classes = {WithPopConfig.class, WithPasswordGrantConfig.class, WithoutWebSecurityConfig.class})
+@TestPropertySource(properties = {
+        "sts.keymanagement.keystore.keys.sign-key-pairs.algo=Ed25519",
+        "sts.keymanagement.keystore.keys.sign-key-pairs.sig-algo=Ed25519",
+        "sts.keymanagement.keystore.keys.sign-key-pairs.size=256"
+})
+@DirtiesContext(classMode = BEFORE_EACH_TEST_METHOD)
+@CleanupDbBeforeAfterClass
+class Ed25519SignatureKeyJpaTest extends BaseEndpointTest {
+
+    @Test
+    @SneakyThrows
+    void testPopPublishesOctetKeyPair() {
+        mvc.perform(get("/pop"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys.length()").value(2))
+                .andExpect(jsonPath("$.keys[*].kty").value(containsInAnyOrder("OKP", "RSA")))
+                .andExpect(jsonPath("$.keys[?(@.kty == 'OKP')].crv").value("Ed25519"))
+                .andExpect(jsonPath("$.keys[?(@.kty == 'OKP')].use").value("sig"))
+                .andExpect(jsonPath("$.keys[?(@.kty == 'OKP')].d").doesNotExist());
+    }
+
+    @Test
+    @SneakyThrows
+    void testTokenIsSignedWithEdDSA() {
+        String token = JsonPath.read(mvc.perform(get("/token/password-grant")
+                .param("grant_type", "password")
+                .param("resource", "http://localhost:8080/multibanking-service")
+                .param("audience", "http://localhost:8080/multibanking-service")
+                .param("scope", "user banking")
+                .param("username", "max.musterman")
+                .param("password", "SamplePassword")
+                .accept(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(), "$.access_token");
+
+        JWKSet publicKeys = JWKSet.parse(mvc.perform(get("/pop"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+
+        SignedJWT jwt = SignedJWT.parse(token);
+        assertThat(jwt.getHeader().getAlgorithm()).isEqualTo(JWSAlgorithm.EdDSA);
+
+        JWK signKey = publicKeys.getKeyByKeyId(jwt.getHeader().getKeyID());
+        Signature signature = Signature.getInstance("Ed25519");
+        signature.initVerify((PublicKey) KeyConverter.toPublic(signKey));
+        signature.update(jwt.getSigningInput());
+
+        assertThat(signature.verify(jwt.getSignature().decode())).isTrue();
+    }
+}
@@ -0,0 +1,90 @@
+package de.adorsys.sts.tests.e2e;
+
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.KeyEntrySerializer;
+import de.adorsys.sts.keymanagement.persistence.LocalKeyStoreSnapshot;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.keymanagement.service.KeyStoreGenerator;
+import de.adorsys.sts.tests.BaseSpringTest;
+import de.adorsys.sts.tests.JpaPersistenceAutoConfiguration;
+import de.adorsys.sts.tests.config.WithControllableClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Base64;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests that a keystore written to the local snapshot is read back with all entries and versions.
+ */
+@JpaPersistenceAutoConfiguration
+@ContextConfiguration(classes = WithControllableClock.class)
+class LocalKeyStoreSnapshotJpaTest extends BaseSpringTest {
+
+    @Autowired
+    private KeyStoreGenerator keyStoreGenerator;
+
+    @Autowired
+    private KeyManagementProperties properties;
+
+    @Autowired
+    private Juggler juggler;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testKeyStoreReadFromSnapshot() {
+        StsKeyStore keyStore = keyStoreGenerator.generate();
+        keyStore.setPartitionUpdate(KeyUsage.Signature, keyStore.getLastUpdate().minusMinutes(1));
+
+        snapshot("keystore").write(keyStore);
+        StsKeyStore read = snapshot("keystore").read();
+
+        assertThat(read.getLastUpdate()).isEqualTo(keyStore.getLastUpdate());
+        assertThat(read.getPartitionUpdates()).isEqualTo(keyStore.getPartitionUpdates());
+        assertThat(read.getEntries()).usingRecursiveComparison().isEqualTo(keyStore.getEntries());
+        assertThat(encodedKeys(read)).containsAllEntriesOf(encodedKeys(keyStore));
+    }
+
+    @Test
+    void testSnapshotOfOtherKeyStoreIgnored() {
+        snapshot("keystore").write(keyStoreGenerator.generate());
+
+        assertThat(Files.exists(directory.resolve("keystore.snapshot"))).isTrue();
+        assertThat(snapshot("other").read()).isNull();
+    }
+
+    private LocalKeyStoreSnapshot snapshot(String keyStoreName) {
+        char[] password = properties.getKeystore().getPassword().toCharArray();
+        return new LocalKeyStoreSnapshot(
+                directory.resolve("keystore.snapshot"),
+                new KeyEntrySerializer(juggler, password::clone),
+                password,
+                keyStoreName
+        );
+    }
+
+    private static Map<String, String> encodedKeys(StsKeyStore keyStore) {
+        return keyStore.getView().all().stream()
+                .collect(Collectors.toMap(KeyEntry::getAlias, it -> encodedKey(it.getEntry())));
+    }
+
+    private static String encodedKey(KeyStore.Entry entry) {
+        byte[] encoded = entry instanceof KeyStore.PrivateKeyEntry
+                ? ((KeyStore.PrivateKeyEntry) entry).getPrivateKey().getEncoded()
+                : ((KeyStore.SecretKeyEntry) entry).getSecretKey().getEncoded();
+        return Base64.getEncoder().encodeToString(encoded);
+    }
+}
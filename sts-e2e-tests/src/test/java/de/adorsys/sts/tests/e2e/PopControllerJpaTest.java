@@ -10,12 +10,14 @@ import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ContextConfiguration;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.isIn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -42,4 +44,20 @@ class PopControllerJpaTest extends BaseEndpointTest {
                 .andExpect(jsonPath("$.keys[1].kid").value(isIn(keyStore.getEntries().keySet())));
 
     }
+
+    @Test
+    @SneakyThrows
+    void testPopNotModified() {
+        String eTag = mvc.perform(get("/pop"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/pop").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
 }
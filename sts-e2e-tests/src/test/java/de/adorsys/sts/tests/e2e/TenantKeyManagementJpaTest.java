@@ -0,0 +1,89 @@
+package de.adorsys.sts.tests.e2e;
+
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepositoryFactory;
+import de.adorsys.sts.keymanagement.service.KeyManagementService;
+import de.adorsys.sts.keymanagement.service.KeyStoreGenerator;
+import de.adorsys.sts.keymanagement.service.TenantKeyManagement;
+import de.adorsys.sts.tests.BaseEndpointTest;
+import de.adorsys.sts.tests.CleanupDbBeforeAfterClass;
+import de.adorsys.sts.tests.JpaPersistenceAutoConfiguration;
+import de.adorsys.sts.tests.config.WithControllableClock;
+import de.adorsys.sts.tests.config.WithPopConfig;
+import de.adorsys.sts.tests.config.WithoutWebSecurityConfig;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.isIn;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests that keystores of tenants are persisted under their own name and served next to the configured keystore,
+ * their public keys are published by /pop/{tenant}.
+ */
+@JpaPersistenceAutoConfiguration
+@ContextConfiguration(classes = {WithControllableClock.class, WithPopConfig.class, WithoutWebSecurityConfig.class})
+@DirtiesContext(classMode = BEFORE_EACH_TEST_METHOD)
+@TestPropertySource(properties = "sts.keymanagement.tenants.enabled=true")
+@CleanupDbBeforeAfterClass
+class TenantKeyManagementJpaTest extends BaseEndpointTest {
+
+    @Autowired
+    private TenantKeyManagement tenantKeyManagement;
+
+    @Autowired
+    private KeyStoreRepositoryFactory repositoryFactory;
+
+    @Autowired
+    @Qualifier("cached")
+    private KeyStoreRepository keyStoreRepository;
+
+    @Autowired
+    private KeyManagementService keyManagementService;
+
+    @Autowired
+    private KeyStoreGenerator keyStoreGenerator;
+
+    @Test
+    void testTenantKeyStoreServedNextToConfiguredOne() {
+        KeyStoreRepository tenantRepository = repositoryFactory.forKeyStore("tenant-a");
+        assertThat(tenantRepository.exists()).isFalse();
+
+        StsKeyStore tenantKeyStore = keyStoreGenerator.generate();
+        tenantRepository.save(tenantKeyStore);
+
+        assertThat(repositoryFactory.forKeyStore("tenant-a").load().getEntries()).containsOnlyKeys(tenantKeyStore.getEntries().keySet());
+        assertThat(keyStoreRepository.load().getEntries()).doesNotContainKeys(tenantKeyStore.getEntries().keySet().toArray(new String[0]));
+
+        KeyManagementService tenant = tenantKeyManagement.get("tenant-a");
+        assertThat(tenantKeyStore.getEntries()).containsKey(tenant.randomSignKey().jwk.getKeyID());
+        assertThat(tenantKeyManagement.get("tenant-a")).isSameAs(tenant);
+        assertThat(tenantKeyManagement.get("sts-secret-server-dev-keystore")).isSameAs(keyManagementService);
+    }
+
+    @Test
+    @SneakyThrows
+    void testPopPublishesPublicKeysOfTenant() {
+        StsKeyStore tenantKeyStore = keyStoreGenerator.generate();
+        repositoryFactory.forKeyStore("tenant-b").save(tenantKeyStore);
+
+        mvc.perform(get("/pop/tenant-b"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys.length()").value(2))
+                .andExpect(jsonPath("$.keys[*].kid").value(everyItem(isIn(tenantKeyStore.getEntries().keySet()))));
+
+        mvc.perform(get("/pop/unknown-tenant"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -11,5 +11,6 @@ public class KeyRotationResult {
 
     private List<String> removedKeys;
     private List<String> futureKeys;
+    private List<String> legacyKeys;
     private List<String> generatedKeys;
 }
@@ -11,8 +11,10 @@ import lombok.NonNull;
 
 import java.security.KeyStore;
 import java.time.ZonedDateTime;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Builder
 @AllArgsConstructor
@@ -28,6 +30,19 @@ public class StsKeyStore {
     @Getter
     private ZonedDateTime lastUpdate;
 
+    /**
+     * Version of the persisted keystore this one has been loaded from or saved as, null if it is not known to the
+     * repository. Repositories refuse to save a keystore if the persisted version has changed meanwhile.
+     */
+    @Getter
+    private Long version;
+
+    /**
+     * Last update per key usage, empty unless the repository persists the keystore partitioned by key usage.
+     */
+    @Builder.Default
+    private final Map<KeyUsage, ZonedDateTime> partitionUpdates = new ConcurrentHashMap<>();
+
     /**
      * @return Read only representation of all entries in form of `alias` - `key entry`.
      */
@@ -52,4 +67,31 @@ public class StsKeyStore {
     public void setLastUpdate(ZonedDateTime lastUpdate) {
         this.lastUpdate = lastUpdate;
     }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return Last update of the entries with this key usage, {@link #getLastUpdate()} if the partition has no
+     * version of its own.
+     */
+    public ZonedDateTime getPartitionUpdate(KeyUsage keyUsage) {
+        return partitionUpdates.getOrDefault(keyUsage, lastUpdate);
+    }
+
+    /**
+     * @return Copy of the persisted partition versions, usages without a version of their own are not contained.
+     */
+    public Map<KeyUsage, ZonedDateTime> getPartitionUpdates() {
+        return partitionUpdates.isEmpty() ? new EnumMap<>(KeyUsage.class) : new EnumMap<>(partitionUpdates);
+    }
+
+    public void setPartitionUpdate(KeyUsage keyUsage, ZonedDateTime lastUpdate) {
+        if (lastUpdate == null) {
+            partitionUpdates.remove(keyUsage);
+        } else {
+            partitionUpdates.put(keyUsage, lastUpdate);
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import java.security.KeyStore;
+import java.util.List;
+
+/**
+ * Writes with the configured codec and reads the entries of every known format. Codecs which detect their own format
+ * (i.e. by a header) are checked first regardless of the configured codec, anything else is read by the keystore
+ * codec, which accepts any data. So the configured codec can be switched back and forth, entries of the other format
+ * are read and migrated on the next save.
+ */
+public class DetectingKeyEntryCodec implements KeyEntryCodec {
+
+    private final KeyEntryCodec codec;
+    private final List<KeyEntryCodec> detectingCodecs;
+    private final KeyStoreKeyEntryCodec keyStoreCodec;
+
+    /**
+     * @param codec           Codec to write the entries with, one of the others
+     * @param detectingCodecs Codecs which only decode data of their own format
+     * @param keyStoreCodec   Codec of the data no other codec detects
+     */
+    public DetectingKeyEntryCodec(KeyEntryCodec codec, List<KeyEntryCodec> detectingCodecs, KeyStoreKeyEntryCodec keyStoreCodec) {
+        this.codec = codec;
+        this.detectingCodecs = detectingCodecs;
+        this.keyStoreCodec = keyStoreCodec;
+    }
+
+    @Override
+    public byte[] encode(String alias, KeyStore.Entry entry) {
+        return codec.encode(alias, entry);
+    }
+
+    @Override
+    public KeyStore.Entry decode(String alias, byte[] encoded) {
+        return decoderOf(encoded).decode(alias, encoded);
+    }
+
+    @Override
+    public boolean canDecode(byte[] encoded) {
+        return true;
+    }
+
+    @Override
+    public boolean isCurrentFormat(byte[] encoded) {
+        return decoderOf(encoded) == codec;
+    }
+
+    private KeyEntryCodec decoderOf(byte[] encoded) {
+        for (KeyEntryCodec detectingCodec : detectingCodecs) {
+            if (detectingCodec.canDecode(encoded)) {
+                return detectingCodec;
+            }
+        }
+
+        return keyStoreCodec;
+    }
+}
@@ -0,0 +1,27 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import java.security.KeyStore;
+
+/**
+ * Encodes a single key entry, so repositories can persist it on its own, see {@link KeyEntrySerializer}.
+ */
+public interface KeyEntryCodec {
+
+    byte[] encode(String alias, KeyStore.Entry entry);
+
+    KeyStore.Entry decode(String alias, byte[] encoded);
+
+    /**
+     * @return false if the data has been written in another format and has to be decoded (and migrated) by a
+     * different codec.
+     */
+    boolean canDecode(byte[] encoded);
+
+    /**
+     * @return false if the data has been written in another format than the one this codec writes, so it should be
+     * encoded again.
+     */
+    default boolean isCurrentFormat(byte[] encoded) {
+        return canDecode(encoded);
+    }
+}
@@ -0,0 +1,117 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.keymanagement.api.types.source.KeySet;
+import de.adorsys.keymanagement.api.types.template.NameAndPassword;
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyEntry;
+import de.adorsys.sts.keymanagement.model.StsKeyEntry;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+
+import java.security.KeyStore;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serializes key entries one by one, so a repository can persist every entry on its own instead of the whole
+ * keystore. Every entry is written by the {@link KeyEntryCodec}, by default as a keystore of its own protected by
+ * the keystore password. The metadata are not part of it, repositories keep them as entry attributes and pass them
+ * back in {@link #toKeyStore}.
+ */
+public class KeyEntrySerializer {
+
+    private final Juggler juggler;
+    private final Supplier<char[]> password;
+    private final KeyEntryCodec codec;
+    private final KeyStoreKeyEntryCodec keyStoreCodec;
+
+    public KeyEntrySerializer(Juggler juggler, Supplier<char[]> password) {
+        this(juggler, password, null);
+    }
+
+    /**
+     * @param codec Codec to write the entries with, entries written by the keystore codec before are still read
+     */
+    public KeyEntrySerializer(Juggler juggler, Supplier<char[]> password, KeyEntryCodec codec) {
+        this.juggler = juggler;
+        this.password = password;
+        this.keyStoreCodec = new KeyStoreKeyEntryCodec(juggler, password);
+        this.codec = codec == null ? keyStoreCodec : codec;
+    }
+
+    /**
+     * @return Serialized entries of the keystore by alias, restricted to the given aliases.
+     */
+    public Map<String, byte[]> serialize(StsKeyStore keyStore, Collection<String> aliases) {
+        Map<String, byte[]> serialized = new HashMap<>();
+
+        for (KeyEntry keyEntry : keyStore.getView().all()) {
+            if (aliases.contains(keyEntry.getAlias())) {
+                serialized.put(keyEntry.getAlias(), serialize(keyEntry.getAlias(), keyEntry.getEntry()));
+            }
+        }
+
+        return serialized;
+    }
+
+    public byte[] serialize(String alias, KeyStore.Entry entry) {
+        return codec.encode(alias, entry);
+    }
+
+    public KeyStore.Entry deserialize(String alias, byte[] serialized) {
+        if (codec.canDecode(serialized)) {
+            return codec.decode(alias, serialized);
+        }
+
+        return keyStoreCodec.decode(alias, serialized);
+    }
+
+    /**
+     * @return false if the entry was written in another format than the one of the configured codec and should be
+     * serialized again.
+     */
+    public boolean isCurrentFormat(byte[] serialized) {
+        return serialized != null && codec.isCurrentFormat(serialized);
+    }
+
+    /**
+     * @return All key entries of a serialized keystore by alias, i.e. of a keystore persisted as a whole.
+     */
+    public Map<String, KeyStore.Entry> deserializeKeyStore(byte[] serialized) {
+        return keyStoreCodec.decodeKeyStore(serialized);
+    }
+
+    /**
+     * @param entries    Key entries by alias
+     * @param attributes Metadata of the key entries by alias
+     */
+    public StsKeyStore toKeyStore(
+            Map<String, KeyStore.Entry> entries,
+            Map<String, StsKeyEntry> attributes,
+            ZonedDateTime lastUpdate
+    ) {
+        KeySet.KeySetBuilder keySet = KeySet.builder();
+        for (Map.Entry<String, KeyStore.Entry> entry : entries.entrySet()) {
+            keySet.keyEntry(provided(entry.getKey(), entry.getValue(), attributes.get(entry.getKey())));
+        }
+
+        KeyStore keyStore = juggler.toKeystore().generate(keySet.build(), password);
+
+        return StsKeyStore.builder()
+                .keyStore(keyStore)
+                .view(juggler.readKeys().fromKeyStore(keyStore, id -> password.get()).entries())
+                .lastUpdate(lastUpdate)
+                .build();
+    }
+
+    private ProvidedKeyEntry provided(String alias, KeyStore.Entry entry, StsKeyEntry metadata) {
+        return ProvidedKeyEntry.builder()
+                .keyTemplate(new NameAndPassword(alias, password))
+                .entry(entry)
+                .metadata(metadata)
+                .build();
+    }
+}
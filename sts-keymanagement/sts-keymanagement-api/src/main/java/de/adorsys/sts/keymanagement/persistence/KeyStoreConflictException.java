@@ -0,0 +1,16 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+/**
+ * Thrown on save of a keystore whose persisted version has been changed by another writer since it was loaded.
+ */
+public class KeyStoreConflictException extends RuntimeException {
+
+    public KeyStoreConflictException(String keyStoreName, Long expectedVersion, Long actualVersion) {
+        super("Keystore " + keyStoreName + " has been changed meanwhile, expected version " + expectedVersion
+                + " but was " + actualVersion);
+    }
+
+    public KeyStoreConflictException(String keyStoreName, Long expectedVersion) {
+        super("Keystore " + keyStoreName + " has been changed meanwhile, expected version " + expectedVersion);
+    }
+}
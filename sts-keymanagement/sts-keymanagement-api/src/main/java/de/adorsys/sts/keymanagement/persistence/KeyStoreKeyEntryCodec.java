@@ -0,0 +1,75 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.keymanagement.api.types.source.KeySet;
+import de.adorsys.keymanagement.api.types.template.NameAndPassword;
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyEntry;
+
+import java.security.KeyStore;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Writes every entry as a password protected keystore of its own, in the keystore type of the juggler (UBER by
+ * default). It also reads the entries written before another codec was configured, until they are migrated.
+ */
+public class KeyStoreKeyEntryCodec implements KeyEntryCodec {
+
+    private final Juggler juggler;
+    private final Supplier<char[]> password;
+
+    public KeyStoreKeyEntryCodec(Juggler juggler, Supplier<char[]> password) {
+        this.juggler = juggler;
+        this.password = password;
+    }
+
+    @Override
+    public byte[] encode(String alias, KeyStore.Entry entry) {
+        KeyStore keyStore = juggler.toKeystore().generateWithoutMetadata(
+                KeySet.builder().keyEntry(ProvidedKeyEntry.builder()
+                        .keyTemplate(new NameAndPassword(alias, password))
+                        .entry(entry)
+                        .build()
+                ).build(),
+                password
+        );
+
+        return juggler.serializeDeserialize().serialize(keyStore, password);
+    }
+
+    @Override
+    public KeyStore.Entry decode(String alias, byte[] encoded) {
+        KeyStore.Entry entry = decodeKeyStore(encoded).get(alias);
+
+        if (entry == null) {
+            throw new IllegalStateException("Serialized key entry does not contain alias " + alias);
+        }
+
+        return entry;
+    }
+
+    /**
+     * The keystore types have no common header, so any data is accepted. Codecs which detect their own format have to
+     * be checked before, see {@link DetectingKeyEntryCodec}.
+     */
+    @Override
+    public boolean canDecode(byte[] encoded) {
+        return true;
+    }
+
+    /**
+     * @return All key entries of a serialized keystore by alias, i.e. of a keystore persisted as a whole.
+     */
+    public Map<String, KeyStore.Entry> decodeKeyStore(byte[] encoded) {
+        KeyStore keyStore = juggler.serializeDeserialize().deserialize(encoded, password);
+
+        Map<String, KeyStore.Entry> entries = new HashMap<>();
+        for (KeyEntry keyEntry : juggler.readKeys().fromKeyStore(keyStore, id -> password.get()).entries().all()) {
+            entries.put(keyEntry.getAlias(), keyEntry.getEntry());
+        }
+
+        return entries;
+    }
+}
@@ -6,8 +6,24 @@ import java.time.ZonedDateTime;
 
 public interface KeyStoreRepository {
 
+    /**
+     * Schema of persisted keystores written by {@link #save}: key entries persisted one by one with their
+     * attributes. Keystores persisted as a whole (schema 1), whose entries may lack their metadata, are rewritten
+     * by {@link #migrate}.
+     */
+    int CURRENT_SCHEMA_VERSION = 2;
+
     StsKeyStore load();
     boolean exists();
     void save(StsKeyStore keyStore);
     ZonedDateTime lastUpdate();
+
+    /**
+     * Rewrites a keystore persisted in an older schema once, so loading doesn't have to upgrade it every time.
+     *
+     * @return true if the keystore has been migrated, false if it was up to date or does not exist
+     */
+    default boolean migrate() {
+        return false;
+    }
 }
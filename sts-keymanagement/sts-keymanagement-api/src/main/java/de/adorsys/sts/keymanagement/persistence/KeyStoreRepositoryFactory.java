@@ -0,0 +1,12 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+/**
+ * Creates repositories of other keystores than the configured one, i.e. of the keystore of a tenant.
+ */
+public interface KeyStoreRepositoryFactory {
+
+    /**
+     * @return New repository of the keystore with this name, it keeps its own loaded version of the key entries.
+     */
+    KeyStoreRepository forKeyStore(String keyStoreName);
+}
@@ -0,0 +1,77 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import de.adorsys.sts.keymanagement.model.StsKeyEntry;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+
+import java.security.KeyStore;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable state of deserialized key entries at a specific keystore version. Repositories keep the last loaded
+ * version and only fetch and deserialize the entries which have changed since, see {@link #update}.
+ */
+public class VersionedKeyEntries {
+
+    public static final VersionedKeyEntries NONE = new VersionedKeyEntries(-1L, Collections.emptyMap(), Collections.emptyMap());
+
+    private final long version;
+    private final Map<String, KeyStore.Entry> entries;
+    private final Map<String, StsKeyEntry> attributes;
+
+    private VersionedKeyEntries(long version, Map<String, KeyStore.Entry> entries, Map<String, StsKeyEntry> attributes) {
+        this.version = version;
+        this.entries = entries;
+        this.attributes = attributes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Already deserialized entry, null if the alias was not part of this version.
+     */
+    public KeyStore.Entry getEntry(String alias) {
+        return entries.get(alias);
+    }
+
+    /**
+     * @param version           The new version
+     * @param changedAttributes Attributes of entries added or changed since this version
+     * @param addedEntries      Entries which were not part of this version
+     * @param aliases           All aliases of the new version, entries not contained are dropped
+     */
+    public VersionedKeyEntries update(
+            long version,
+            Collection<StsKeyEntry> changedAttributes,
+            Map<String, KeyStore.Entry> addedEntries,
+            Collection<String> aliases
+    ) {
+        Map<String, KeyStore.Entry> newEntries = new HashMap<>(entries);
+        newEntries.putAll(addedEntries);
+        newEntries.keySet().retainAll(aliases);
+
+        Map<String, StsKeyEntry> newAttributes = new HashMap<>(attributes);
+        for (StsKeyEntry changed : changedAttributes) {
+            newAttributes.put(changed.getAlias(), changed);
+        }
+        newAttributes.keySet().retainAll(aliases);
+
+        return new VersionedKeyEntries(
+                version,
+                Collections.unmodifiableMap(newEntries),
+                Collections.unmodifiableMap(newAttributes)
+        );
+    }
+
+    /**
+     * @return New keystore instance containing the entries of this version.
+     */
+    public StsKeyStore toKeyStore(KeyEntrySerializer serializer, ZonedDateTime lastUpdate) {
+        return serializer.toKeyStore(entries, attributes, lastUpdate);
+    }
+}
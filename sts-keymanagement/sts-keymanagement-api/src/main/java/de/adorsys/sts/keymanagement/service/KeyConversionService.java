@@ -1,9 +1,29 @@
 package de.adorsys.sts.keymanagement.service;
 
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
 import de.adorsys.sts.keymanagement.model.ServerKeysHolder;
 import de.adorsys.sts.keymanagement.model.StsKeyStore;
 
 public interface KeyConversionService {
 
     ServerKeysHolder export(StsKeyStore keyStore);
+
+    /**
+     * Exports only the keys with the given key usage.
+     */
+    ServerKeysHolder export(StsKeyStore keyStore, KeyUsage keyUsage);
+
+    /**
+     * Exports the public keys with the given key usage from their certificates, without decrypting the private keys.
+     */
+    JWKSet exportPublicKeys(StsKeyStore keyStore, KeyUsage keyUsage);
+
+    /**
+     * Exports the private or secret key of a single entry.
+     *
+     * @return null if the keystore does not contain the alias
+     */
+    JWK exportKey(StsKeyStore keyStore, String alias);
 }
@@ -12,6 +12,29 @@ public interface KeyManagementProperties {
 
         String getAliasPrefix();
 
+        /**
+         * Persist a version per key usage, so the keys of unchanged usages are not converted again after a rotation.
+         */
+        boolean isPartitioned();
+
+        /**
+         * Decrypt only the keys which may be picked for new tokens on reload, all other keys on first use.
+         */
+        boolean isLazyKeys();
+
+        /**
+         * Persist the whole keystore in addition to the key entries, as versions before key entries were persisted one
+         * by one read it. Keeps instances of such versions working during a rolling upgrade, once switched off the next
+         * save clears it.
+         */
+        boolean isLegacyKeystore();
+
+        /**
+         * Format of the persisted key entries: "keystore" (a password protected keystore per entry) or "envelope"
+         * (AES-GCM per entry under a key derived once from the password).
+         */
+        String getCodec();
+
         KeyManagementProperties.KeyStoreProperties.KeysProperties getKeys();
 
         interface KeysProperties {
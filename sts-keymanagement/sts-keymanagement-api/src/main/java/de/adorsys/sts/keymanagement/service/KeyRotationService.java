@@ -3,7 +3,16 @@ package de.adorsys.sts.keymanagement.service;
 import de.adorsys.sts.keymanagement.model.KeyRotationResult;
 import de.adorsys.sts.keymanagement.model.StsKeyStore;
 
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
 public interface KeyRotationService {
 
     KeyRotationResult rotate(StsKeyStore stsKeyStore);
+
+    /**
+     * @return Earliest point in time at which {@link #rotate(StsKeyStore)} will change the given keystore (which is
+     * now or in the past if it would change it already), empty if no key is subject to rotation.
+     */
+    Optional<ZonedDateTime> nextTransition(StsKeyStore stsKeyStore);
 }
@@ -3,4 +3,9 @@ package de.adorsys.sts.keymanagement.service;
 public interface KeyStoreInitializer {
 
     boolean initialize();
+
+    /**
+     * @return true if an existing keystore has been migrated to the current schema
+     */
+    boolean migrate();
 }
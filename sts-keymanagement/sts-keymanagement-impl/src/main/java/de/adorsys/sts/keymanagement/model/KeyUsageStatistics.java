@@ -0,0 +1,49 @@
+package de.adorsys.sts.keymanagement.model;
+
+import lombok.Getter;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Usage of one key of the keystore since the start of this instance.
+ */
+@Getter
+public class KeyUsageStatistics {
+
+    private final String keyId;
+    private final KeyUsage keyUsage;
+    private final KeyState state;
+    private final ZonedDateTime notAfter;
+    private final ZonedDateTime expireAt;
+
+    /**
+     * Number of times the key was picked to sign a token.
+     */
+    private final long signatures;
+
+    /**
+     * Number of times the key was looked up by its key id.
+     */
+    private final long lookups;
+
+    /**
+     * Number of secrets decrypted with the key.
+     */
+    private final long decryptions;
+
+    public KeyUsageStatistics(
+            StsKeyEntry keyEntry,
+            long signatures,
+            long lookups,
+            long decryptions
+    ) {
+        this.keyId = keyEntry.getAlias();
+        this.keyUsage = keyEntry.getKeyUsage();
+        this.state = keyEntry.getState();
+        this.notAfter = keyEntry.getNotAfter();
+        this.expireAt = keyEntry.getExpireAt();
+        this.signatures = signatures;
+        this.lookups = lookups;
+        this.decryptions = decryptions;
+    }
+}
@@ -0,0 +1,49 @@
+package de.adorsys.sts.keymanagement.model;
+
+import de.adorsys.sts.common.model.KeyAndJwk;
+
+import java.util.function.Supplier;
+
+/**
+ * Key of a snapshot which is converted (and its private key decrypted) on first use only. The result is kept, so a
+ * key is converted at most once per partition version.
+ */
+public class LazyKeyAndJwk {
+
+    private final Supplier<KeyAndJwk> loader;
+
+    private volatile boolean loaded;
+    private KeyAndJwk keyAndJwk;
+
+    public LazyKeyAndJwk(Supplier<KeyAndJwk> loader) {
+        this.loader = loader;
+    }
+
+    public static LazyKeyAndJwk of(KeyAndJwk keyAndJwk) {
+        LazyKeyAndJwk lazy = new LazyKeyAndJwk(() -> keyAndJwk);
+        lazy.keyAndJwk = keyAndJwk;
+        lazy.loaded = true;
+
+        return lazy;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return The converted key, null if the key can't be converted.
+     */
+    public KeyAndJwk get() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    keyAndJwk = loader.get();
+                    loaded = true;
+                }
+            }
+        }
+
+        return keyAndJwk;
+    }
+}
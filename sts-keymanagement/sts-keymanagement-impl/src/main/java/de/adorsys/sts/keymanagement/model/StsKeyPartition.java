@@ -0,0 +1,63 @@
+package de.adorsys.sts.keymanagement.model;
+
+import com.nimbusds.jose.jwk.JWK;
+import de.adorsys.sts.common.model.KeyAndJwk;
+import lombok.Getter;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, already converted keys of one key usage at one partition version (see
+ * {@link StsKeyStore#getPartitionUpdate(KeyUsage)}). A partition is reused by the next snapshot as long as its
+ * version did not change.
+ */
+public class StsKeyPartition {
+
+    @Getter
+    private final KeyUsage keyUsage;
+
+    @Getter
+    private final ZonedDateTime lastUpdate;
+
+    /**
+     * Keys which may be used to sign, encrypt or as secret key, depending on the key usage.
+     */
+    @Getter
+    private final List<KeyAndJwk> usableKeys;
+
+    /**
+     * All keys of the key usage, including the ones not converted yet.
+     */
+    @Getter
+    private final Map<String, LazyKeyAndJwk> keysById;
+
+    @Getter
+    private final List<JWK> publicKeys;
+
+    public StsKeyPartition(
+            KeyUsage keyUsage,
+            ZonedDateTime lastUpdate,
+            List<KeyAndJwk> usableKeys,
+            Map<String, LazyKeyAndJwk> keysById,
+            List<JWK> publicKeys
+    ) {
+        this.keyUsage = keyUsage;
+        this.lastUpdate = lastUpdate;
+        this.usableKeys = Collections.unmodifiableList(usableKeys);
+        this.keysById = Collections.unmodifiableMap(new HashMap<>(keysById));
+        this.publicKeys = Collections.unmodifiableList(publicKeys);
+    }
+
+    /**
+     * @param partitionUpdates persisted partition versions of a keystore, see {@link StsKeyStore#getPartitionUpdates()}
+     * @return true if the partition of the keystore has its own version and it equals the version of this partition.
+     */
+    public boolean isVersionOf(Map<KeyUsage, ZonedDateTime> partitionUpdates) {
+        ZonedDateTime partitionUpdate = partitionUpdates.get(keyUsage);
+        return partitionUpdate != null && lastUpdate != null && partitionUpdate.isEqual(lastUpdate);
+    }
+}
@@ -0,0 +1,202 @@
+package de.adorsys.sts.keymanagement.model;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import de.adorsys.sts.common.model.KeyAndJwk;
+import de.adorsys.sts.common.util.ImmutableLists;
+import lombok.Getter;
+import org.apache.commons.lang3.RandomUtils;
+
+import java.security.Key;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable, already converted keys of one keystore version. Identified by the keystore instance, its
+ * `lastUpdate` and its partition versions, so it can be reused until the keystore gets replaced or saved.
+ * Consists of one {@link StsKeyPartition} per key usage.
+ */
+public class StsKeySnapshot {
+
+    public static final StsKeySnapshot EMPTY = new StsKeySnapshot(
+            null,
+            ImmutableLists.emptyList(),
+            ImmutableLists.emptyList(),
+            ImmutableLists.emptyList(),
+            Collections.emptyMap(),
+            new JWKSet(ImmutableLists.emptyList())
+    );
+
+    private final StsKeyStore keyStore;
+    private final ZonedDateTime lastUpdate;
+    private final Map<KeyUsage, ZonedDateTime> partitionUpdates;
+    private final Map<KeyUsage, StsKeyPartition> partitions;
+
+    @Getter
+    private final List<KeyAndJwk> signKeys;
+
+    @Getter
+    private final List<KeyAndJwk> encKeys;
+
+    @Getter
+    private final List<KeyAndJwk> secretKeys;
+
+    private final Map<String, LazyKeyAndJwk> keysById;
+
+    @Getter
+    private final JWKSet publicKeys;
+
+    public StsKeySnapshot(
+            StsKeyStore keyStore,
+            List<KeyAndJwk> signKeys,
+            List<KeyAndJwk> encKeys,
+            List<KeyAndJwk> secretKeys,
+            Map<String, KeyAndJwk> keysById,
+            JWKSet publicKeys
+    ) {
+        this(
+                keyStore,
+                keyStore == null ? null : keyStore.getLastUpdate(),
+                keyStore == null ? Collections.emptyMap() : keyStore.getPartitionUpdates(),
+                Collections.emptyMap(),
+                signKeys,
+                encKeys,
+                secretKeys,
+                loaded(keysById),
+                publicKeys
+        );
+    }
+
+    private StsKeySnapshot(
+            StsKeyStore keyStore,
+            ZonedDateTime lastUpdate,
+            Map<KeyUsage, ZonedDateTime> partitionUpdates,
+            Map<KeyUsage, StsKeyPartition> partitions,
+            List<KeyAndJwk> signKeys,
+            List<KeyAndJwk> encKeys,
+            List<KeyAndJwk> secretKeys,
+            Map<String, LazyKeyAndJwk> keysById,
+            JWKSet publicKeys
+    ) {
+        this.keyStore = keyStore;
+        this.lastUpdate = lastUpdate;
+        this.partitionUpdates = partitionUpdates;
+        this.partitions = partitions;
+        this.signKeys = Collections.unmodifiableList(signKeys);
+        this.encKeys = Collections.unmodifiableList(encKeys);
+        this.secretKeys = Collections.unmodifiableList(secretKeys);
+        this.keysById = Collections.unmodifiableMap(new HashMap<>(keysById));
+        this.publicKeys = publicKeys;
+    }
+
+    /**
+     * @param lastUpdate       `lastUpdate` of the keystore, read before the partitions were converted
+     * @param partitionUpdates partition versions of the keystore, read before the partitions were converted
+     * @param previous         snapshot to take the public key set from if the public keys did not change, so the
+     *                         serialized public keys are kept too
+     */
+    public static StsKeySnapshot of(
+            StsKeyStore keyStore,
+            ZonedDateTime lastUpdate,
+            Map<KeyUsage, ZonedDateTime> partitionUpdates,
+            Collection<StsKeyPartition> partitions,
+            StsKeySnapshot previous
+    ) {
+        Map<KeyUsage, StsKeyPartition> byUsage = new EnumMap<>(KeyUsage.class);
+        Map<String, LazyKeyAndJwk> keysById = new HashMap<>();
+        List<JWK> publicKeys = new ArrayList<>();
+        boolean publicKeysUnchanged = !previous.partitions.isEmpty();
+
+        for (StsKeyPartition partition : partitions) {
+            byUsage.put(partition.getKeyUsage(), partition);
+            keysById.putAll(partition.getKeysById());
+            publicKeys.addAll(partition.getPublicKeys());
+
+            StsKeyPartition previousPartition = previous.partitions.get(partition.getKeyUsage());
+            publicKeysUnchanged &= previousPartition != null
+                    && previousPartition.getPublicKeys().equals(partition.getPublicKeys());
+        }
+
+        return new StsKeySnapshot(
+                keyStore,
+                lastUpdate,
+                partitionUpdates,
+                Collections.unmodifiableMap(byUsage),
+                usableKeys(byUsage, KeyUsage.Signature),
+                usableKeys(byUsage, KeyUsage.Encryption),
+                usableKeys(byUsage, KeyUsage.SecretKey),
+                keysById,
+                publicKeysUnchanged ? previous.publicKeys : new JWKSet(publicKeys)
+        );
+    }
+
+    /**
+     * @return Partition of this snapshot, null if the snapshot was not built by partitions.
+     */
+    public StsKeyPartition getPartition(KeyUsage keyUsage) {
+        return partitions.get(keyUsage);
+    }
+
+    /**
+     * @return true if this snapshot was built from exactly this keystore version.
+     */
+    public boolean isVersionOf(StsKeyStore keyStore) {
+        return this.keyStore == keyStore
+                && Objects.equals(lastUpdate, keyStore.getLastUpdate())
+                && partitionUpdates.equals(keyStore.getPartitionUpdates());
+    }
+
+    /**
+     * @return The key with this id, converted on first access if the snapshot was built with lazy keys.
+     */
+    public KeyAndJwk get(String keyId) {
+        if (keyId == null) return null;
+        LazyKeyAndJwk keyAndJwk = keysById.get(keyId);
+        if (keyAndJwk == null) return null;
+        return keyAndJwk.get();
+    }
+
+    /**
+     * @return Number of keys of this snapshot, including the ones not converted yet.
+     */
+    public int size() {
+        return keysById.size();
+    }
+
+    public Key getKey(String keyId) {
+        KeyAndJwk keyAndJwk = get(keyId);
+        if (keyAndJwk == null) return null;
+        return keyAndJwk.key;
+    }
+
+    /**
+     * Select a random key by random picking a number between 0 (inclusive) and size exclusive;
+     * @return KeyAndJwk keyAndJwk
+     */
+    public KeyAndJwk randomSignKey() {
+        return signKeys.get(RandomUtils.nextInt(0, signKeys.size()));
+    }
+
+    public KeyAndJwk randomSecretKey() {
+        return secretKeys.get(RandomUtils.nextInt(0, secretKeys.size()));
+    }
+
+    private static Map<String, LazyKeyAndJwk> loaded(Map<String, KeyAndJwk> keysById) {
+        Map<String, LazyKeyAndJwk> loaded = new HashMap<>();
+        keysById.forEach((keyId, keyAndJwk) -> loaded.put(keyId, LazyKeyAndJwk.of(keyAndJwk)));
+
+        return loaded;
+    }
+
+    private static List<KeyAndJwk> usableKeys(Map<KeyUsage, StsKeyPartition> partitions, KeyUsage keyUsage) {
+        StsKeyPartition partition = partitions.get(keyUsage);
+        return partition == null ? ImmutableLists.emptyList() : partition.getUsableKeys();
+    }
+}
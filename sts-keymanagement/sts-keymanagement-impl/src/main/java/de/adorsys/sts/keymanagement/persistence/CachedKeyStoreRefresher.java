@@ -0,0 +1,80 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single background task which keeps the {@link CachedKeyStoreRepository} up to date, so that request threads
+ * don't have to query the keystore version themselves. Every run is delayed by the interval plus/minus a random
+ * jitter to spread the queries of multiple nodes.
+ */
+public class CachedKeyStoreRefresher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedKeyStoreRefresher.class);
+
+    private final CachedKeyStoreRepository repository;
+    private final long intervalMillis;
+    private final long jitterMillis;
+
+    private ScheduledExecutorService executor;
+
+    public CachedKeyStoreRefresher(CachedKeyStoreRepository repository, Duration interval, Duration jitter) {
+        this.repository = repository;
+        this.intervalMillis = interval.toMillis();
+        this.jitterMillis = jitter == null ? 0 : jitter.toMillis();
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sts-keystore-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext(executor);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void scheduleNext(ScheduledExecutorService scheduler) {
+        try {
+            scheduler.schedule(() -> refresh(scheduler), nextDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Keystore refresher stopped");
+        }
+    }
+
+    private void refresh(ScheduledExecutorService scheduler) {
+        try {
+            repository.refresh();
+        } catch (RuntimeException e) {
+            LOG.warn("Keystore refresh failed, keeping cached keystore", e);
+        } finally {
+            scheduleNext(scheduler);
+        }
+    }
+
+    private long nextDelayMillis() {
+        if (jitterMillis <= 0) {
+            return intervalMillis;
+        }
+
+        long jitter = RandomUtils.nextLong(0, 2 * jitterMillis + 1) - jitterMillis;
+        return Math.max(0, intervalMillis + jitter);
+    }
+}
@@ -1,34 +1,237 @@
 package de.adorsys.sts.keymanagement.persistence;
 
 import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class CachedKeyStoreRepository implements KeyStoreRepository {
 
+    private static final Logger LOG = LoggerFactory.getLogger(CachedKeyStoreRepository.class);
+
     private final KeyStoreRepository keyStoreRepository;
-    private StsKeyStore cachedKeyStore;
+    private final Clock clock;
+
+    /**
+     * If set, the cached keystore is refreshed in background (see {@link #refresh()}) and {@link #load()} only
+     * checks the underlying repository once the cache is older than this.
+     * If null, {@link #load()} checks for updates on every call.
+     */
+    private final Duration maxStaleness;
+
+    /**
+     * If set, the first load serves the keystore of the local snapshot and every keystore loaded from the
+     * underlying repository is written to it.
+     */
+    private final LocalKeyStoreSnapshot localSnapshot;
+
+    private volatile StsKeyStore cachedKeyStore;
+    private volatile Instant lastRefresh;
+    private volatile Instant lastFailedRefresh;
+
+    /**
+     * Keystore read from the local snapshot and the time it was read, until it is replaced by the version of the
+     * underlying repository.
+     */
+    private volatile StsKeyStore localKeyStore;
+    private volatile Instant localKeyStoreRead;
+    private boolean localSnapshotChecked;
+
+    private final Lock reloadLock = new ReentrantLock();
 
     public CachedKeyStoreRepository(KeyStoreRepository keyStoreRepository) {
+        this(keyStoreRepository, Clock.systemUTC(), null);
+    }
+
+    public CachedKeyStoreRepository(KeyStoreRepository keyStoreRepository, Clock clock, Duration maxStaleness) {
+        this(keyStoreRepository, clock, maxStaleness, null);
+    }
+
+    public CachedKeyStoreRepository(
+            KeyStoreRepository keyStoreRepository,
+            Clock clock,
+            Duration maxStaleness,
+            LocalKeyStoreSnapshot localSnapshot
+    ) {
         this.keyStoreRepository = keyStoreRepository;
+        this.clock = clock;
+        this.maxStaleness = maxStaleness;
+        this.localSnapshot = localSnapshot;
     }
 
     @Override
     public StsKeyStore load() {
-        if(cachedKeyStore == null) {
-            cachedKeyStore = keyStoreRepository.load();
-        } else {
-            ZonedDateTime lastUpdate = keyStoreRepository.lastUpdate();
-            ZonedDateTime cachedLastUpdate = cachedKeyStore.getLastUpdate();
-
-            if(lastUpdate.isAfter(cachedLastUpdate)) {
-                cachedKeyStore = keyStoreRepository.load();
-            }
+        if(cachedKeyStore == null || maxStaleness == null || isStale()) {
+            refresh();
         }
 
         return cachedKeyStore;
     }
 
+    /**
+     * Reloads the keystore if the underlying repository has a newer version. Only one thread reloads at a time,
+     * concurrent callers keep serving the previously cached version meanwhile. A keystore read from the local
+     * snapshot is replaced by any other version of the underlying repository.
+     * <p>
+     * If the underlying repository fails, the cached keystore (i.e. the one of the local snapshot) is served further
+     * and the next synchronous check is done after {@link #maxStaleness} at the earliest.
+     */
+    public void refresh() {
+        StsKeyStore keyStore = cachedKeyStore;
+
+        if(keyStore == null) {
+            loadInitial();
+            return;
+        }
+
+        ZonedDateTime lastUpdate;
+        try {
+            lastUpdate = keyStoreRepository.lastUpdate();
+        } catch (RuntimeException e) {
+            onRefreshFailed(e);
+            return;
+        }
+
+        if(!isNewer(lastUpdate, keyStore)) {
+            lastRefresh = clock.instant();
+            return;
+        }
+
+        if(!reloadLock.tryLock()) {
+            // reload of this version already in progress
+            return;
+        }
+
+        try {
+            if(isNewer(lastUpdate, cachedKeyStore)) {
+                cache(keyStoreRepository.load());
+            }
+            lastRefresh = clock.instant();
+        } catch (RuntimeException e) {
+            onRefreshFailed(e);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Checks the underlying repository for a newer version like {@link #refresh()} does, regardless of
+     * {@link #maxStaleness}. Meant for writers which must not modify an outdated copy, like the key rotation: unlike
+     * {@link #load()} it never serves the local snapshot and failures of the underlying repository are thrown.
+     * A version missed nevertheless (i.e. due to clock skew between nodes) is rejected on save by the repository.
+     */
+    public StsKeyStore loadLatest() {
+        reloadLock.lock();
+        try {
+            StsKeyStore keyStore = cachedKeyStore;
+            if(keyStore == null || isNewer(keyStoreRepository.lastUpdate(), keyStore)) {
+                keyStore = keyStoreRepository.load();
+                cache(keyStore);
+            }
+            lastRefresh = clock.instant();
+
+            return keyStore;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the local snapshot unless a keystore is cached already, it does not access the underlying repository.
+     *
+     * @return true if a keystore is cached, so it can be served while the underlying repository is unavailable.
+     */
+    public boolean loadLocalSnapshot() {
+        if(cachedKeyStore != null) {
+            return true;
+        }
+
+        reloadLock.lock();
+        try {
+            return cachedKeyStore != null || readLocalSnapshot();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void onRefreshFailed(RuntimeException e) {
+        lastFailedRefresh = clock.instant();
+        LOG.warn("Couldn't refresh the keystore, serving the cached version of {}", cachedKeyStore.getLastUpdate(), e);
+    }
+
+    private void loadInitial() {
+        reloadLock.lock();
+        try {
+            if(cachedKeyStore == null && readLocalSnapshot()) {
+                return;
+            }
+
+            if(cachedKeyStore == null && keyStoreRepository.exists()) {
+                cache(keyStoreRepository.load());
+            }
+            lastRefresh = clock.instant();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reads the local snapshot once, it counts as fresh for {@link #maxStaleness} after reading, so the background
+     * refresh can reconcile it with the underlying repository meanwhile.
+     */
+    private boolean readLocalSnapshot() {
+        if(localSnapshot == null || localSnapshotChecked) {
+            return false;
+        }
+
+        localSnapshotChecked = true;
+        StsKeyStore keyStore = localSnapshot.read();
+        if(keyStore == null) {
+            return false;
+        }
+
+        localKeyStore = keyStore;
+        localKeyStoreRead = clock.instant();
+        cachedKeyStore = keyStore;
+
+        return true;
+    }
+
+    private void cache(StsKeyStore keyStore) {
+        cachedKeyStore = keyStore;
+        localKeyStore = null;
+
+        if(localSnapshot != null) {
+            localSnapshot.write(keyStore);
+        }
+    }
+
+    private boolean isNewer(ZonedDateTime lastUpdate, StsKeyStore keyStore) {
+        if(keyStore == localKeyStore) {
+            return !lastUpdate.isEqual(keyStore.getLastUpdate());
+        }
+
+        return lastUpdate.isAfter(keyStore.getLastUpdate());
+    }
+
+    /**
+     * @return Time since the last successful check against the underlying repository, null if there was none yet.
+     */
+    public Duration getTimeSinceLastRefresh() {
+        Instant refreshed = lastRefresh;
+        if(refreshed == null) {
+            return null;
+        }
+
+        return Duration.between(refreshed, clock.instant());
+    }
+
     @Override
     public boolean exists() {
         return cachedKeyStore != null || keyStoreRepository.exists();
@@ -36,12 +239,53 @@ public class CachedKeyStoreRepository implements KeyStoreRepository {
 
     @Override
     public void save(StsKeyStore keyStore) {
-        keyStoreRepository.save(keyStore);
-        cachedKeyStore = keyStore;
+        reloadLock.lock();
+        try {
+            keyStoreRepository.save(keyStore);
+            cache(keyStore);
+        } catch (KeyStoreConflictException e) {
+            // the rejected changes may have been made to the cached instance, serve the persisted version instead
+            cache(keyStoreRepository.load());
+            throw e;
+        } finally {
+            reloadLock.unlock();
+        }
     }
 
     @Override
     public ZonedDateTime lastUpdate() {
         return keyStoreRepository.lastUpdate();
     }
+
+    /**
+     * The migration keeps the `lastUpdate`, so the cached keystore is dropped to load the migrated one.
+     */
+    @Override
+    public boolean migrate() {
+        reloadLock.lock();
+        try {
+            boolean migrated = keyStoreRepository.migrate();
+            if (migrated) {
+                cachedKeyStore = null;
+            }
+
+            return migrated;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private boolean isStale() {
+        Instant refreshed = lastRefresh;
+        if(refreshed == null && cachedKeyStore == localKeyStore) {
+            refreshed = localKeyStoreRead;
+        }
+
+        Instant failed = lastFailedRefresh;
+        if(failed != null && (refreshed == null || failed.isAfter(refreshed))) {
+            refreshed = failed;
+        }
+
+        return refreshed == null || Duration.between(refreshed, clock.instant()).compareTo(maxStaleness) > 0;
+    }
 }
@@ -0,0 +1,122 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import lombok.SneakyThrows;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Encrypts every entry with AES-GCM under a key-encryption key, which is derived once from the keystore password
+ * (PBKDF2). Unlike the password based keystore codec there is no key derivation per entry, so loading and saving
+ * costs one AES operation per entry.
+ * <p>
+ * Format: magic, version, IV, ciphertext of the encoded key (PKCS#8 private key with its certificate chain or raw
+ * secret key). The alias and the header are authenticated, so an entry can't be stored under another alias.
+ */
+public class EnvelopeKeyEntryCodec implements KeyEntryCodec {
+
+    private static final byte[] MAGIC = {'S', 'T', 'S', 'E'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+
+    private final Provider provider = new BouncyCastleProvider();
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKey keyEncryptionKey;
+
+    /**
+     * @param password     keystore password
+     * @param keyStoreName name of the keystore, used as salt, so the same password results in different keys for
+     *                     different keystores
+     */
+    public EnvelopeKeyEntryCodec(char[] password, String keyStoreName) {
+        this.keyEncryptionKey = KeyEntryEncoding.deriveKeyEncryptionKey(password, ("sts-key-entry:" + keyStoreName).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    @SneakyThrows
+    public byte[] encode(String alias, KeyStore.Entry entry) {
+        byte[] plaintext = encodeEntry(entry);
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+
+        try {
+            byte[] ciphertext = cipher(Cipher.ENCRYPT_MODE, alias, iv).doFinal(plaintext);
+
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream(HEADER_LENGTH + IV_LENGTH + ciphertext.length);
+            encoded.write(MAGIC);
+            encoded.write(VERSION);
+            encoded.write(iv);
+            encoded.write(ciphertext);
+
+            return encoded.toByteArray();
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public KeyStore.Entry decode(String alias, byte[] encoded) {
+        if (!canDecode(encoded)) {
+            throw new IllegalArgumentException("Key entry " + alias + " is not envelope encrypted");
+        }
+
+        byte[] iv = Arrays.copyOfRange(encoded, HEADER_LENGTH, HEADER_LENGTH + IV_LENGTH);
+        byte[] plaintext = cipher(Cipher.DECRYPT_MODE, alias, iv)
+                .doFinal(encoded, HEADER_LENGTH + IV_LENGTH, encoded.length - HEADER_LENGTH - IV_LENGTH);
+
+        try {
+            return decodeEntry(alias, plaintext);
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    @Override
+    public boolean canDecode(byte[] encoded) {
+        return encoded != null
+                && encoded.length > HEADER_LENGTH + IV_LENGTH
+                && Arrays.equals(Arrays.copyOf(encoded, MAGIC.length), MAGIC)
+                && encoded[MAGIC.length] == VERSION;
+    }
+
+    private Cipher cipher(int mode, String alias, byte[] iv) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(mode, keyEncryptionKey, new GCMParameterSpec(TAG_LENGTH, iv));
+        cipher.updateAAD(MAGIC);
+        cipher.updateAAD(new byte[]{VERSION});
+        cipher.updateAAD(alias.getBytes(StandardCharsets.UTF_8));
+
+        return cipher;
+    }
+
+    private static byte[] encodeEntry(KeyStore.Entry entry) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        KeyEntryEncoding.writeEntry(out, entry);
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private KeyStore.Entry decodeEntry(String alias, byte[] plaintext) throws IOException, GeneralSecurityException {
+        return KeyEntryEncoding.readEntry(new DataInputStream(new ByteArrayInputStream(plaintext)), alias, provider);
+    }
+}
@@ -0,0 +1,119 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import lombok.SneakyThrows;
+
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Arrays;
+
+/**
+ * Unprotected encoding of key entries (PKCS#8 private key with its certificate chain or raw secret key) and the
+ * derivation of the key-encryption key, shared by the formats which encrypt this encoding themselves.
+ */
+final class KeyEntryEncoding {
+
+    private static final String KEK_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int KEK_ITERATIONS = 210_000;
+    private static final int KEK_LENGTH = 256;
+
+    private static final byte PRIVATE_KEY_ENTRY = 1;
+    private static final byte SECRET_KEY_ENTRY = 2;
+
+    private KeyEntryEncoding() {
+    }
+
+    static void writeEntry(DataOutputStream out, KeyStore.Entry entry) throws IOException, GeneralSecurityException {
+        if (entry instanceof KeyStore.PrivateKeyEntry) {
+            KeyStore.PrivateKeyEntry privateKeyEntry = (KeyStore.PrivateKeyEntry) entry;
+            out.writeByte(PRIVATE_KEY_ENTRY);
+            out.writeUTF(privateKeyEntry.getPrivateKey().getAlgorithm());
+            writeBytes(out, privateKeyEntry.getPrivateKey().getEncoded());
+
+            Certificate[] chain = privateKeyEntry.getCertificateChain();
+            out.writeInt(chain.length);
+            for (Certificate certificate : chain) {
+                writeBytes(out, certificate.getEncoded());
+            }
+        } else if (entry instanceof KeyStore.SecretKeyEntry) {
+            SecretKey secretKey = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+            out.writeByte(SECRET_KEY_ENTRY);
+            out.writeUTF(secretKey.getAlgorithm());
+            writeBytes(out, secretKey.getEncoded());
+        } else {
+            throw new IllegalArgumentException("Unsupported key entry type: " + entry.getClass().getName());
+        }
+    }
+
+    static KeyStore.Entry readEntry(DataInputStream in, String alias, Provider provider) throws IOException, GeneralSecurityException {
+        byte type = in.readByte();
+        String algorithm = in.readUTF();
+        byte[] encodedKey = readBytes(in);
+
+        try {
+            if (type == SECRET_KEY_ENTRY) {
+                return new KeyStore.SecretKeyEntry(new SecretKeySpec(encodedKey, algorithm));
+            }
+
+            if (type != PRIVATE_KEY_ENTRY) {
+                throw new IllegalStateException("Unknown type of key entry " + alias + ": " + type);
+            }
+
+            PrivateKey privateKey = KeyFactory.getInstance(algorithm, provider)
+                    .generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
+
+            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509", provider);
+            Certificate[] chain = new Certificate[in.readInt()];
+            for (int i = 0; i < chain.length; ++i) {
+                chain[i] = certificateFactory.generateCertificate(new ByteArrayInputStream(readBytes(in)));
+            }
+
+            return new KeyStore.PrivateKeyEntry(privateKey, chain);
+        } finally {
+            Arrays.fill(encodedKey, (byte) 0);
+        }
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Derives the AES key-encryption key from the keystore password (PBKDF2), the salt separates the keys of
+     * different formats and keystores.
+     */
+    @SneakyThrows
+    static SecretKey deriveKeyEncryptionKey(char[] password, byte[] salt) {
+        PBEKeySpec keySpec = new PBEKeySpec(password, salt, KEK_ITERATIONS, KEK_LENGTH);
+
+        try {
+            byte[] key = SecretKeyFactory.getInstance(KEK_ALGORITHM).generateSecret(keySpec).getEncoded();
+            SecretKey keyEncryptionKey = new SecretKeySpec(key, "AES");
+            Arrays.fill(key, (byte) 0);
+
+            return keyEncryptionKey;
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.sts.keymanagement.model.KeyState;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+import de.adorsys.sts.keymanagement.model.StsKeyEntry;
+import de.adorsys.sts.keymanagement.model.StsKeyEntryImpl;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encrypted copy of the last loaded keystore in a local file, so a restarted instance can sign right away instead of
+ * waiting for the repository. The whole file is encrypted with AES-GCM under a key-encryption key derived from the
+ * keystore password, a file which can't be decrypted (other password, other keystore, tampered) is ignored.
+ * <p>
+ * Format: magic, version, IV, ciphertext of the keystore version, its partition versions and all entries with their
+ * metadata. The file is replaced atomically, so a crash while writing leaves the previous snapshot.
+ */
+public class LocalKeyStoreSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalKeyStoreSnapshot.class);
+
+    private static final byte[] MAGIC = {'S', 'T', 'S', 'S'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+
+    private final Path file;
+    private final KeyEntrySerializer serializer;
+    private final byte[] keyStoreName;
+
+    private final Provider provider = new BouncyCastleProvider();
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKey keyEncryptionKey;
+
+    /**
+     * @param file         snapshot file, its directory has to exist
+     * @param serializer   serializer to create the keystore of the read entries with
+     * @param password     keystore password
+     * @param keyStoreName name of the keystore, a snapshot of another keystore is not read
+     */
+    public LocalKeyStoreSnapshot(Path file, KeyEntrySerializer serializer, char[] password, String keyStoreName) {
+        this.file = file;
+        this.serializer = serializer;
+        this.keyStoreName = keyStoreName.getBytes(StandardCharsets.UTF_8);
+        this.keyEncryptionKey = KeyEntryEncoding.deriveKeyEncryptionKey(
+                password, ("sts-keystore-snapshot:" + keyStoreName).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * @return The keystore of the snapshot, null if there is none or it can't be read.
+     */
+    public StsKeyStore read() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(mapped);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            LOG.warn("Local keystore snapshot {} can't be read, loading keystore from repository", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot by the given keystore. Failures are logged only, the snapshot is an optimization.
+     */
+    public void write(StsKeyStore keyStore) {
+        Path temp = null;
+
+        try {
+            byte[] encoded = encode(keyStore);
+
+            temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(temp, encoded);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            LOG.warn("Local keystore snapshot {} can't be written", file, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    private byte[] encode(StsKeyStore keyStore) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        writeTime(out, keyStore.getLastUpdate());
+
+        Map<KeyUsage, ZonedDateTime> partitionUpdates = keyStore.getPartitionUpdates();
+        out.writeInt(partitionUpdates.size());
+        for (Map.Entry<KeyUsage, ZonedDateTime> partitionUpdate : partitionUpdates.entrySet()) {
+            out.writeUTF(partitionUpdate.getKey().name());
+            writeTime(out, partitionUpdate.getValue());
+        }
+
+        Map<String, StsKeyEntry> attributes = keyStore.getEntries();
+        out.writeInt(attributes.size());
+        for (KeyEntry keyEntry : keyStore.getView().all()) {
+            out.writeUTF(keyEntry.getAlias());
+            writeAttributes(out, attributes.get(keyEntry.getAlias()));
+            KeyEntryEncoding.writeEntry(out, keyEntry.getEntry());
+        }
+
+        out.flush();
+        byte[] plaintext = bytes.toByteArray();
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+
+        try {
+            byte[] ciphertext = cipher(Cipher.ENCRYPT_MODE, iv).doFinal(plaintext);
+
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream(HEADER_LENGTH + IV_LENGTH + ciphertext.length);
+            encoded.write(MAGIC);
+            encoded.write(VERSION);
+            encoded.write(iv);
+            encoded.write(ciphertext);
+
+            return encoded.toByteArray();
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    private StsKeyStore decode(ByteBuffer encoded) throws IOException, GeneralSecurityException {
+        byte[] header = new byte[HEADER_LENGTH];
+        if (encoded.remaining() <= HEADER_LENGTH + IV_LENGTH) {
+            throw new IllegalStateException("Snapshot is truncated");
+        }
+
+        encoded.get(header);
+        if (!Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC) || header[MAGIC.length] != VERSION) {
+            throw new IllegalStateException("Unknown snapshot format");
+        }
+
+        byte[] iv = new byte[IV_LENGTH];
+        encoded.get(iv);
+
+        Cipher cipher = cipher(Cipher.DECRYPT_MODE, iv);
+        ByteBuffer plaintext = ByteBuffer.allocate(cipher.getOutputSize(encoded.remaining()));
+        cipher.doFinal(encoded, plaintext);
+
+        try {
+            return decodeKeyStore(new DataInputStream(new ByteArrayInputStream(plaintext.array(), 0, plaintext.position())));
+        } finally {
+            Arrays.fill(plaintext.array(), (byte) 0);
+        }
+    }
+
+    private StsKeyStore decodeKeyStore(DataInputStream in) throws IOException, GeneralSecurityException {
+        ZonedDateTime lastUpdate = readTime(in);
+
+        Map<KeyUsage, ZonedDateTime> partitionUpdates = new HashMap<>();
+        int partitions = in.readInt();
+        for (int i = 0; i < partitions; ++i) {
+            partitionUpdates.put(KeyUsage.valueOf(in.readUTF()), readTime(in));
+        }
+
+        Map<String, KeyStore.Entry> entries = new HashMap<>();
+        Map<String, StsKeyEntry> attributes = new HashMap<>();
+        int size = in.readInt();
+        for (int i = 0; i < size; ++i) {
+            String alias = in.readUTF();
+            StsKeyEntry keyEntry = readAttributes(in, alias);
+            if (keyEntry != null) {
+                attributes.put(alias, keyEntry);
+            }
+            entries.put(alias, KeyEntryEncoding.readEntry(in, alias, provider));
+        }
+
+        StsKeyStore keyStore = serializer.toKeyStore(entries, attributes, lastUpdate);
+        partitionUpdates.forEach(keyStore::setPartitionUpdate);
+
+        return keyStore;
+    }
+
+    private Cipher cipher(int mode, byte[] iv) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(mode, keyEncryptionKey, new GCMParameterSpec(TAG_LENGTH, iv));
+        cipher.updateAAD(MAGIC);
+        cipher.updateAAD(new byte[]{VERSION});
+        cipher.updateAAD(keyStoreName);
+
+        return cipher;
+    }
+
+    private static void writeAttributes(DataOutputStream out, StsKeyEntry keyEntry) throws IOException {
+        out.writeBoolean(keyEntry != null);
+        if (keyEntry == null) {
+            return;
+        }
+
+        writeTime(out, keyEntry.getCreatedAt());
+        writeTime(out, keyEntry.getNotBefore());
+        writeTime(out, keyEntry.getNotAfter());
+        writeTime(out, keyEntry.getExpireAt());
+        writeLong(out, keyEntry.getValidityInterval());
+        writeLong(out, keyEntry.getLegacyInterval());
+        writeName(out, keyEntry.getState());
+        writeName(out, keyEntry.getKeyUsage());
+    }
+
+    private static StsKeyEntry readAttributes(DataInputStream in, String alias) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        ZonedDateTime createdAt = readTime(in);
+        ZonedDateTime notBefore = readTime(in);
+        ZonedDateTime notAfter = readTime(in);
+        ZonedDateTime expireAt = readTime(in);
+        Long validityInterval = readLong(in);
+        Long legacyInterval = readLong(in);
+        String state = readName(in);
+        String keyUsage = readName(in);
+
+        return StsKeyEntryImpl.builder()
+                .alias(alias)
+                .createdAt(createdAt)
+                .notBefore(notBefore)
+                .notAfter(notAfter)
+                .expireAt(expireAt)
+                .validityInterval(validityInterval)
+                .legacyInterval(legacyInterval)
+                .state(state == null ? null : KeyState.valueOf(state))
+                .keyUsage(keyUsage == null ? null : KeyUsage.valueOf(keyUsage))
+                .build();
+    }
+
+    private static void writeTime(DataOutputStream out, ZonedDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeUTF(time.toString());
+        }
+    }
+
+    private static ZonedDateTime readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? ZonedDateTime.parse(in.readUTF()) : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeName(DataOutputStream out, Enum<?> value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value.name());
+        }
+    }
+
+    private static String readName(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            LOG.debug("Temporary snapshot {} can't be deleted", temp, e);
+        }
+    }
+}
@@ -2,21 +2,40 @@ package de.adorsys.sts.keymanagement.service;
 
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWEDecrypter;
+import com.nimbusds.jose.JWEHeader;
 import com.nimbusds.jose.JWEObject;
 import com.nimbusds.jose.crypto.factories.DefaultJWEDecrypterFactory;
 import de.adorsys.sts.keymanagement.exceptions.SecretDecryptionException;
+import de.adorsys.sts.keymanagement.model.StsKeySnapshot;
 
 import java.security.Key;
 import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DecryptionServiceImpl implements DecryptionService {
 
     private final ServerKeyMapProvider keyMapProvider;
+    private final KeyManagementService keyManagementService;
     private final DefaultJWEDecrypterFactory decrypterFactory = new DefaultJWEDecrypterFactory();
 
+    private volatile Decrypters decrypters;
 
+    /**
+     * Keys of a {@link KeyManagementService} are taken from its snapshot and their decrypters are reused, keys of other
+     * providers are looked up and their decrypters created on every call.
+     */
     public DecryptionServiceImpl(ServerKeyMapProvider keyMapProvider) {
+        this(keyMapProvider, keyMapProvider instanceof KeyManagementService ? (KeyManagementService) keyMapProvider : null);
+    }
+
+    public DecryptionServiceImpl(KeyManagementService keyManagementService) {
+        this(keyManagementService, keyManagementService);
+    }
+
+    private DecryptionServiceImpl(ServerKeyMapProvider keyMapProvider, KeyManagementService keyManagementService) {
         this.keyMapProvider = keyMapProvider;
+        this.keyManagementService = keyManagementService;
     }
 
     @Override
@@ -28,25 +47,82 @@ public class DecryptionServiceImpl implements DecryptionService {
             throw new SecretDecryptionException(e);
         }
 
-        String keyID = jweObject.getHeader().getKeyID();
-        Key key = keyMapProvider.getKey(keyID);
-        if (key == null) {
-            throw new IllegalStateException("No suitable key found");
-        }
-
         JWEDecrypter decrypter;
         try {
-            decrypter = decrypterFactory.createJWEDecrypter(jweObject.getHeader(), key);
+            decrypter = keyManagementService == null
+                    ? createDecrypter(jweObject.getHeader())
+                    : currentDecrypters().find(jweObject.getHeader());
         } catch (JOSEException e) {
             throw new SecretDecryptionException(e);
         }
 
+        if (decrypter == null) {
+            throw new IllegalStateException("No suitable key found");
+        }
+
         try {
             jweObject.decrypt(decrypter);
         } catch (JOSEException e) {
             throw new SecretDecryptionException(e);
         }
 
+        if (keyManagementService != null) {
+            keyManagementService.getUsageCounters().decrypted(jweObject.getHeader().getKeyID());
+        }
+
         return jweObject.getPayload().toString();
     }
+
+    private JWEDecrypter createDecrypter(JWEHeader header) throws JOSEException {
+        Key key = keyMapProvider.getKey(header.getKeyID());
+        return key == null ? null : decrypterFactory.createJWEDecrypter(header, key);
+    }
+
+    private Decrypters currentDecrypters() {
+        StsKeySnapshot snapshot = keyManagementService.getSnapshot();
+        Decrypters current = decrypters;
+
+        if (current == null || current.snapshot != snapshot) {
+            current = new Decrypters(snapshot);
+            decrypters = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * Decrypters of one key version, created once per key id, algorithm and encryption method.
+     */
+    private final class Decrypters {
+
+        private final StsKeySnapshot snapshot;
+        private final Map<String, JWEDecrypter> byKeyIdAndAlgorithm = new ConcurrentHashMap<>();
+
+        private Decrypters(StsKeySnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private JWEDecrypter find(JWEHeader header) throws JOSEException {
+            String keyId = header.getKeyID();
+            if (keyId == null) {
+                return null;
+            }
+
+            String cacheKey = keyId + "/" + header.getAlgorithm().getName() + "/" + header.getEncryptionMethod().getName();
+            JWEDecrypter decrypter = byKeyIdAndAlgorithm.get(cacheKey);
+            if (decrypter != null) {
+                return decrypter;
+            }
+
+            Key key = snapshot.getKey(keyId);
+            if (key == null) {
+                return null;
+            }
+
+            decrypter = decrypterFactory.createJWEDecrypter(header, key);
+            byKeyIdAndAlgorithm.put(cacheKey, decrypter);
+
+            return decrypter;
+        }
+    }
 }
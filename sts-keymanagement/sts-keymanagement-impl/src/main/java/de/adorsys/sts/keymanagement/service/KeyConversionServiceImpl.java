@@ -4,7 +4,10 @@ import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import de.adorsys.keymanagement.api.types.ResultCollection;
 import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.sts.common.converter.KeyConverter;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
 import de.adorsys.sts.keymanagement.model.ServerKeysHolder;
+import de.adorsys.sts.keymanagement.model.StsKeyEntry;
 import de.adorsys.sts.keymanagement.model.StsKeyStore;
 import de.adorsys.sts.keymanagement.model.UnmodifyableKeyStoreViewer;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +16,7 @@ import lombok.SneakyThrows;
 import java.security.KeyStore;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 @RequiredArgsConstructor
 public class KeyConversionServiceImpl implements KeyConversionService {
@@ -20,14 +24,53 @@ public class KeyConversionServiceImpl implements KeyConversionService {
     private final String keyStorePassword;
 
     @Override
-    @SneakyThrows
     public ServerKeysHolder export(StsKeyStore keyStore) {
+        return export(keyStore, entry -> true);
+    }
+
+    @Override
+    public ServerKeysHolder export(StsKeyStore keyStore, KeyUsage keyUsage) {
+        return export(keyStore, entry -> hasKeyUsage(entry, keyUsage));
+    }
+
+    @Override
+    @SneakyThrows
+    public JWKSet exportPublicKeys(StsKeyStore keyStore, KeyUsage keyUsage) {
+        KeyStore toParse = new UnmodifyableKeyStoreViewer(keyStore.getKeyStoreCopy()).getKeyStore();
+        List<JWK> keys = new ArrayList<>();
+        for (KeyEntry entry : keyStore.getView().all()) {
+            if (hasKeyUsage(entry, keyUsage)) {
+                JWK publicKey = KeyConverter.loadPublic(toParse, entry.getAlias());
+                if (publicKey != null) {
+                    keys.add(publicKey.toPublicJWK());
+                }
+            }
+        }
+
+        return new JWKSet(keys);
+    }
+
+    @Override
+    @SneakyThrows
+    public JWK exportKey(StsKeyStore keyStore, String alias) {
+        KeyStore toParse = new UnmodifyableKeyStoreViewer(keyStore.getKeyStoreCopy()).getKeyStore();
+        if (!toParse.containsAlias(alias)) {
+            return null;
+        }
+
+        return KeyConverter.load(toParse, alias, keyStorePassword.toCharArray());
+    }
+
+    @SneakyThrows
+    private ServerKeysHolder export(StsKeyStore keyStore, Predicate<KeyEntry> filter) {
         KeyStore toParse = new UnmodifyableKeyStoreViewer(keyStore.getKeyStoreCopy()).getKeyStore();
         // This excludes metadata keys:
         ResultCollection<KeyEntry> keyEntries = keyStore.getView().all();
         List<JWK> keys = new ArrayList<>();
         for (KeyEntry entry : keyEntries) {
-            keys.add(JWK.load(toParse, entry.getAlias(), keyStorePassword.toCharArray()));
+            if (filter.test(entry)) {
+                keys.add(KeyConverter.load(toParse, entry.getAlias(), keyStorePassword.toCharArray()));
+            }
         }
 
         JWKSet privateKeys = new JWKSet(keys);
@@ -35,4 +78,8 @@ public class KeyConversionServiceImpl implements KeyConversionService {
 
         return new ServerKeysHolder(privateKeys, publicKeys);
     }
+
+    private static boolean hasKeyUsage(KeyEntry entry, KeyUsage keyUsage) {
+        return entry.getMeta() instanceof StsKeyEntry && ((StsKeyEntry) entry.getMeta()).getKeyUsage() == keyUsage;
+    }
 }
@@ -1,116 +1,268 @@
 package de.adorsys.sts.keymanagement.service;
 
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.jwk.AsymmetricJWK;
 import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.SecretJWK;
+import de.adorsys.sts.common.converter.KeyConverter;
 import de.adorsys.sts.common.model.KeyAndJwk;
-import de.adorsys.sts.common.util.ImmutableLists;
+import de.adorsys.sts.common.signer.JWSSignerRegistry;
 import de.adorsys.sts.keymanagement.model.*;
 import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
-import de.adorsys.sts.keymanagement.util.StsServerKeyMap;
 
 import java.security.Key;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class KeyManagementService implements ServerKeyMapProvider {
 
-    private static final JWKSet EMPTY_JWK_SET = new JWKSet(ImmutableLists.emptyList());
-    private static final ServerKeysHolder EMPTY_KEYS = new ServerKeysHolder(EMPTY_JWK_SET, EMPTY_JWK_SET);
-
     private final KeyStoreRepository repository;
     private final KeyConversionService keyConversionService;
+    private final boolean lazyKeys;
+    private final JWSSignerRegistry signerRegistry = new JWSSignerRegistry();
+    private final KeyUsageCounters usageCounters = new KeyUsageCounters();
+
+    private volatile StsKeySnapshot snapshot = StsKeySnapshot.EMPTY;
 
     public KeyManagementService(
             KeyStoreRepository repository,
             KeyConversionService keyConversionService
+    ) {
+        this(repository, keyConversionService, false);
+    }
+
+    /**
+     * @param lazyKeys convert only the keys which may be picked for new tokens when the keystore changes, all other
+     *                 keys (i.e. created and legacy ones) are converted on first access by their key id
+     */
+    public KeyManagementService(
+            KeyStoreRepository repository,
+            KeyConversionService keyConversionService,
+            boolean lazyKeys
     ) {
         this.repository = repository;
         this.keyConversionService = keyConversionService;
+        this.lazyKeys = lazyKeys;
     }
 
     @Override
     public KeyAndJwk randomSecretKey() {
-        return getSecretKeys().randomSecretKey();
+        return getSnapshot().randomSecretKey();
     }
 
     @Override
     public KeyAndJwk randomSignKey() {
-        return getPrivateKeys().randomSignKey();
+        KeyAndJwk signKey = getSnapshot().randomSignKey();
+        usageCounters.signed(signKey.jwk.getKeyID());
+
+        return signKey;
+    }
+
+    /**
+     * @return Reusable signer for a key obtained by {@link #randomSignKey()}.
+     */
+    public JWSSigner findSigner(KeyAndJwk signKey) throws JOSEException {
+        return signerRegistry.findSigner(signKey);
     }
 
     @Override
     public Key getKey(String keyId) {
-        StsServerKeyMap serverKeyMap = new StsServerKeyMap(loadKeys().getPrivateKeySet());
-        return serverKeyMap.getKey(keyId);
+        Key key = getSnapshot().getKey(keyId);
+        if(key != null) {
+            usageCounters.lookedUp(keyId);
+        }
+
+        return key;
     }
 
-    private ServerKeysHolder loadKeys() {
-        ServerKeysHolder exportedKeys;
+    @Override
+    public JWKSet getPublicKeys() {
+        return getSnapshot().getPublicKeys();
+    }
+
+    /**
+     * @return Per key id counters of signatures, lookups and decryptions, see {@link DecryptionServiceImpl}.
+     */
+    public KeyUsageCounters getUsageCounters() {
+        return usageCounters;
+    }
 
-        if(repository.exists()) {
-            exportedKeys = keyConversionService.export(repository.load());
-        } else {
-            exportedKeys = EMPTY_KEYS;
+    /**
+     * @return Usage of every key of the current keystore, including the keys which were not used at all.
+     */
+    public List<KeyUsageStatistics> getKeyUsageStatistics() {
+        if(!repository.exists()) {
+            return new ArrayList<>();
         }
 
-        return exportedKeys;
+        List<KeyUsageStatistics> statistics = new ArrayList<>();
+        for (StsKeyEntry keyEntry : repository.load().getEntries().values()) {
+            KeyUsageCounters.Counters counters = usageCounters.get(keyEntry.getAlias());
+            statistics.add(counters == null
+                    ? new KeyUsageStatistics(keyEntry, 0, 0, 0)
+                    : new KeyUsageStatistics(keyEntry, counters.getSignatures(), counters.getLookups(), counters.getDecryptions())
+            );
+        }
+
+        return statistics;
     }
 
-    @Override
-    public JWKSet getPublicKeys() {
-        if(repository.exists()) {
-            StsKeyStore keyStore = repository.load();
+    /**
+     * @return Snapshot of the current keystore version, conversion happens only if the keystore has changed and
+     * only for the key usages whose partition has changed.
+     */
+    public StsKeySnapshot getSnapshot() {
+        if(!repository.exists()) {
+            return StsKeySnapshot.EMPTY;
+        }
+
+        StsKeyStore keyStore = repository.load();
+        StsKeySnapshot current = snapshot;
+
+        if(current.isVersionOf(keyStore)) {
+            return current;
+        }
 
-            ServerKeysHolder exportedKeys = keyConversionService.export(keyStore);
-            Map<String, StsKeyEntry> keyEntries = keyStore.getEntries();
+        synchronized (this) {
+            current = snapshot;
+            if(!current.isVersionOf(keyStore)) {
+                current = createSnapshot(keyStore, current);
+                snapshot = current;
+                signerRegistry.retainOnly(current.getSignKeys().stream()
+                        .map(it -> it.jwk.getKeyID())
+                        .collect(Collectors.toList()));
+                usageCounters.retainOnly(keyStore.getEntries().keySet());
+            }
+        }
 
-            List<String> filteredKeyAliases = keyEntries.values().stream()
-                    .filter(this::hasUsablePublicKey)
-                    .map(StsKeyEntry::getAlias)
-                    .collect(Collectors.toList());
+        return current;
+    }
 
-            List<JWK> filteredKeys = exportedKeys.getPublicKeySet().getKeys()
-                    .stream()
-                    .filter(k -> filteredKeyAliases.contains(k.getKeyID()))
-                    .collect(Collectors.toList());
+    private StsKeySnapshot createSnapshot(StsKeyStore keyStore, StsKeySnapshot previous) {
+        ZonedDateTime lastUpdate = keyStore.getLastUpdate();
+        Map<KeyUsage, ZonedDateTime> partitionUpdates = keyStore.getPartitionUpdates();
+        Map<String, StsKeyEntry> keyEntries = keyStore.getEntries();
 
-            return new JWKSet(filteredKeys);
-        } else {
-            return EMPTY_JWK_SET;
+        List<StsKeyPartition> partitions = new ArrayList<>();
+        for (KeyUsage keyUsage : KeyUsage.values()) {
+            StsKeyPartition partition = previous.getPartition(keyUsage);
+
+            if(partition == null || !partition.isVersionOf(partitionUpdates)) {
+                partition = createPartition(
+                        keyStore, keyEntries, keyUsage, partitionUpdates.getOrDefault(keyUsage, lastUpdate)
+                );
+            }
+
+            partitions.add(partition);
         }
+
+        return StsKeySnapshot.of(keyStore, lastUpdate, partitionUpdates, partitions, previous);
     }
 
-    private StsServerKeyMap getPrivateKeys() {
-        return new StsServerKeyMap(getFilteredPrivateKeys(this::hasUsablePrivateKey));
+    private StsKeyPartition createPartition(
+            StsKeyStore keyStore,
+            Map<String, StsKeyEntry> keyEntries,
+            KeyUsage keyUsage,
+            ZonedDateTime partitionUpdate
+    ) {
+        if(lazyKeys) {
+            return createLazyPartition(keyStore, keyEntries, keyUsage, partitionUpdate);
+        }
+
+        ServerKeysHolder exportedKeys = keyConversionService.export(keyStore, keyUsage);
+
+        List<KeyAndJwk> usableKeys = new ArrayList<>();
+        Map<String, LazyKeyAndJwk> keysById = new HashMap<>();
+
+        for (JWK jwk : exportedKeys.getPrivateKeySet().getKeys()) {
+            KeyAndJwk keyAndJwk = toKeyAndJwk(jwk);
+            if(keyAndJwk == null) {
+                continue;
+            }
+
+            keysById.put(jwk.getKeyID(), LazyKeyAndJwk.of(keyAndJwk));
+
+            StsKeyEntry keyEntry = keyEntries.get(jwk.getKeyID());
+            if(keyEntry != null && isUsable(keyEntry, keyAndJwk, keyUsage)) {
+                usableKeys.add(keyAndJwk);
+            }
+        }
+
+        List<JWK> publicKeys = usablePublicKeys(exportedKeys.getPublicKeySet(), keyEntries);
+
+        return new StsKeyPartition(keyUsage, partitionUpdate, usableKeys, keysById, publicKeys);
     }
 
-    private StsServerKeyMap getSecretKeys() {
-        return new StsServerKeyMap(getFilteredPrivateKeys(this::isUsableSecretKey));
+    /**
+     * Takes the public keys from the certificates and decrypts only the keys which may be picked for new tokens.
+     */
+    private StsKeyPartition createLazyPartition(
+            StsKeyStore keyStore,
+            Map<String, StsKeyEntry> keyEntries,
+            KeyUsage keyUsage,
+            ZonedDateTime partitionUpdate
+    ) {
+        List<KeyAndJwk> usableKeys = new ArrayList<>();
+        Map<String, LazyKeyAndJwk> keysById = new HashMap<>();
+
+        for (StsKeyEntry keyEntry : keyEntries.values()) {
+            if(keyEntry.getKeyUsage() != keyUsage) {
+                continue;
+            }
+
+            String alias = keyEntry.getAlias();
+            LazyKeyAndJwk lazyKey = new LazyKeyAndJwk(() -> toKeyAndJwk(keyConversionService.exportKey(keyStore, alias)));
+            keysById.put(alias, lazyKey);
+
+            if(hasUsablePrivateKey(keyEntry) || isUsableSecretKey(keyEntry)) {
+                KeyAndJwk keyAndJwk = lazyKey.get();
+                if(keyAndJwk != null && isUsable(keyEntry, keyAndJwk, keyUsage)) {
+                    usableKeys.add(keyAndJwk);
+                }
+            }
+        }
+
+        List<JWK> publicKeys = usablePublicKeys(keyConversionService.exportPublicKeys(keyStore, keyUsage), keyEntries);
+
+        return new StsKeyPartition(keyUsage, partitionUpdate, usableKeys, keysById, publicKeys);
     }
 
-    private JWKSet getFilteredPrivateKeys(Predicate<StsKeyEntry> predicate) {
-        if(repository.exists()) {
-            StsKeyStore keyStore = repository.load();
+    private KeyAndJwk toKeyAndJwk(JWK jwk) {
+        if(jwk == null || jwk.getKeyID() == null || !(jwk instanceof AsymmetricJWK || jwk instanceof SecretJWK)) {
+            return null;
+        }
 
-            ServerKeysHolder exportedKeys = keyConversionService.export(keyStore);
-            Map<String, StsKeyEntry> keyEntries = keyStore.getEntries();
+        Key key = KeyConverter.toPrivateOrSecret(jwk);
+        if(key == null) {
+            return null;
+        }
 
-            List<String> filteredKeyAliases = keyEntries.values().stream()
-                    .filter(predicate)
-                    .map(StsKeyEntry::getAlias)
-                    .collect(Collectors.toList());
+        return new KeyAndJwk(key, jwk);
+    }
 
-            List<JWK> filteredKeys = exportedKeys.getPrivateKeySet().getKeys()
-                    .stream()
-                    .filter(k -> filteredKeyAliases.contains(k.getKeyID()))
-                    .collect(Collectors.toList());
+    private boolean isUsable(StsKeyEntry keyEntry, KeyAndJwk keyAndJwk, KeyUsage keyUsage) {
+        JWK jwk = keyAndJwk.jwk;
 
-            return new JWKSet(filteredKeys);
-        } else {
-            return EMPTY_JWK_SET;
+        if(jwk instanceof AsymmetricJWK && hasUsablePrivateKey(keyEntry)) {
+            return KeyUse.SIGNATURE.equals(jwk.getKeyUse()) && keyUsage == KeyUsage.Signature
+                    || KeyUse.ENCRYPTION.equals(jwk.getKeyUse()) && keyUsage == KeyUsage.Encryption;
         }
+
+        return jwk instanceof SecretJWK && isUsableSecretKey(keyEntry);
+    }
+
+    private List<JWK> usablePublicKeys(JWKSet publicKeySet, Map<String, StsKeyEntry> keyEntries) {
+        return publicKeySet.getKeys()
+                .stream()
+                .filter(k -> keyEntries.containsKey(k.getKeyID()) && hasUsablePublicKey(keyEntries.get(k.getKeyID())))
+                .collect(Collectors.toList());
     }
 
     private boolean hasUsablePublicKey(StsKeyEntry stsKeyEntry) {
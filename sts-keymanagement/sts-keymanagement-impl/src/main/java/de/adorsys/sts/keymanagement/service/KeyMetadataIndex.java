@@ -0,0 +1,123 @@
+package de.adorsys.sts.keymanagement.service;
+
+import com.googlecode.cqengine.ConcurrentIndexedCollection;
+import com.googlecode.cqengine.IndexedCollection;
+import com.googlecode.cqengine.attribute.SimpleNullableAttribute;
+import com.googlecode.cqengine.attribute.support.SimpleFunction;
+import com.googlecode.cqengine.index.hash.HashIndex;
+import com.googlecode.cqengine.index.navigable.NavigableIndex;
+import com.googlecode.cqengine.query.Query;
+import com.googlecode.cqengine.query.option.EngineThresholds;
+import com.googlecode.cqengine.query.option.QueryOptions;
+import com.googlecode.cqengine.resultset.ResultSet;
+import de.adorsys.keymanagement.api.types.entity.KeyEntry;
+import de.adorsys.keymanagement.api.view.EntryView;
+import de.adorsys.keymanagement.core.view.EntryViewImpl;
+import de.adorsys.sts.keymanagement.model.KeyState;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+import de.adorsys.sts.keymanagement.model.StsKeyEntry;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.googlecode.cqengine.query.QueryFactory.*;
+
+/**
+ * Indexed view on the sts metadata of key store entries. State and usage are hash indexed, the validity timestamps
+ * are navigable indexed, so the rotation queries do not scan the whole {@link EntryView}.
+ * <p>
+ * The metadata of an entry is mutated in place, so an entry has to be removed before its metadata changes and be
+ * added again afterwards.
+ */
+class KeyMetadataIndex {
+
+    static final SimpleNullableAttribute<KeyEntry, KeyState> STATE =
+            stsAttribute(KeyState.class, "state", StsKeyEntry::getState);
+
+    static final SimpleNullableAttribute<KeyEntry, KeyUsage> USAGE =
+            stsAttribute(KeyUsage.class, "usage", StsKeyEntry::getKeyUsage);
+
+    static final SimpleNullableAttribute<KeyEntry, Instant> NOT_BEFORE =
+            stsAttribute(Instant.class, "notBefore", it -> toInstant(it.getNotBefore()));
+
+    static final SimpleNullableAttribute<KeyEntry, Instant> NOT_AFTER =
+            stsAttribute(Instant.class, "notAfter", it -> toInstant(it.getNotAfter()));
+
+    static final SimpleNullableAttribute<KeyEntry, Instant> EXPIRE_AT =
+            stsAttribute(Instant.class, "expireAt", it -> toInstant(it.getExpireAt()));
+
+    private final IndexedCollection<KeyEntry> entries = new ConcurrentIndexedCollection<>();
+
+    KeyMetadataIndex(Collection<KeyEntry> entries) {
+        this.entries.addIndex(HashIndex.onAttribute(STATE));
+        this.entries.addIndex(HashIndex.onAttribute(USAGE));
+        this.entries.addIndex(NavigableIndex.onAttribute(NOT_BEFORE));
+        this.entries.addIndex(NavigableIndex.onAttribute(NOT_AFTER));
+        this.entries.addIndex(NavigableIndex.onAttribute(EXPIRE_AT));
+        this.entries.addAll(entries);
+    }
+
+    List<KeyEntry> retrieve(Query<KeyEntry> query) {
+        try (ResultSet<KeyEntry> result = entries.retrieve(query)) {
+            List<KeyEntry> found = new ArrayList<>(result.size());
+            result.forEach(found::add);
+            return found;
+        }
+    }
+
+    /**
+     * @return The earliest value of the timestamp among the entries matching the query. The entries are read in the
+     * order of the navigable index, so only the first match is evaluated.
+     */
+    Optional<Instant> earliest(Query<KeyEntry> query, SimpleNullableAttribute<KeyEntry, Instant> timestamp) {
+        QueryOptions ordered = queryOptions(
+                orderBy(ascending(timestamp)),
+                applyThresholds(threshold(EngineThresholds.INDEX_ORDERING_SELECTIVITY, 1.0))
+        );
+
+        try (ResultSet<KeyEntry> result = entries.retrieve(and(query, has(timestamp)), ordered)) {
+            Iterator<KeyEntry> found = result.iterator();
+            return found.hasNext() ? Optional.of(timestamp.getValue(found.next(), ordered)) : Optional.empty();
+        }
+    }
+
+    int count(Query<KeyEntry> query) {
+        try (ResultSet<KeyEntry> result = entries.retrieve(query)) {
+            return result.size();
+        }
+    }
+
+    void add(Collection<KeyEntry> added) {
+        entries.addAll(added);
+    }
+
+    /**
+     * Indexes entries which were just added to the view by alias.
+     */
+    void add(EntryView<Query<KeyEntry>> view, Collection<String> aliases) {
+        if (aliases.isEmpty()) {
+            return;
+        }
+
+        entries.addAll(view.retrieve(in(EntryViewImpl.A_ID, aliases)).toCollection());
+    }
+
+    void remove(Collection<KeyEntry> removed) {
+        entries.removeAll(removed);
+    }
+
+    private static <A> SimpleNullableAttribute<KeyEntry, A> stsAttribute(Class<A> type, String name,
+                                                                          SimpleFunction<StsKeyEntry, A> getter) {
+        SimpleFunction<KeyEntry, A> function = it -> getter.apply((StsKeyEntry) it.getMeta());
+        return nullableAttribute(KeyEntry.class, type, name, function);
+    }
+
+    private static Instant toInstant(ZonedDateTime dateTime) {
+        return null == dateTime ? null : dateTime.toInstant();
+    }
+}
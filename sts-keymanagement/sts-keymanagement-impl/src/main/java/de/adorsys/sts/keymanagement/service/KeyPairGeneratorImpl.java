@@ -4,11 +4,35 @@ import de.adorsys.keymanagement.api.Juggler;
 import de.adorsys.keymanagement.api.types.template.generated.Encrypting;
 import de.adorsys.keymanagement.api.types.template.generated.Signing;
 import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyPair;
+import lombok.SneakyThrows;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.X500NameBuilder;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.function.Supplier;
 
 public class KeyPairGeneratorImpl implements KeyPairGenerator {
 
+    // same validity as the certificates generated by the juggler
+    private static final int CERTIFICATE_VALIDITY_DAYS = 900;
+    private static final SecureRandom SERIAL_NUMBERS = new SecureRandom();
+
     private final Juggler juggler;
     private final String keyAlgo;
     private final Integer keySize;
@@ -26,6 +50,11 @@ public class KeyPairGeneratorImpl implements KeyPairGenerator {
 
     @Override
     public ProvidedKeyPair generateSignatureKey(String alias, Supplier<char[]> keyPassword) {
+        if (!isSupportedByJuggler()) {
+            // like the juggler certificates, nimbus derives the key use "sig" from it
+            return generateSelfSigned(alias, keyPassword, KeyUsage.nonRepudiation);
+        }
+
         return juggler.generateKeys()
                 .signing(
                         Signing.with()
@@ -53,4 +82,55 @@ public class KeyPairGeneratorImpl implements KeyPairGenerator {
                                 .build()
                 );
     }
+
+    /**
+     * The juggler can only self-sign RSA and DSA certificates.
+     */
+    private boolean isSupportedByJuggler() {
+        return "RSA".equalsIgnoreCase(keyAlgo) || "DSA".equalsIgnoreCase(keyAlgo);
+    }
+
+    /**
+     * Generates EC (size 256 for P-256, 384 for P-384) and Ed25519 key pairs with a self-signed certificate.
+     */
+    @SneakyThrows
+    private ProvidedKeyPair generateSelfSigned(String alias, Supplier<char[]> keyPassword, int keyUsage) {
+        java.security.KeyPairGenerator generator = java.security.KeyPairGenerator.getInstance(keyAlgo, BouncyCastleProvider.PROVIDER_NAME);
+        if (keySize != null) {
+            generator.initialize(keySize);
+        }
+
+        KeyPair keyPair = generator.generateKeyPair();
+
+        X500Name subject = new X500NameBuilder(BCStyle.INSTANCE)
+                .addRDN(BCStyle.CN, serverKeyPairName)
+                .build();
+
+        Instant now = Instant.now();
+        X509v3CertificateBuilder certificateBuilder = new JcaX509v3CertificateBuilder(
+                subject,
+                new BigInteger(128, SERIAL_NUMBERS),
+                Date.from(now),
+                Date.from(now.plus(CERTIFICATE_VALIDITY_DAYS, ChronoUnit.DAYS)),
+                subject,
+                keyPair.getPublic()
+        )
+                .addExtension(Extension.basicConstraints, true, new BasicConstraints(false))
+                .addExtension(Extension.keyUsage, true, new KeyUsage(keyUsage));
+
+        ContentSigner contentSigner = new JcaContentSignerBuilder(serverSigAlgo)
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .build(keyPair.getPrivate());
+
+        X509Certificate certificate = new JcaX509CertificateConverter()
+                .setProvider(BouncyCastleProvider.PROVIDER_NAME)
+                .getCertificate(certificateBuilder.build(contentSigner));
+
+        return ProvidedKeyPair.with()
+                .alias(alias)
+                .password(keyPassword)
+                .pair(keyPair)
+                .certificate(certificate)
+                .build();
+    }
 }
@@ -0,0 +1,126 @@
+package de.adorsys.sts.keymanagement.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of keys which are generated in background, so that callers don't have to wait for the (RSA) key
+ * generation. Falls back to generating the key in the calling thread if the pool is empty.
+ */
+public class KeyPool<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyPool.class);
+
+    private final String name;
+    private final Supplier<T> generator;
+    private final Executor executor;
+    private final int capacity;
+
+    private final BlockingQueue<T> pool;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public KeyPool(String name, Supplier<T> generator, Executor executor, int capacity) {
+        this.name = name;
+        this.generator = generator;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.pool = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * @return A pre-generated key, or a key generated in the calling thread if the pool is empty.
+     */
+    public T take() {
+        T key = pool.poll();
+        refill();
+
+        if (key == null) {
+            misses.increment();
+            key = generate();
+        }
+
+        return key;
+    }
+
+    /**
+     * Schedules the generation of as many keys as the pool is missing.
+     */
+    public void refill() {
+        while (true) {
+            int scheduled = pending.get();
+            if (pool.size() + scheduled >= capacity) {
+                return;
+            }
+
+            if (!pending.compareAndSet(scheduled, scheduled + 1)) {
+                continue;
+            }
+
+            try {
+                executor.execute(this::generateIntoPool);
+            } catch (RejectedExecutionException e) {
+                pending.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getGeneratedCount() {
+        return generated.sum();
+    }
+
+    public long getGenerationNanos() {
+        return generationNanos.sum();
+    }
+
+    /**
+     * @return How often the pool was empty and the key had to be generated in the calling thread.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void generateIntoPool() {
+        try {
+            pool.offer(generate());
+        } catch (RuntimeException e) {
+            LOG.warn("Pre-generating key for pool {} failed", name, e);
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    private T generate() {
+        long start = System.nanoTime();
+        T key = generator.get();
+
+        generationNanos.add(System.nanoTime() - start);
+        generated.increment();
+
+        return key;
+    }
+}
@@ -0,0 +1,34 @@
+package de.adorsys.sts.keymanagement.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Low priority daemon threads which pre-generate the keys of {@link KeyPool}s, so that key generation only uses
+ * otherwise idle CPU time.
+ */
+public class KeyPoolThreads {
+
+    private final ExecutorService executor;
+
+    public KeyPoolThreads(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sts-key-pool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
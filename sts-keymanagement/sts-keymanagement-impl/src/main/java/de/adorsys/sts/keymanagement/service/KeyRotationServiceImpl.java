@@ -1,10 +1,7 @@
 package de.adorsys.sts.keymanagement.service;
 
 import com.google.common.collect.Streams;
-import com.googlecode.cqengine.attribute.Attribute;
-import com.googlecode.cqengine.attribute.support.SimpleFunction;
 import com.googlecode.cqengine.query.Query;
-import de.adorsys.keymanagement.api.types.ResultCollection;
 import de.adorsys.keymanagement.api.types.entity.KeyAlias;
 import de.adorsys.keymanagement.api.types.entity.KeyEntry;
 import de.adorsys.keymanagement.api.view.EntryView;
@@ -18,24 +15,25 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.googlecode.cqengine.query.QueryFactory.*;
+import static de.adorsys.sts.keymanagement.service.KeyMetadataIndex.*;
 
 public class KeyRotationServiceImpl implements KeyRotationService {
 
-    private final SimpleFunction<KeyEntry, StsKeyEntry> STS = it -> ((StsKeyEntry) it.getMeta());
-    private final Attribute<KeyEntry, KeyState> STATE = attribute(it -> STS.apply(it).getState());
-    private final Attribute<KeyEntry, Instant> NOT_BEFORE = attribute(it -> STS.apply(it).getNotBefore().toInstant());
-    private final Attribute<KeyEntry, Instant> NOT_AFTER = attribute(it -> STS.apply(it).getNotAfter().toInstant());
-    private final Attribute<KeyEntry, Instant> EXPIRE_AT = attribute(it -> STS.apply(it).getExpireAt().toInstant());
-    private final Attribute<KeyEntry, KeyUsage> USAGE = attribute(it -> STS.apply(it).getKeyUsage());
-
     private final KeyStoreGenerator keyStoreGenerator;
     private final Clock clock;
     private final KeyManagementRotationProperties.KeyRotationProperties encryptionKeyPairRotationProperties;
     private final KeyManagementRotationProperties.KeyRotationProperties signatureKeyPairRotationProperties;
     private final KeyManagementRotationProperties.KeyRotationProperties secretKeyRotationProperties;
 
+    /**
+     * Index of the last rotated keystore version, the rotation is the only one which changes the entries of a loaded
+     * keystore and it keeps the index in sync.
+     */
+    private IndexedVersion indexed;
+
     public KeyRotationServiceImpl(
             KeyStoreGenerator keyStoreGenerator,
             Clock clock,
@@ -49,40 +47,73 @@ public class KeyRotationServiceImpl implements KeyRotationService {
     }
 
     @Override
-    public KeyRotationResult rotate(StsKeyStore stsKeyStore) {
+    public synchronized KeyRotationResult rotate(StsKeyStore stsKeyStore) {
         ZonedDateTime now = now();
         EntryView<Query<KeyEntry>> view = (EntryView<Query<KeyEntry>>) stsKeyStore.getView();
+        KeyMetadataIndex index = indexOf(stsKeyStore);
         Map<KeyUsage, Integer> rotationEnabledForWithCount = rotationEnabledForWithCount();
         Set<KeyUsage> rotationEnabledFor = rotationEnabledForWithCount.keySet();
 
-        List<String> createdFutureKeys = moveCreatedToValidAndReplenish(now, view, rotationEnabledFor);
-        moveValidToLegacy(now.toInstant(), view, rotationEnabledFor);
-        List<String> dropped = moveLegacyToExpiredAndDrop(now.toInstant(), view, rotationEnabledFor);
-        List<String> generatedKeyAliases = generateMissingValid(rotationEnabledForWithCount, view);
+        List<String> createdFutureKeys = moveCreatedToValidAndReplenish(now, view, index, rotationEnabledFor);
+        List<String> legacyKeys = moveValidToLegacy(now.toInstant(), view, index, rotationEnabledFor);
+        List<String> dropped = moveLegacyToExpiredAndDrop(now.toInstant(), view, index, rotationEnabledFor);
+        List<String> generatedKeyAliases = generateMissingValid(rotationEnabledForWithCount, view, index);
 
         return KeyRotationResult.builder()
                 .generatedKeys(generatedKeyAliases)
                 .removedKeys(dropped)
                 .futureKeys(createdFutureKeys)
+                .legacyKeys(legacyKeys)
                 .build();
     }
 
+    @Override
+    public synchronized Optional<ZonedDateTime> nextTransition(StsKeyStore stsKeyStore) {
+        ZonedDateTime now = now();
+        KeyMetadataIndex index = indexOf(stsKeyStore);
+        Map<KeyUsage, Integer> rotationEnabledForWithCount = rotationEnabledForWithCount();
+        Set<KeyUsage> rotationEnabledFor = rotationEnabledForWithCount.keySet();
+
+        for (Map.Entry<KeyUsage, Integer> toCheck : rotationEnabledForWithCount.entrySet()) {
+            if (index.count(and(equal(STATE, KeyState.VALID), equal(USAGE, toCheck.getKey()))) < toCheck.getValue()) {
+                return Optional.of(now);
+            }
+        }
+
+        if (index.count(and(equal(STATE, KeyState.EXPIRED), in(USAGE, rotationEnabledFor))) > 0) {
+            return Optional.of(now);
+        }
+
+        return Stream.of(
+                index.earliest(and(equal(STATE, KeyState.CREATED), in(USAGE, rotationEnabledFor)), NOT_BEFORE),
+                index.earliest(and(equal(STATE, KeyState.VALID), in(USAGE, rotationEnabledFor)), NOT_AFTER),
+                index.earliest(and(equal(STATE, KeyState.LEGACY), in(USAGE, rotationEnabledFor)), EXPIRE_AT)
+        )
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .min(Comparator.naturalOrder())
+                .map(it -> it.atZone(ZoneOffset.UTC));
+    }
+
     private List<String> moveCreatedToValidAndReplenish(ZonedDateTime now, EntryView<Query<KeyEntry>> view,
+                                                        KeyMetadataIndex index,
                                                         Collection<KeyUsage> rotationEnabledForUsages) {
-        ResultCollection<KeyEntry> createdToValid = view.retrieve(
+        List<KeyEntry> createdToValid = index.retrieve(
                 and(
                         equal(STATE, KeyState.CREATED),
                         lessThan(NOT_BEFORE, now.toInstant()),
                         in(USAGE, rotationEnabledForUsages)
                 )
-        ).toCollection();
+        );
 
+        index.remove(createdToValid);
         view.update(
                 createdToValid.stream()
                         .map(it -> it.aliasWithMeta(StsKeyEntry.class))
                         .map(it -> it.toBuilder().metadata(toValid(now, it.getMetadata())).build())
                         .collect(Collectors.toList())
         );
+        index.add(createdToValid);
 
         List<GeneratedStsEntry> createdKeys = new ArrayList<>();
         for (KeyEntry keyEntry : createdToValid) {
@@ -95,44 +126,54 @@ public class KeyRotationServiceImpl implements KeyRotationService {
         }
         view.add(createdKeys.stream().map(it -> it.getKey()).collect(Collectors.toList()));
 
-        return createdKeys.stream().map(it -> it.getEntry().getAlias()).collect(Collectors.toList());
+        List<String> createdAliases = createdKeys.stream().map(it -> it.getEntry().getAlias()).collect(Collectors.toList());
+        index.add(view, createdAliases);
+
+        return createdAliases;
     }
 
-    private void moveValidToLegacy(Instant now, EntryView<Query<KeyEntry>> view,
+    private List<String> moveValidToLegacy(Instant now, EntryView<Query<KeyEntry>> view, KeyMetadataIndex index,
                                    Collection<KeyUsage> rotationEnabledForUsages) {
-        ResultCollection<KeyEntry> expiredValid = view.retrieve(
+        List<KeyEntry> expiredValid = index.retrieve(
                 and(
                         equal(STATE, KeyState.VALID),
                         lessThan(NOT_AFTER, now),
                         in(USAGE, rotationEnabledForUsages)
                 )
-        ).toCollection();
+        );
 
+        index.remove(expiredValid);
         view.update(
                 expiredValid.stream()
                         .map(it -> it.aliasWithMeta(StsKeyEntry.class))
                         .map(it -> it.toBuilder().metadata(toLegacy(it.getMetadata())).build())
                         .collect(Collectors.toList())
         );
+        index.add(expiredValid);
+
+        return expiredValid.stream().map(KeyAlias::getAlias).collect(Collectors.toList());
     }
 
     private List<String> moveLegacyToExpiredAndDrop(Instant now, EntryView<Query<KeyEntry>> view,
+                                                    KeyMetadataIndex index,
                                                     Collection<KeyUsage> rotationEnabledForUsages) {
-        ResultCollection<KeyEntry> legacyExpiredEntries = view.retrieve(
+        List<KeyEntry> legacyExpiredEntries = index.retrieve(
                 and(
                         equal(STATE, KeyState.LEGACY),
                         lessThan(EXPIRE_AT, now),
                         in(USAGE, rotationEnabledForUsages)
                 )
-        ).toCollection();
+        );
+        index.remove(legacyExpiredEntries);
         view.remove(legacyExpiredEntries);
 
-        ResultCollection<KeyEntry> expired = view.retrieve(
+        List<KeyEntry> expired = index.retrieve(
                 and(
                         equal(STATE, KeyState.EXPIRED),
                         in(USAGE, rotationEnabledForUsages)
                 )
-        ).toCollection();
+        );
+        index.remove(expired);
         view.remove(expired);
 
         return Streams.concat(legacyExpiredEntries.stream(), expired.stream())
@@ -141,12 +182,10 @@ public class KeyRotationServiceImpl implements KeyRotationService {
     }
 
     private List<String> generateMissingValid(Map<KeyUsage, Integer> rotationEnabledForWithCount,
-                                              EntryView<Query<KeyEntry>> view) {
+                                              EntryView<Query<KeyEntry>> view, KeyMetadataIndex index) {
         List<GeneratedStsEntry> generatedMissing = new ArrayList<>();
         for (Map.Entry<KeyUsage, Integer> toCheck : rotationEnabledForWithCount.entrySet()) {
-            int countValidForUsage = view.retrieve(and(equal(STATE, KeyState.VALID), equal(USAGE, toCheck.getKey())))
-                    .toCollection()
-                    .size();
+            int countValidForUsage = index.count(and(equal(STATE, KeyState.VALID), equal(USAGE, toCheck.getKey())));
 
             for (int i = 0; i < toCheck.getValue() - countValidForUsage; ++i) {
                 generatedMissing.add(generateKey(toCheck.getKey()));
@@ -154,7 +193,25 @@ public class KeyRotationServiceImpl implements KeyRotationService {
         }
 
         view.add(generatedMissing.stream().map(it -> it.getKey()).collect(Collectors.toList()));
-        return generatedMissing.stream().map(it -> it.getEntry().getAlias()).collect(Collectors.toList());
+
+        List<String> generatedAliases = generatedMissing.stream().map(it -> it.getEntry().getAlias()).collect(Collectors.toList());
+        index.add(view, generatedAliases);
+
+        return generatedAliases;
+    }
+
+    /**
+     * @return The index of the last run if the keystore is the same instance in the same version, a new one otherwise.
+     */
+    private KeyMetadataIndex indexOf(StsKeyStore stsKeyStore) {
+        IndexedVersion current = indexed;
+        if (null != current && current.isVersionOf(stsKeyStore)) {
+            return current.index;
+        }
+
+        KeyMetadataIndex index = new KeyMetadataIndex(stsKeyStore.getView().all());
+        indexed = new IndexedVersion(stsKeyStore, index);
+        return index;
     }
 
     private Map<KeyUsage, Integer> rotationEnabledForWithCount() {
@@ -201,4 +258,24 @@ public class KeyRotationServiceImpl implements KeyRotationService {
     private ZonedDateTime now() {
         return clock.instant().atZone(ZoneOffset.UTC);
     }
+
+    private static final class IndexedVersion {
+        private final EntryView<?> view;
+        private final ZonedDateTime lastUpdate;
+        private final Map<KeyUsage, ZonedDateTime> partitionUpdates;
+        private final KeyMetadataIndex index;
+
+        private IndexedVersion(StsKeyStore stsKeyStore, KeyMetadataIndex index) {
+            this.view = stsKeyStore.getView();
+            this.lastUpdate = stsKeyStore.getLastUpdate();
+            this.partitionUpdates = stsKeyStore.getPartitionUpdates();
+            this.index = index;
+        }
+
+        private boolean isVersionOf(StsKeyStore stsKeyStore) {
+            return view == stsKeyStore.getView()
+                    && Objects.equals(lastUpdate, stsKeyStore.getLastUpdate())
+                    && partitionUpdates.equals(stsKeyStore.getPartitionUpdates());
+        }
+    }
 }
@@ -13,7 +13,12 @@ import java.security.SecureRandom;
 import java.time.Clock;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 
 public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
@@ -29,6 +34,11 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
     private final PasswordCallbackHandler keyPassHandler;
 
+    /**
+     * Count of threads generating the initial keys in {@link #generate()}.
+     */
+    private final int parallelism;
+
     private final KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties encKeyPairsProperties;
     private final KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties signKeyPairsProperties;
     private final KeyManagementProperties.KeyStoreProperties.KeysProperties.SecretKeyProperties secretKeyProperties;
@@ -40,8 +50,29 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
             KeyPairGenerator signKeyPairGenerator,
             SecretKeyGenerator secretKeyGenerator,
             KeyManagementProperties keyManagementProperties
+    ) {
+        this(
+                juggler,
+                clock,
+                encKeyPairGenerator,
+                signKeyPairGenerator,
+                secretKeyGenerator,
+                keyManagementProperties,
+                Runtime.getRuntime().availableProcessors()
+        );
+    }
+
+    public KeyStoreGeneratorImpl(
+            Juggler juggler,
+            Clock clock,
+            KeyPairGenerator encKeyPairGenerator,
+            KeyPairGenerator signKeyPairGenerator,
+            SecretKeyGenerator secretKeyGenerator,
+            KeyManagementProperties keyManagementProperties,
+            int parallelism
     ) {
         this.juggler = juggler;
+        this.parallelism = parallelism;
         this.clock = clock;
         this.encKeyPairGenerator = encKeyPairGenerator;
         this.signKeyPairGenerator = signKeyPairGenerator;
@@ -61,32 +92,54 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
         keyPassHandler = new PasswordCallbackHandler(password.toCharArray());
     }
 
+    /**
+     * Generates the initial keys in parallel. Aliases and metadata are assigned afterwards in the same order as if the
+     * keys were generated one after the other.
+     */
     @Override
     public StsKeyStore generate() {
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            return generate(forkJoinPool);
+        } finally {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    private StsKeyStore generate(ForkJoinPool forkJoinPool) {
+        int signKeyPairCount = signKeyPairsProperties.getInitialCount();
+        int encKeyPairCount = encKeyPairsProperties.getInitialCount();
+        int secretKeyCount = secretKeyProperties.getInitialCount();
+
+        // one key for instant and one for future usage each
+        List<ForkJoinTask<ProvidedKeyPair>> signKeyPairs = submit(forkJoinPool, 2 * signKeyPairCount, this::generateSignKeyPair);
+        List<ForkJoinTask<ProvidedKeyPair>> encKeyPairs = submit(forkJoinPool, 2 * encKeyPairCount, this::generateEncryptionKeyPair);
+        List<ForkJoinTask<ProvidedKey>> secretKeys = submit(forkJoinPool, 2 * secretKeyCount, this::generateSecretKey);
 
+        ZonedDateTime now = now();
         KeySetTemplate.KeySetTemplateBuilder builder = KeySetTemplate.builder();
 
-        for (int i = 0; i < signKeyPairsProperties.getInitialCount(); i++) {
-            GeneratedStsEntry<ProvidedKeyPair> signKeyPair = generateSignatureKeyEntryForInstantUsage();
+        for (int i = 0; i < signKeyPairCount; i++) {
+            GeneratedStsEntry<ProvidedKeyPair> signKeyPair = signatureKeyEntryForInstantUsage(signKeyPairs.get(2 * i).join(), now);
             builder = builder.providedPair(signKeyPair.getKey());
 
-            signKeyPair = generateSignatureKeyEntryForFutureUsage(signKeyPair.getEntry().getNotAfter());
+            signKeyPair = signatureKeyEntryForFutureUsage(signKeyPairs.get(2 * i + 1).join(), signKeyPair.getEntry().getNotAfter(), now);
             builder = builder.providedPair(signKeyPair.getKey());
         }
 
-        for (int i = 0; i < encKeyPairsProperties.getInitialCount(); i++) {
-            GeneratedStsEntry<ProvidedKeyPair> encPair = generateEncryptionKeyEntryForInstantUsage();
+        for (int i = 0; i < encKeyPairCount; i++) {
+            GeneratedStsEntry<ProvidedKeyPair> encPair = encryptionKeyEntryForInstantUsage(encKeyPairs.get(2 * i).join(), now);
             builder = builder.providedPair(encPair.getKey());
 
-            encPair = generateEncryptionKeyEntryForFutureUsage(encPair.getEntry().getNotAfter());
+            encPair = encryptionKeyEntryForFutureUsage(encKeyPairs.get(2 * i + 1).join(), encPair.getEntry().getNotAfter(), now);
             builder = builder.providedPair(encPair.getKey());
         }
 
-        for (int i = 0; i < secretKeyProperties.getInitialCount(); i++) {
-            GeneratedStsEntry<ProvidedKey> secretKey = generateSecretKeyEntryForInstantUsage();
+        for (int i = 0; i < secretKeyCount; i++) {
+            GeneratedStsEntry<ProvidedKey> secretKey = secretKeyEntryForInstantUsage(secretKeys.get(2 * i).join(), now);
             builder = builder.providedKey(secretKey.getKey());
 
-            secretKey = generateSecretKeyEntryForFutureUsage(secretKey.getEntry().getNotAfter());
+            secretKey = secretKeyEntryForFutureUsage(secretKeys.get(2 * i + 1).join(), secretKey.getEntry().getNotAfter(), now);
             builder = builder.providedKey(secretKey.getKey());
         }
 
@@ -99,10 +152,19 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
         return StsKeyStore.builder()
                 .keyStore(keyStore)
                 .view(juggler.readKeys().fromKeyStore(keyStore, id -> keyPassHandler.getPassword()).entries())
-                .lastUpdate(now())
+                .lastUpdate(now)
                 .build();
     }
 
+    private <T> List<ForkJoinTask<T>> submit(ForkJoinPool forkJoinPool, int count, Supplier<T> generator) {
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(forkJoinPool.submit(generator::get));
+        }
+
+        return tasks;
+    }
+
     @Override
     public GeneratedStsEntry generateKeyEntryForFutureUsage(KeyUsage keyUsage, ZonedDateTime notBefore) {
         GeneratedStsEntry generatedKeyEntry;
@@ -124,9 +186,13 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
     @Override
     public GeneratedStsEntry<ProvidedKeyPair> generateSignatureKeyEntryForInstantUsage() {
-        ProvidedKeyPair signatureKeyPair = generateSignKeyPair();
-        ZonedDateTime now = now();
+        return signatureKeyEntryForInstantUsage(generateSignKeyPair(), now());
+    }
 
+    private GeneratedStsEntry<ProvidedKeyPair> signatureKeyEntryForInstantUsage(
+            ProvidedKeyPair signatureKeyPair,
+            ZonedDateTime now
+    ) {
         StsKeyEntryImpl entry = StsKeyEntryImpl.builder()
                 .alias(signatureKeyPair.generateName())
                 .createdAt(now)
@@ -146,9 +212,14 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
     @Override
     public GeneratedStsEntry<ProvidedKeyPair> generateSignatureKeyEntryForFutureUsage(ZonedDateTime notBefore) {
-        ProvidedKeyPair signatureKeyPair = generateSignKeyPair();
-        ZonedDateTime now = now();
+        return signatureKeyEntryForFutureUsage(generateSignKeyPair(), notBefore, now());
+    }
 
+    private GeneratedStsEntry<ProvidedKeyPair> signatureKeyEntryForFutureUsage(
+            ProvidedKeyPair signatureKeyPair,
+            ZonedDateTime notBefore,
+            ZonedDateTime now
+    ) {
         StsKeyEntryImpl entry = StsKeyEntryImpl.builder()
                 .alias(signatureKeyPair.generateName())
                 .createdAt(now)
@@ -175,9 +246,13 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
     @Override
     public GeneratedStsEntry<ProvidedKeyPair> generateEncryptionKeyEntryForInstantUsage() {
-        ProvidedKeyPair encryptionKeyPair = generateEncryptionKeyPair();
-        ZonedDateTime now = now();
+        return encryptionKeyEntryForInstantUsage(generateEncryptionKeyPair(), now());
+    }
 
+    private GeneratedStsEntry<ProvidedKeyPair> encryptionKeyEntryForInstantUsage(
+            ProvidedKeyPair encryptionKeyPair,
+            ZonedDateTime now
+    ) {
         StsKeyEntryImpl entry = StsKeyEntryImpl.builder()
                 .alias(encryptionKeyPair.generateName())
                 .createdAt(now)
@@ -197,9 +272,14 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
     @Override
     public GeneratedStsEntry<ProvidedKeyPair> generateEncryptionKeyEntryForFutureUsage(ZonedDateTime notBefore) {
-        ProvidedKeyPair encryptionKeyPair = generateEncryptionKeyPair();
-        ZonedDateTime now = now();
+        return encryptionKeyEntryForFutureUsage(generateEncryptionKeyPair(), notBefore, now());
+    }
 
+    private GeneratedStsEntry<ProvidedKeyPair> encryptionKeyEntryForFutureUsage(
+            ProvidedKeyPair encryptionKeyPair,
+            ZonedDateTime notBefore,
+            ZonedDateTime now
+    ) {
         StsKeyEntryImpl entry = StsKeyEntryImpl.builder()
                 .alias(encryptionKeyPair.generateName())
                 .createdAt(now)
@@ -225,9 +305,10 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
     @Override
     public GeneratedStsEntry<ProvidedKey> generateSecretKeyEntryForInstantUsage() {
-        ProvidedKey secretKeyData = generateSecretKey();
-        ZonedDateTime now = now();
+        return secretKeyEntryForInstantUsage(generateSecretKey(), now());
+    }
 
+    private GeneratedStsEntry<ProvidedKey> secretKeyEntryForInstantUsage(ProvidedKey secretKeyData, ZonedDateTime now) {
         StsKeyEntryImpl entry = StsKeyEntryImpl.builder()
                 .alias(secretKeyData.generateName())
                 .createdAt(now)
@@ -248,9 +329,14 @@ public class KeyStoreGeneratorImpl implements KeyStoreGenerator {
 
     @Override
     public GeneratedStsEntry<ProvidedKey> generateSecretKeyEntryForFutureUsage(ZonedDateTime notBefore) {
-        ProvidedKey secretKeyData = generateSecretKey();
-        ZonedDateTime now = now();
+        return secretKeyEntryForFutureUsage(generateSecretKey(), notBefore, now());
+    }
 
+    private GeneratedStsEntry<ProvidedKey> secretKeyEntryForFutureUsage(
+            ProvidedKey secretKeyData,
+            ZonedDateTime notBefore,
+            ZonedDateTime now
+    ) {
         StsKeyEntryImpl entry = StsKeyEntryImpl.builder()
                 .alias(secretKeyData.generateName())
                 .createdAt(now)
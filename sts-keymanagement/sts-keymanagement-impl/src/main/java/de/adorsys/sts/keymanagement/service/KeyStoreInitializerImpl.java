@@ -27,4 +27,9 @@ public class KeyStoreInitializerImpl implements KeyStoreInitializer {
             return false;
         }
     }
+
+    @Override
+    public boolean migrate() {
+        return repository.migrate();
+    }
 }
@@ -0,0 +1,119 @@
+package de.adorsys.sts.keymanagement.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts per key id how often a key was picked for signing, looked up and used to decrypt. Counting is done with
+ * {@link LongAdder}s, so concurrent requests using the same key don't contend. Counters exist only for keys which
+ * were used and are dropped when the key is removed from the keystore.
+ */
+public class KeyUsageCounters {
+
+    private final Map<String, Counters> byKeyId = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void signed(String keyId) {
+        counters(keyId).signatures.increment();
+    }
+
+    public void lookedUp(String keyId) {
+        counters(keyId).lookups.increment();
+    }
+
+    public void decrypted(String keyId) {
+        counters(keyId).decryptions.increment();
+    }
+
+    /**
+     * @return Counters of the key, null if the key was not used yet.
+     */
+    public Counters get(String keyId) {
+        return byKeyId.get(keyId);
+    }
+
+    public Map<String, Counters> getAll() {
+        return Collections.unmodifiableMap(byKeyId);
+    }
+
+    /**
+     * Drops the counters of all keys not in the given key ids.
+     */
+    public void retainOnly(Collection<String> keyIds) {
+        Set<String> retained = new HashSet<>(keyIds);
+        for (String keyId : byKeyId.keySet()) {
+            if (retained.contains(keyId)) {
+                continue;
+            }
+
+            byKeyId.computeIfPresent(keyId, (id, removed) -> {
+                listeners.forEach(it -> it.removed(id, removed));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Registers a listener which gets notified about counters created or dropped from now on and about all existing
+     * counters right away.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        for (String keyId : byKeyId.keySet()) {
+            byKeyId.computeIfPresent(keyId, (id, existing) -> {
+                listener.added(id, existing);
+                return existing;
+            });
+        }
+    }
+
+    /**
+     * Listeners are notified within the map operation which creates or drops the counters, so the notifications of a
+     * key id can't overtake each other.
+     */
+    private Counters counters(String keyId) {
+        Counters counters = byKeyId.get(keyId);
+        if (counters != null) {
+            return counters;
+        }
+
+        return byKeyId.computeIfAbsent(keyId, id -> {
+            Counters created = new Counters();
+            listeners.forEach(it -> it.added(id, created));
+            return created;
+        });
+    }
+
+    public static final class Counters {
+
+        private final LongAdder signatures = new LongAdder();
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder decryptions = new LongAdder();
+
+        public long getSignatures() {
+            return signatures.sum();
+        }
+
+        public long getLookups() {
+            return lookups.sum();
+        }
+
+        public long getDecryptions() {
+            return decryptions.sum();
+        }
+    }
+
+    public interface Listener {
+
+        void added(String keyId, Counters counters);
+
+        void removed(String keyId, Counters counters);
+    }
+}
@@ -0,0 +1,74 @@
+package de.adorsys.sts.keymanagement.service;
+
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyPair;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Takes key pairs of the given usage from a {@link KeyPool}, other key pairs are generated by the delegate directly.
+ * Pooled key pairs are generated with a placeholder alias and get the requested alias and password on take.
+ */
+public class PooledKeyPairGenerator implements KeyPairGenerator {
+
+    private static final String POOLED_ALIAS = "pooled";
+    private static final Supplier<char[]> POOLED_PASSWORD = () -> new char[0];
+
+    private final KeyPairGenerator keyPairGenerator;
+    private final KeyUsage keyUsage;
+    private final KeyPool<ProvidedKeyPair> pool;
+
+    public PooledKeyPairGenerator(KeyPairGenerator keyPairGenerator, KeyUsage keyUsage, Executor executor, int capacity) {
+        if (keyUsage != KeyUsage.Signature && keyUsage != KeyUsage.Encryption) {
+            throw new IllegalArgumentException("unsupported KeyUsage for key pairs: " + keyUsage.name());
+        }
+
+        this.keyPairGenerator = keyPairGenerator;
+        this.keyUsage = keyUsage;
+        this.pool = new KeyPool<>(keyUsage.name(), this::generatePooled, executor, capacity);
+    }
+
+    public void start() {
+        pool.refill();
+    }
+
+    @Override
+    public ProvidedKeyPair generateSignatureKey(String alias, Supplier<char[]> keyPassword) {
+        if (keyUsage != KeyUsage.Signature) {
+            return keyPairGenerator.generateSignatureKey(alias, keyPassword);
+        }
+
+        return withAlias(pool.take(), alias, keyPassword);
+    }
+
+    @Override
+    public ProvidedKeyPair generateEncryptionKey(String alias, Supplier<char[]> keyPassword) {
+        if (keyUsage != KeyUsage.Encryption) {
+            return keyPairGenerator.generateEncryptionKey(alias, keyPassword);
+        }
+
+        return withAlias(pool.take(), alias, keyPassword);
+    }
+
+    public KeyPool<ProvidedKeyPair> getPool() {
+        return pool;
+    }
+
+    private ProvidedKeyPair generatePooled() {
+        if (keyUsage == KeyUsage.Signature) {
+            return keyPairGenerator.generateSignatureKey(POOLED_ALIAS, POOLED_PASSWORD);
+        }
+
+        return keyPairGenerator.generateEncryptionKey(POOLED_ALIAS, POOLED_PASSWORD);
+    }
+
+    private ProvidedKeyPair withAlias(ProvidedKeyPair pooled, String alias, Supplier<char[]> keyPassword) {
+        return ProvidedKeyPair.with()
+                .alias(alias)
+                .password(keyPassword)
+                .pair(pooled.getPair())
+                .certificates(pooled.getCertificates())
+                .build();
+    }
+}
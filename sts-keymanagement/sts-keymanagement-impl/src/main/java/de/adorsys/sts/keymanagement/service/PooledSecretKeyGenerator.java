@@ -0,0 +1,47 @@
+package de.adorsys.sts.keymanagement.service;
+
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKey;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Takes secret keys from a {@link KeyPool}. Pooled keys are generated with a placeholder alias and get the requested
+ * alias and password on take.
+ */
+public class PooledSecretKeyGenerator implements SecretKeyGenerator {
+
+    private static final String POOLED_ALIAS = "pooled";
+    private static final Supplier<char[]> POOLED_PASSWORD = () -> new char[0];
+
+    private final KeyPool<ProvidedKey> pool;
+
+    public PooledSecretKeyGenerator(SecretKeyGenerator secretKeyGenerator, Executor executor, int capacity) {
+        this.pool = new KeyPool<>(
+                KeyUsage.SecretKey.name(),
+                () -> secretKeyGenerator.generate(POOLED_ALIAS, POOLED_PASSWORD),
+                executor,
+                capacity
+        );
+    }
+
+    public void start() {
+        pool.refill();
+    }
+
+    @Override
+    public ProvidedKey generate(String alias, Supplier<char[]> keyPassword) {
+        ProvidedKey pooled = pool.take();
+
+        return ProvidedKey.with()
+                .alias(alias)
+                .password(keyPassword)
+                .key(pooled.getKey())
+                .build();
+    }
+
+    public KeyPool<ProvidedKey> getPool() {
+        return pool;
+    }
+}
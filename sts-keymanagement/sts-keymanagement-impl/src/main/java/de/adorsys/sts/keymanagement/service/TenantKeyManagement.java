@@ -0,0 +1,173 @@
+package de.adorsys.sts.keymanagement.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import de.adorsys.sts.keymanagement.model.StsKeySnapshot;
+import de.adorsys.sts.keymanagement.persistence.CachedKeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepositoryFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read only access to the keys of many named keystores, i.e. one per tenant or issuer, which are created and rotated
+ * elsewhere. The keystore of a tenant is loaded on its first use and kept in a cache bounded by the number of keys, so
+ * the least recently used keystores are dropped once the keystores of all tenants don't fit anymore. A keystore is
+ * weighed again once it has a new version, i.e. it grew by a rotation. The configured keystore is always kept.
+ * <p>
+ * Names without a keystore are remembered for a while, so lookups of unknown tenants don't hit the repository on every
+ * request. If tenant names are configured, other names are not looked up at all.
+ */
+public class TenantKeyManagement {
+
+    private final String defaultKeyStoreName;
+    private final KeyManagementService defaultKeyManagement;
+    private final KeyStoreRepositoryFactory repositoryFactory;
+    private final KeyConversionService keyConversionService;
+    private final boolean lazyKeys;
+    private final Clock clock;
+    private final Duration maxStaleness;
+    private final Set<String> tenantNames;
+
+    private final LoadingCache<String, TenantKeys> tenants;
+    private final Cache<String, Boolean> missingTenants;
+
+    /**
+     * @param maxKeys      maximum number of keys of all cached keystores, a keystore weighs its number of keys but
+     *                     at least one
+     * @param maxStaleness time after which a cached keystore is checked for a new version again, null to check on
+     *                     every access
+     * @param tenantNames  names of the keystores which are served, any name if empty
+     * @param missingTtl   time a name without keystore is remembered before the repository is checked again
+     * @param maxMissing   maximum number of names without keystore remembered
+     */
+    public TenantKeyManagement(
+            String defaultKeyStoreName,
+            KeyManagementService defaultKeyManagement,
+            KeyStoreRepositoryFactory repositoryFactory,
+            KeyConversionService keyConversionService,
+            boolean lazyKeys,
+            Clock clock,
+            Duration maxStaleness,
+            long maxKeys,
+            Set<String> tenantNames,
+            Duration missingTtl,
+            long maxMissing
+    ) {
+        this.defaultKeyStoreName = defaultKeyStoreName;
+        this.defaultKeyManagement = defaultKeyManagement;
+        this.repositoryFactory = repositoryFactory;
+        this.keyConversionService = keyConversionService;
+        this.lazyKeys = lazyKeys;
+        this.clock = clock;
+        this.maxStaleness = maxStaleness;
+        this.tenantNames = tenantNames;
+        this.tenants = CacheBuilder.newBuilder()
+                .maximumWeight(maxKeys)
+                .weigher((String keyStoreName, TenantKeys keys) -> keys.weight)
+                .build(CacheLoader.from(this::load));
+        this.missingTenants = CacheBuilder.newBuilder()
+                .expireAfterWrite(missingTtl.toMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(maxMissing)
+                .build();
+    }
+
+    /**
+     * @return Key management of the keystore with this name, the keystore is loaded if it is not cached.
+     * @throws IllegalArgumentException if tenant names are configured and this is none of them
+     */
+    public KeyManagementService get(String keyStoreName) {
+        if (defaultKeyStoreName.equals(keyStoreName)) {
+            return defaultKeyManagement;
+        }
+
+        if (!isTenant(keyStoreName)) {
+            throw new IllegalArgumentException("Not a configured tenant: " + keyStoreName);
+        }
+
+        return weighed(keyStoreName, tenants.getUnchecked(keyStoreName));
+    }
+
+    /**
+     * @return Key management of the keystore with this name, empty if there is no keystore with this name or it is
+     * not a configured tenant.
+     */
+    public Optional<KeyManagementService> find(String keyStoreName) {
+        if (defaultKeyStoreName.equals(keyStoreName)) {
+            return Optional.of(defaultKeyManagement);
+        }
+
+        if (!isTenant(keyStoreName)) {
+            return Optional.empty();
+        }
+
+        TenantKeys keys = tenants.getIfPresent(keyStoreName);
+        if (keys == null) {
+            if (missingTenants.getIfPresent(keyStoreName) != null) {
+                return Optional.empty();
+            }
+
+            if (!repositoryFactory.forKeyStore(keyStoreName).exists()) {
+                missingTenants.put(keyStoreName, Boolean.TRUE);
+                return Optional.empty();
+            }
+
+            keys = tenants.getUnchecked(keyStoreName);
+        }
+
+        return Optional.of(weighed(keyStoreName, keys));
+    }
+
+    /**
+     * @return Number of keystores currently cached, without the configured one.
+     */
+    public long size() {
+        return tenants.size();
+    }
+
+    private boolean isTenant(String keyStoreName) {
+        return tenantNames.isEmpty() || tenantNames.contains(keyStoreName);
+    }
+
+    /**
+     * The weight of a cache entry is only computed on insertion, so the keystore is inserted again once its snapshot
+     * changed. This may evict other keystores.
+     */
+    private KeyManagementService weighed(String keyStoreName, TenantKeys keys) {
+        StsKeySnapshot snapshot = keys.keyManagement.getSnapshot();
+        if (snapshot != keys.snapshot) {
+            tenants.put(keyStoreName, new TenantKeys(keys.keyManagement, snapshot));
+        }
+
+        return keys.keyManagement;
+    }
+
+    private TenantKeys load(String keyStoreName) {
+        KeyManagementService keyManagement = new KeyManagementService(
+                new CachedKeyStoreRepository(repositoryFactory.forKeyStore(keyStoreName), clock, maxStaleness),
+                keyConversionService,
+                lazyKeys
+        );
+
+        // converts the keys, so the weight is known before the keystore is cached
+        return new TenantKeys(keyManagement, keyManagement.getSnapshot());
+    }
+
+    private static class TenantKeys {
+
+        private final KeyManagementService keyManagement;
+        private final StsKeySnapshot snapshot;
+        private final int weight;
+
+        private TenantKeys(KeyManagementService keyManagement, StsKeySnapshot snapshot) {
+            this.keyManagement = keyManagement;
+            this.snapshot = snapshot;
+            this.weight = Math.max(1, snapshot.size());
+        }
+    }
+}
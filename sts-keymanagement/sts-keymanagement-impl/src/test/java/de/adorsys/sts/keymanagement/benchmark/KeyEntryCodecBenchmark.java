@@ -0,0 +1,138 @@
+package de.adorsys.sts.keymanagement.benchmark;
+
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.config.keystore.KeyStoreConfig;
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyPair;
+import de.adorsys.keymanagement.juggler.services.DaggerBCJuggler;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.EnvelopeKeyEntryCodec;
+import de.adorsys.sts.keymanagement.persistence.KeyEntryCodec;
+import de.adorsys.sts.keymanagement.persistence.KeyEntrySerializer;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreKeyEntryCodec;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.keymanagement.service.KeyPairGeneratorImpl;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.KeyGenerator;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares saving (encoding) and loading (decoding) all entries of key stores with 10, 100 and 1000 entries with the
+ * password based keystore codec and the envelope codec. Every tenth entry is a P-256 key pair, the others are AES
+ * secret keys. Run with `main` from the IDE, it is not executed as part of the test phase.
+ * <p>
+ * `save` and `load` measure the codec only. `saveKeyStore` and `loadKeyStore` measure what a repository does
+ * besides the database access: serializing the entries of a loaded keystore, and decoding the entries and building
+ * the in-memory keystore of the juggler type from them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyEntryCodecBenchmark {
+
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Param({"10", "100", "1000"})
+    private int entries;
+
+    @Param({"keystore", "envelope"})
+    private String codecType;
+
+    private KeyEntryCodec codec;
+    private KeyEntrySerializer serializer;
+    private Map<String, KeyStore.Entry> keyEntries;
+    private Map<String, byte[]> encodedEntries;
+    private StsKeyStore keyStore;
+
+    @Setup
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        Juggler juggler = DaggerBCJuggler.builder()
+                .keyStoreConfig(KeyStoreConfig.builder().type("UBER").build())
+                .build();
+        codec = "envelope".equals(codecType)
+                ? new EnvelopeKeyEntryCodec(PASSWORD, "benchmark")
+                : new KeyStoreKeyEntryCodec(juggler, () -> PASSWORD);
+
+        KeyPairGeneratorImpl keyPairGenerator = new KeyPairGeneratorImpl(juggler, keyPairProperties());
+        KeyGenerator secretKeyGenerator = KeyGenerator.getInstance("AES");
+        secretKeyGenerator.init(256);
+
+        keyEntries = new HashMap<>();
+        encodedEntries = new HashMap<>();
+        for (int i = 0; i < entries; ++i) {
+            String alias = "key-" + i;
+            KeyStore.Entry entry;
+
+            if (i % 10 == 0) {
+                ProvidedKeyPair keyPair = keyPairGenerator.generateSignatureKey(alias, () -> PASSWORD);
+                entry = new KeyStore.PrivateKeyEntry(
+                        keyPair.getPair().getPrivate(),
+                        keyPair.getCertificates().toArray(new Certificate[0])
+                );
+            } else {
+                entry = new KeyStore.SecretKeyEntry(secretKeyGenerator.generateKey());
+            }
+
+            keyEntries.put(alias, entry);
+            encodedEntries.put(alias, codec.encode(alias, entry));
+        }
+
+        serializer = new KeyEntrySerializer(juggler, () -> PASSWORD, codec);
+        keyStore = serializer.toKeyStore(keyEntries, new HashMap<>(), null);
+    }
+
+    @Benchmark
+    public void save(Blackhole blackhole) {
+        keyEntries.forEach((alias, entry) -> blackhole.consume(codec.encode(alias, entry)));
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) {
+        encodedEntries.forEach((alias, encoded) -> blackhole.consume(codec.decode(alias, encoded)));
+    }
+
+    @Benchmark
+    public Map<String, byte[]> saveKeyStore() {
+        return serializer.serialize(keyStore, encodedEntries.keySet());
+    }
+
+    @Benchmark
+    public StsKeyStore loadKeyStore() {
+        Map<String, KeyStore.Entry> decoded = new HashMap<>();
+        encodedEntries.forEach((alias, encoded) -> decoded.put(alias, serializer.deserialize(alias, encoded)));
+
+        return serializer.toKeyStore(decoded, new HashMap<>(), null);
+    }
+
+    private static KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties keyPairProperties() {
+        KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties properties =
+                mock(KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties.class);
+        when(properties.getAlgo()).thenReturn("EC");
+        when(properties.getSize()).thenReturn(256);
+        when(properties.getSigAlgo()).thenReturn("SHA256withECDSA");
+        when(properties.getName()).thenReturn("STS");
+
+        return properties;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(KeyEntryCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
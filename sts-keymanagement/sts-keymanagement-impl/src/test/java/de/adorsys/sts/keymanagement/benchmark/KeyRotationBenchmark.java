@@ -0,0 +1,185 @@
+package de.adorsys.sts.keymanagement.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.config.keystore.KeyStoreConfig;
+import de.adorsys.keymanagement.api.types.KeySetTemplate;
+import de.adorsys.keymanagement.api.types.template.generated.Secret;
+import de.adorsys.keymanagement.core.metadata.MetadataPersistenceConfig;
+import de.adorsys.keymanagement.core.metadata.WithPersister;
+import de.adorsys.keymanagement.juggler.services.DaggerBCJuggler;
+import de.adorsys.sts.keymanagement.config.KeyManagementRotationProperties;
+import de.adorsys.sts.keymanagement.model.*;
+import de.adorsys.sts.keymanagement.service.KeyRotationServiceImpl;
+import de.adorsys.sts.keymanagement.service.KeyStoreGenerator;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.KeyStore;
+import java.security.Security;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures a rotation run without pending transitions (the usual case of the scheduled rotation) against key stores
+ * with 10, 100 and 1000 entries, one valid secret key and legacy secret keys which are not expired yet.
+ * <p>
+ * `rotate` runs the indexed rotation on the same keystore version again and again, like the scheduled rotation does
+ * until the keystore changes. `scan` runs the same four rotation queries as full scans over the entries, as the
+ * rotation did before the index. Run with `main` from the IDE, it is not executed as part of the test phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyRotationBenchmark {
+
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Param({"10", "100", "1000"})
+    private int entries;
+
+    private KeyRotationServiceImpl rotationService;
+    private StsKeyStore keyStore;
+    private Clock clock;
+
+    @Setup
+    public void setup() {
+        Security.addProvider(new BouncyCastleProvider());
+
+        Juggler juggler = DaggerBCJuggler.builder()
+                .keyStoreConfig(KeyStoreConfig.builder().type("UBER").build())
+                .metadataConfig(
+                        MetadataPersistenceConfig.builder()
+                                .metadataClass(StsKeyEntryImpl.class)
+                                .gson(new GsonBuilder()
+                                        .registerTypeAdapter(ZonedDateTime.class, (JsonDeserializer<ZonedDateTime>)
+                                                (json, type, context) -> ZonedDateTime.parse(json.getAsString()))
+                                        .registerTypeAdapter(ZonedDateTime.class, (JsonSerializer<ZonedDateTime>)
+                                                (time, type, context) -> new JsonPrimitive(time.toString()))
+                                        .create())
+                                .build()
+                )
+                .metadataPersister(new WithPersister())
+                .build();
+
+        clock = Clock.systemUTC();
+        ZonedDateTime now = clock.instant().atZone(ZoneOffset.UTC);
+
+        KeySetTemplate.KeySetTemplateBuilder template = KeySetTemplate.builder();
+        for (int i = 0; i < entries; ++i) {
+            String alias = "secret-" + i;
+            template.generatedSecretKey(Secret.with()
+                    .alias(alias)
+                    .metadata(StsKeyEntryImpl.builder()
+                            .alias(alias)
+                            .createdAt(now.minusHours(2))
+                            .notBefore(now.minusHours(2))
+                            .notAfter(0 == i ? now.plusHours(1) : now.minusHours(1))
+                            .expireAt(now.plusDays(1))
+                            .validityInterval(3600000L)
+                            .legacyInterval(86400000L)
+                            .keyUsage(KeyUsage.SecretKey)
+                            .state(0 == i ? KeyState.VALID : KeyState.LEGACY)
+                            .build())
+                    .build()
+            );
+        }
+
+        KeyStore ks = juggler.toKeystore().generate(juggler.generateKeys().fromTemplate(template.build()), () -> PASSWORD);
+        keyStore = StsKeyStore.builder()
+                .keyStore(ks)
+                .view(juggler.readKeys().fromKeyStore(ks, id -> PASSWORD).entries())
+                .build();
+
+        rotationService = new KeyRotationServiceImpl(mock(KeyStoreGenerator.class), clock, new SecretKeyRotation());
+    }
+
+    @Benchmark
+    public KeyRotationResult rotate() {
+        return rotationService.rotate(keyStore);
+    }
+
+    @Benchmark
+    public int scan() {
+        Instant now = clock.instant();
+        Set<KeyUsage> usages = EnumSet.of(KeyUsage.SecretKey);
+
+        List<StsKeyEntry> createdToValid = scan(it -> it.getState() == KeyState.CREATED
+                && it.getNotBefore().toInstant().isBefore(now) && usages.contains(it.getKeyUsage()));
+        List<StsKeyEntry> expiredValid = scan(it -> it.getState() == KeyState.VALID
+                && it.getNotAfter().toInstant().isBefore(now) && usages.contains(it.getKeyUsage()));
+        List<StsKeyEntry> expiredLegacy = scan(it -> it.getState() == KeyState.LEGACY
+                && it.getExpireAt().toInstant().isBefore(now) && usages.contains(it.getKeyUsage()));
+        List<StsKeyEntry> expired = scan(it -> it.getState() == KeyState.EXPIRED && usages.contains(it.getKeyUsage()));
+        List<StsKeyEntry> valid = scan(it -> it.getState() == KeyState.VALID && it.getKeyUsage() == KeyUsage.SecretKey);
+
+        return createdToValid.size() + expiredValid.size() + expiredLegacy.size() + expired.size() + valid.size();
+    }
+
+    private List<StsKeyEntry> scan(Predicate<StsKeyEntry> filter) {
+        return keyStore.getView().all().stream()
+                .map(it -> (StsKeyEntry) it.getMeta())
+                .filter(filter)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Rotation of the secret keys only, no mock as it would dominate the measured time.
+     */
+    private static class SecretKeyRotation implements KeyManagementRotationProperties {
+
+        private static final KeyRotationProperties DISABLED = rotation(false);
+        private static final KeyRotationProperties ENABLED = rotation(true);
+
+        @Override
+        public KeyRotationProperties getEncKeyPairs() {
+            return DISABLED;
+        }
+
+        @Override
+        public KeyRotationProperties getSignKeyPairs() {
+            return DISABLED;
+        }
+
+        @Override
+        public KeyRotationProperties getSecretKeys() {
+            return ENABLED;
+        }
+
+        private static KeyRotationProperties rotation(boolean enabled) {
+            return new KeyRotationProperties() {
+                @Override
+                public Integer getMinKeys() {
+                    return 1;
+                }
+
+                @Override
+                public Boolean isEnabled() {
+                    return enabled;
+                }
+            };
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(KeyRotationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package de.adorsys.sts.keymanagement.benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.config.keystore.KeyStoreConfig;
+import de.adorsys.keymanagement.core.metadata.MetadataPersistenceConfig;
+import de.adorsys.keymanagement.core.metadata.WithPersister;
+import de.adorsys.keymanagement.juggler.services.DaggerBCJuggler;
+import de.adorsys.sts.keymanagement.model.StsKeyEntryImpl;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.keymanagement.service.KeyPairGeneratorImpl;
+import de.adorsys.sts.keymanagement.service.KeyStoreGeneratorImpl;
+import de.adorsys.sts.keymanagement.service.SecretKeyGeneratorImpl;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Security;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the startup time of generating the initial keystore one key after the other (parallelism 1, previous
+ * behaviour) with generating the keys on all available cores, for 2, 8 and 32 keys per usage.
+ * Run with `main` from the IDE, it is not executed as part of the test phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class KeyStoreGenerationBenchmark {
+
+    @Param({"2", "8", "32"})
+    private int keysPerUsage;
+
+    @Param({"serial", "parallel"})
+    private String mode;
+
+    private KeyStoreGeneratorImpl generator;
+
+    @Setup
+    public void setup() {
+        Security.addProvider(new BouncyCastleProvider());
+
+        Juggler juggler = DaggerBCJuggler.builder()
+                .keyStoreConfig(KeyStoreConfig.builder().type("UBER").build())
+                .metadataConfig(
+                        MetadataPersistenceConfig.builder()
+                                .metadataClass(StsKeyEntryImpl.class)
+                                .gson(new GsonBuilder()
+                                        .registerTypeAdapter(ZonedDateTime.class, (JsonDeserializer<ZonedDateTime>)
+                                                (json, type, context) -> ZonedDateTime.parse(json.getAsString()))
+                                        .registerTypeAdapter(ZonedDateTime.class, (JsonSerializer<ZonedDateTime>)
+                                                (time, type, context) -> new JsonPrimitive(time.toString()))
+                                        .create())
+                                .build()
+                )
+                .metadataPersister(new WithPersister())
+                .build();
+
+        KeyManagementProperties properties = mock(KeyManagementProperties.class, RETURNS_DEEP_STUBS);
+        KeyManagementProperties.KeyStoreProperties keyStore = properties.getKeystore();
+        when(keyStore.getPassword()).thenReturn("benchmark");
+        when(keyStore.getAliasPrefix()).thenReturn("benchmark-");
+
+        KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties encKeyPairs = keyStore.getKeys().getEncKeyPairs();
+        KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties signKeyPairs = keyStore.getKeys().getSignKeyPairs();
+        for (KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties keyPairs : new KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties[]{encKeyPairs, signKeyPairs}) {
+            when(keyPairs.getInitialCount()).thenReturn(keysPerUsage);
+            when(keyPairs.getAlgo()).thenReturn("RSA");
+            when(keyPairs.getSigAlgo()).thenReturn("SHA256withRSA");
+            when(keyPairs.getSize()).thenReturn(2048);
+            when(keyPairs.getName()).thenReturn("STS Benchmark");
+            when(keyPairs.getValidityInterval()).thenReturn(3600000L);
+            when(keyPairs.getLegacyInterval()).thenReturn(86400000L);
+        }
+
+        KeyManagementProperties.KeyStoreProperties.KeysProperties.SecretKeyProperties secretKeys = keyStore.getKeys().getSecretKeys();
+        when(secretKeys.getInitialCount()).thenReturn(keysPerUsage);
+        when(secretKeys.getAlgo()).thenReturn("AES");
+        when(secretKeys.getSize()).thenReturn(256);
+        when(secretKeys.getValidityInterval()).thenReturn(3600000L);
+        when(secretKeys.getLegacyInterval()).thenReturn(86400000L);
+
+        generator = new KeyStoreGeneratorImpl(
+                juggler,
+                Clock.systemUTC(),
+                new KeyPairGeneratorImpl(juggler, encKeyPairs),
+                new KeyPairGeneratorImpl(juggler, signKeyPairs),
+                new SecretKeyGeneratorImpl(juggler, secretKeys),
+                properties,
+                "serial".equals(mode) ? 1 : Runtime.getRuntime().availableProcessors()
+        );
+    }
+
+    @Benchmark
+    public StsKeyStore generate() {
+        return generator.generate();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(KeyStoreGenerationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
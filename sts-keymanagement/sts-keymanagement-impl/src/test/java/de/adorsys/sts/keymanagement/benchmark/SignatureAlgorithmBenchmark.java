@@ -0,0 +1,104 @@
+package de.adorsys.sts.keymanagement.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.config.keystore.KeyStoreConfig;
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyPair;
+import de.adorsys.keymanagement.juggler.services.DaggerBCJuggler;
+import de.adorsys.sts.common.converter.KeyConverter;
+import de.adorsys.sts.common.model.KeyAndJwk;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.keymanagement.service.KeyPairGeneratorImpl;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares token signing with RS256 against ES256, ES384 and EdDSA (Ed25519) signature keys.
+ * Run with `main` from the IDE, it is not executed as part of the test phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureAlgorithmBenchmark {
+
+    private static final String ALIAS = "sign-key";
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Param({"RSA:2048:SHA256withRSA", "EC:256:SHA256withECDSA", "EC:384:SHA384withECDSA", "Ed25519:256:Ed25519"})
+    private String keyPair;
+
+    private KeyAndJwk signKey;
+    private JWSSigner signer;
+    private JWTClaimsSet claims;
+
+    @Setup
+    public void setup() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        String[] config = keyPair.split(":");
+        KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties properties =
+                mock(KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties.class);
+        when(properties.getAlgo()).thenReturn(config[0]);
+        when(properties.getSize()).thenReturn(Integer.valueOf(config[1]));
+        when(properties.getSigAlgo()).thenReturn(config[2]);
+        when(properties.getName()).thenReturn("STS Benchmark");
+
+        Juggler juggler = DaggerBCJuggler.builder()
+                .keyStoreConfig(KeyStoreConfig.builder().type("UBER").build())
+                .build();
+
+        ProvidedKeyPair generated = new KeyPairGeneratorImpl(juggler, properties)
+                .generateSignatureKey(ALIAS, () -> PASSWORD);
+
+        KeyStore keyStore = KeyStore.getInstance("UBER", BouncyCastleProvider.PROVIDER_NAME);
+        keyStore.load(null, null);
+        keyStore.setKeyEntry(ALIAS, generated.getPair().getPrivate(), PASSWORD,
+                generated.getCertificates().toArray(new Certificate[0]));
+
+        JWK jwk = KeyConverter.load(keyStore, ALIAS, PASSWORD);
+        signKey = new KeyAndJwk(KeyConverter.toPrivateOrSecret(jwk), jwk);
+        signer = KeyConverter.findSigner(signKey);
+
+        claims = new JWTClaimsSet.Builder()
+                .subject("max.musterman")
+                .issuer("http://localhost:8888/")
+                .audience("http://localhost:8080/multibanking-service")
+                .issueTime(new Date())
+                .claim("scp", "user banking")
+                .build();
+    }
+
+    @Benchmark
+    public String sign() throws JOSEException {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(KeyConverter.getJWSAlgo(signKey)).keyID(signKey.jwk.getKeyID()).build(),
+                claims
+        );
+        jwt.sign(signer);
+
+        return jwt.serialize();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SignatureAlgorithmBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,261 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachedKeyStoreRepositoryTest {
+
+    private static final int THREAD_COUNT = 16;
+
+    private static final Instant NOW = Instant.parse("2020-03-01T10:00:00Z");
+    private static final ZonedDateTime FIRST_VERSION = NOW.atZone(ZoneOffset.UTC);
+    private static final ZonedDateTime SECOND_VERSION = FIRST_VERSION.plusMinutes(1);
+
+    @Mock
+    private KeyStoreRepository delegate;
+
+    @Mock
+    private Clock clock;
+
+    @Mock
+    private StsKeyStore firstKeyStore;
+
+    @Mock
+    private StsKeyStore secondKeyStore;
+
+    private CachedKeyStoreRepository repository;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+
+        when(clock.instant()).thenReturn(NOW);
+        when(firstKeyStore.getLastUpdate()).thenReturn(FIRST_VERSION);
+        when(secondKeyStore.getLastUpdate()).thenReturn(SECOND_VERSION);
+        when(delegate.exists()).thenReturn(true);
+        when(delegate.load()).thenReturn(firstKeyStore);
+        when(delegate.lastUpdate()).thenReturn(FIRST_VERSION);
+
+        repository = new CachedKeyStoreRepository(delegate, clock, Duration.ofSeconds(60));
+    }
+
+    @Test
+    public void shouldNotQueryVersionWhileFresh() {
+        repository.load();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(59));
+
+        assertThat(repository.load(), sameInstance(firstKeyStore));
+        verify(delegate, never()).lastUpdate();
+        assertThat(repository.getTimeSinceLastRefresh(), equalTo(Duration.ofSeconds(59)));
+    }
+
+    @Test
+    public void shouldQueryVersionOnLoadOnceStale() {
+        repository.load();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(61));
+        when(delegate.lastUpdate()).thenReturn(SECOND_VERSION);
+        when(delegate.load()).thenReturn(secondKeyStore);
+
+        assertThat(repository.load(), sameInstance(secondKeyStore));
+        verify(delegate, times(2)).load();
+    }
+
+    @Test
+    public void shouldPublishNewVersionOnRefresh() {
+        repository.load();
+        when(delegate.lastUpdate()).thenReturn(SECOND_VERSION);
+        when(delegate.load()).thenReturn(secondKeyStore);
+
+        repository.refresh();
+
+        assertThat(repository.load(), sameInstance(secondKeyStore));
+    }
+
+    @Test
+    public void shouldLoadInitialKeyStoreOnlyOnceForConcurrentCallers() throws Exception {
+        when(delegate.load()).thenAnswer(inv -> slowly(firstKeyStore));
+
+        List<StsKeyStore> loaded = loadConcurrently(new CachedKeyStoreRepository(delegate));
+
+        verify(delegate, times(1)).load();
+        for (StsKeyStore keyStore : loaded) {
+            assertThat(keyStore, sameInstance(firstKeyStore));
+        }
+    }
+
+    @Test
+    public void shouldReloadOnlyOncePerVersionForConcurrentCallers() throws Exception {
+        CachedKeyStoreRepository checkingOnEveryLoad = new CachedKeyStoreRepository(delegate);
+        checkingOnEveryLoad.load();
+
+        when(delegate.lastUpdate()).thenReturn(SECOND_VERSION);
+        when(delegate.load()).thenAnswer(inv -> slowly(secondKeyStore));
+
+        List<StsKeyStore> loaded = loadConcurrently(checkingOnEveryLoad);
+
+        // one initial load and one for the new version
+        verify(delegate, times(2)).load();
+        for (StsKeyStore keyStore : loaded) {
+            assertThat(keyStore, anyOf(sameInstance(firstKeyStore), sameInstance(secondKeyStore)));
+        }
+        assertThat(checkingOnEveryLoad.load(), sameInstance(secondKeyStore));
+    }
+
+    @Test
+    public void shouldServeLocalSnapshotUntilReconciledWithRepository() {
+        LocalKeyStoreSnapshot localSnapshot = mock(LocalKeyStoreSnapshot.class);
+        when(localSnapshot.read()).thenReturn(secondKeyStore);
+        CachedKeyStoreRepository cached = new CachedKeyStoreRepository(delegate, clock, Duration.ofSeconds(60), localSnapshot);
+
+        assertThat(cached.load(), sameInstance(secondKeyStore));
+        assertThat(cached.load(), sameInstance(secondKeyStore));
+        verify(delegate, never()).load();
+        verify(delegate, never()).lastUpdate();
+
+        // the repository wins, even if its version is older than the snapshot
+        cached.refresh();
+
+        assertThat(cached.load(), sameInstance(firstKeyStore));
+        verify(delegate, times(1)).load();
+        verify(localSnapshot, times(1)).write(firstKeyStore);
+    }
+
+    @Test
+    public void shouldLoadFromRepositoryIfLocalSnapshotIsMissing() {
+        LocalKeyStoreSnapshot localSnapshot = mock(LocalKeyStoreSnapshot.class);
+        CachedKeyStoreRepository cached = new CachedKeyStoreRepository(delegate, clock, Duration.ofSeconds(60), localSnapshot);
+
+        assertThat(cached.load(), sameInstance(firstKeyStore));
+        verify(localSnapshot, times(1)).write(firstKeyStore);
+    }
+
+    @Test
+    public void shouldServeLocalSnapshotWhileRepositoryIsUnavailable() {
+        LocalKeyStoreSnapshot localSnapshot = mock(LocalKeyStoreSnapshot.class);
+        when(localSnapshot.read()).thenReturn(secondKeyStore);
+        when(delegate.lastUpdate()).thenThrow(new IllegalStateException("database unavailable"));
+        CachedKeyStoreRepository cached = new CachedKeyStoreRepository(delegate, clock, Duration.ofSeconds(60), localSnapshot);
+
+        assertThat(cached.loadLocalSnapshot(), equalTo(true));
+        verify(delegate, never()).exists();
+
+        cached.refresh();
+        when(clock.instant()).thenReturn(NOW.plusSeconds(61));
+        assertThat(cached.load(), sameInstance(secondKeyStore));
+        assertThat(cached.load(), sameInstance(secondKeyStore));
+
+        // a failed check counts as check, the next one is due after max-staleness again
+        verify(delegate, times(2)).lastUpdate();
+        verify(delegate, never()).load();
+        assertThat(cached.getTimeSinceLastRefresh(), equalTo(null));
+    }
+
+    @Test
+    public void shouldKeepCachedKeyStoreIfReloadFails() {
+        repository.load();
+        when(delegate.lastUpdate()).thenReturn(SECOND_VERSION);
+        when(delegate.load()).thenThrow(new IllegalStateException("database unavailable"));
+
+        repository.refresh();
+
+        assertThat(repository.load(), sameInstance(firstKeyStore));
+    }
+
+    @Test
+    public void shouldLoadLatestVersionWhileCacheIsFresh() {
+        repository.load();
+        when(delegate.lastUpdate()).thenReturn(SECOND_VERSION);
+        when(delegate.load()).thenReturn(secondKeyStore);
+
+        assertThat(repository.loadLatest(), sameInstance(secondKeyStore));
+        assertThat(repository.load(), sameInstance(secondKeyStore));
+    }
+
+    @Test
+    public void shouldNotReloadLatestVersionIfCached() {
+        repository.load();
+
+        assertThat(repository.loadLatest(), sameInstance(firstKeyStore));
+        verify(delegate, times(1)).load();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotServeCachedKeyStoreAsLatestIfRepositoryIsUnavailable() {
+        repository.load();
+        when(delegate.lastUpdate()).thenThrow(new IllegalStateException("database unavailable"));
+
+        repository.loadLatest();
+    }
+
+    @Test
+    public void shouldServePersistedVersionIfSaveConflicts() {
+        repository.load();
+        doThrow(new KeyStoreConflictException("keystore", 1L, 2L)).when(delegate).save(firstKeyStore);
+        when(delegate.load()).thenReturn(secondKeyStore);
+
+        try {
+            repository.save(firstKeyStore);
+        } catch (KeyStoreConflictException expected) {
+            // rejected
+        }
+
+        assertThat(repository.load(), sameInstance(secondKeyStore));
+    }
+
+    private List<StsKeyStore> loadConcurrently(CachedKeyStoreRepository cached) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+
+        try {
+            List<Future<StsKeyStore>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                Callable<StsKeyStore> loader = () -> {
+                    barrier.await();
+                    return cached.load();
+                };
+                futures.add(executor.submit(loader));
+            }
+
+            List<StsKeyStore> result = new ArrayList<>();
+            for (Future<StsKeyStore> future : futures) {
+                result.add(future.get());
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static StsKeyStore slowly(StsKeyStore keyStore) throws InterruptedException {
+        // deserializing the keystore takes a while
+        Thread.sleep(200);
+        return keyStore;
+    }
+}
@@ -0,0 +1,119 @@
+package de.adorsys.sts.keymanagement.persistence;
+
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.config.keystore.KeyStoreConfig;
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyPair;
+import de.adorsys.keymanagement.juggler.services.DaggerBCJuggler;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.keymanagement.service.KeyPairGeneratorImpl;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.Certificate;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EnvelopeKeyEntryCodecTest {
+
+    private static final String ALIAS = "key";
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    private EnvelopeKeyEntryCodec codec;
+
+    @Before
+    public void setup() {
+        Security.addProvider(new BouncyCastleProvider());
+        codec = new EnvelopeKeyEntryCodec(PASSWORD, "keystore");
+    }
+
+    @Test
+    public void shouldEncodeAndDecodePrivateKeyEntry() {
+        KeyStore.PrivateKeyEntry entry = ed25519KeyEntry();
+
+        KeyStore.PrivateKeyEntry decoded = (KeyStore.PrivateKeyEntry) codec.decode(ALIAS, codec.encode(ALIAS, entry));
+
+        assertThat(decoded.getPrivateKey().getEncoded(), equalTo(entry.getPrivateKey().getEncoded()));
+        assertThat(decoded.getCertificate().getPublicKey().getEncoded(), equalTo(entry.getCertificate().getPublicKey().getEncoded()));
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeSecretKeyEntry() {
+        KeyStore.SecretKeyEntry entry = new KeyStore.SecretKeyEntry(new SecretKeySpec(new byte[32], "AES"));
+
+        KeyStore.SecretKeyEntry decoded = (KeyStore.SecretKeyEntry) codec.decode(ALIAS, codec.encode(ALIAS, entry));
+
+        assertThat(decoded.getSecretKey(), equalTo(entry.getSecretKey()));
+    }
+
+    @Test(expected = AEADBadTagException.class)
+    public void shouldNotDecodeEntryOfOtherAlias() {
+        KeyStore.SecretKeyEntry entry = new KeyStore.SecretKeyEntry(new SecretKeySpec(new byte[32], "AES"));
+
+        codec.decode("other", codec.encode(ALIAS, entry));
+    }
+
+    @Test
+    public void shouldReadEntriesOfKeyStoreCodecUntilMigrated() {
+        Juggler juggler = DaggerBCJuggler.builder()
+                .keyStoreConfig(KeyStoreConfig.builder().type("UBER").build())
+                .build();
+        KeyEntrySerializer serializer = new KeyEntrySerializer(juggler, () -> PASSWORD, codec);
+        KeyStore.PrivateKeyEntry entry = ed25519KeyEntry();
+
+        byte[] legacy = new KeyStoreKeyEntryCodec(juggler, () -> PASSWORD).encode(ALIAS, entry);
+        KeyStore.PrivateKeyEntry decoded = (KeyStore.PrivateKeyEntry) serializer.deserialize(ALIAS, legacy);
+
+        assertThat(serializer.isCurrentFormat(legacy), equalTo(false));
+        assertThat(decoded.getPrivateKey().getEncoded(), equalTo(entry.getPrivateKey().getEncoded()));
+        assertThat(serializer.isCurrentFormat(serializer.serialize(ALIAS, decoded)), equalTo(true));
+    }
+
+    @Test
+    public void shouldReadEnvelopeEntriesAfterSwitchingBackToKeyStoreCodec() {
+        Juggler juggler = DaggerBCJuggler.builder()
+                .keyStoreConfig(KeyStoreConfig.builder().type("UBER").build())
+                .build();
+        KeyStoreKeyEntryCodec keyStoreCodec = new KeyStoreKeyEntryCodec(juggler, () -> PASSWORD);
+        KeyEntrySerializer serializer = new KeyEntrySerializer(juggler, () -> PASSWORD,
+                new DetectingKeyEntryCodec(keyStoreCodec, Collections.singletonList(codec), keyStoreCodec));
+        KeyStore.PrivateKeyEntry entry = ed25519KeyEntry();
+
+        byte[] envelope = codec.encode(ALIAS, entry);
+        KeyStore.PrivateKeyEntry decoded = (KeyStore.PrivateKeyEntry) serializer.deserialize(ALIAS, envelope);
+
+        assertThat(serializer.isCurrentFormat(envelope), equalTo(false));
+        assertThat(decoded.getPrivateKey().getEncoded(), equalTo(entry.getPrivateKey().getEncoded()));
+
+        byte[] migrated = serializer.serialize(ALIAS, decoded);
+        assertThat(codec.canDecode(migrated), equalTo(false));
+        assertThat(serializer.isCurrentFormat(migrated), equalTo(true));
+        assertThat(((KeyStore.PrivateKeyEntry) serializer.deserialize(ALIAS, migrated)).getPrivateKey().getEncoded(),
+                equalTo(entry.getPrivateKey().getEncoded()));
+    }
+
+    private static KeyStore.PrivateKeyEntry ed25519KeyEntry() {
+        KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties properties =
+                mock(KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties.class);
+        when(properties.getAlgo()).thenReturn("Ed25519");
+        when(properties.getSize()).thenReturn(null);
+        when(properties.getSigAlgo()).thenReturn("Ed25519");
+        when(properties.getName()).thenReturn("STS");
+
+        ProvidedKeyPair keyPair = new KeyPairGeneratorImpl(mock(Juggler.class), properties)
+                .generateSignatureKey(ALIAS, () -> PASSWORD);
+
+        return new KeyStore.PrivateKeyEntry(
+                keyPair.getPair().getPrivate(),
+                keyPair.getCertificates().toArray(new Certificate[0])
+        );
+    }
+}
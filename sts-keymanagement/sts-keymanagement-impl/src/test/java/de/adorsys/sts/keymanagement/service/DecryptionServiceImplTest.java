@@ -0,0 +1,111 @@
+package de.adorsys.sts.keymanagement.service;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import de.adorsys.sts.common.model.KeyAndJwk;
+import de.adorsys.sts.common.util.ImmutableLists;
+import de.adorsys.sts.keymanagement.model.StsKeySnapshot;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DecryptionServiceImplTest {
+
+    private static final String KEY_ID = "enc-key";
+
+    @Mock
+    private KeyManagementService keyManagementService;
+
+    private RSAKey rsaKey;
+    private StsKeySnapshot snapshot;
+    private KeyUsageCounters usageCounters;
+    private DecryptionServiceImpl decryptionService;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        rsaKey = new RSAKeyGenerator(2048).keyID(KEY_ID).keyUse(KeyUse.ENCRYPTION).generate();
+        KeyAndJwk keyAndJwk = new KeyAndJwk(rsaKey.toPrivateKey(), rsaKey);
+        snapshot = spy(new StsKeySnapshot(
+                null,
+                ImmutableLists.emptyList(),
+                ImmutableLists.of(keyAndJwk),
+                ImmutableLists.emptyList(),
+                Collections.singletonMap(KEY_ID, keyAndJwk),
+                new JWKSet(rsaKey.toPublicJWK())
+        ));
+        when(keyManagementService.getSnapshot()).thenReturn(snapshot);
+        usageCounters = new KeyUsageCounters();
+        when(keyManagementService.getUsageCounters()).thenReturn(usageCounters);
+
+        decryptionService = new DecryptionServiceImpl(keyManagementService);
+    }
+
+    @Test
+    public void shouldDecryptAndLookupKeyOncePerVersion() throws Exception {
+        String encrypted = encrypt(KEY_ID, "secret");
+
+        assertThat(decryptionService.decrypt(encrypted), equalTo("secret"));
+        assertThat(decryptionService.decrypt(encrypt(KEY_ID, "other secret")), equalTo("other secret"));
+
+        verify(snapshot, times(1)).getKey(KEY_ID);
+        assertThat(usageCounters.get(KEY_ID).getDecryptions(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldRejectUnknownKeyIds() throws Exception {
+        String encrypted = encrypt("unknown", "secret");
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                decryptionService.decrypt(encrypted);
+                fail("Unknown key id must not be decrypted");
+            } catch (IllegalStateException expected) {
+                assertThat(expected.getMessage(), equalTo("No suitable key found"));
+            }
+        }
+
+        assertThat(usageCounters.get("unknown"), nullValue());
+    }
+
+    @Test
+    public void shouldDecryptWithKeysOfServerKeyMapProvider() throws Exception {
+        ServerKeyMapProvider keyMapProvider = mock(ServerKeyMapProvider.class);
+        when(keyMapProvider.getKey(KEY_ID)).thenReturn(rsaKey.toPrivateKey());
+
+        DecryptionServiceImpl providerDecryptionService = new DecryptionServiceImpl(keyMapProvider);
+
+        assertThat(providerDecryptionService.decrypt(encrypt(KEY_ID, "secret")), equalTo("secret"));
+    }
+
+    private String encrypt(String keyId, String payload) throws Exception {
+        JWEObject jwe = new JWEObject(
+                new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A128GCM).keyID(keyId).build(),
+                new Payload(payload)
+        );
+        jwe.encrypt(new RSAEncrypter(rsaKey));
+        return jwe.serialize();
+    }
+}
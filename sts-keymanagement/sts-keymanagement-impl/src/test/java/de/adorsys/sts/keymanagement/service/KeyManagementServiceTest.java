@@ -0,0 +1,193 @@
+package de.adorsys.sts.keymanagement.service;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import de.adorsys.sts.keymanagement.model.*;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KeyManagementServiceTest {
+
+    private static final ZonedDateTime FIRST_UPDATE = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime SECOND_UPDATE = FIRST_UPDATE.plusHours(1);
+
+    @Mock
+    private KeyStoreRepository repository;
+
+    @Mock
+    private KeyConversionService keyConversionService;
+
+    private Map<String, StsKeyEntry> entries;
+    private Map<String, JWK> exportedKeys;
+    private KeyManagementService keyManagementService;
+
+    @Before
+    public void setup() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        entries = new HashMap<>();
+        exportedKeys = new HashMap<>();
+        exportKey(KeyUsage.Signature, new RSAKeyGenerator(2048).keyID("sign").keyUse(KeyUse.SIGNATURE).generate());
+        exportKey(KeyUsage.Encryption, new RSAKeyGenerator(2048).keyID("enc").keyUse(KeyUse.ENCRYPTION).generate());
+        exportKey(KeyUsage.SecretKey, new OctetSequenceKeyGenerator(256).keyID("secret").generate());
+
+        when(repository.exists()).thenReturn(true);
+        keyManagementService = new KeyManagementService(repository, keyConversionService);
+    }
+
+    @Test
+    public void shouldConvertOnlyChangedPartitions() {
+        Map<KeyUsage, ZonedDateTime> secretKeysRotated = partitionUpdates(FIRST_UPDATE);
+        secretKeysRotated.put(KeyUsage.SecretKey, SECOND_UPDATE);
+
+        StsKeyStore firstKeyStore = keyStore(FIRST_UPDATE, partitionUpdates(FIRST_UPDATE));
+        StsKeyStore secondKeyStore = keyStore(SECOND_UPDATE, secretKeysRotated);
+
+        when(repository.load()).thenReturn(firstKeyStore);
+        StsKeySnapshot first = keyManagementService.getSnapshot();
+
+        when(repository.load()).thenReturn(secondKeyStore);
+        StsKeySnapshot second = keyManagementService.getSnapshot();
+
+        verify(keyConversionService, times(1)).export(any(), eq(KeyUsage.Signature));
+        verify(keyConversionService, times(1)).export(any(), eq(KeyUsage.Encryption));
+        verify(keyConversionService, times(2)).export(any(), eq(KeyUsage.SecretKey));
+
+        assertThat(second.getSignKeys().get(0), sameInstance(first.getSignKeys().get(0)));
+        assertThat(second.getPublicKeys(), sameInstance(first.getPublicKeys()));
+        assertThat(second.getSecretKeys().get(0).jwk.getKeyID(), equalTo("secret"));
+    }
+
+    @Test
+    public void shouldConvertAllKeysIfNotPartitioned() {
+        StsKeyStore firstKeyStore = keyStore(FIRST_UPDATE, new EnumMap<>(KeyUsage.class));
+        StsKeyStore secondKeyStore = keyStore(SECOND_UPDATE, new EnumMap<>(KeyUsage.class));
+
+        when(repository.load()).thenReturn(firstKeyStore);
+        keyManagementService.getSnapshot();
+
+        when(repository.load()).thenReturn(secondKeyStore);
+        keyManagementService.getSnapshot();
+
+        verify(keyConversionService, times(2)).export(any(), eq(KeyUsage.Signature));
+        verify(keyConversionService, times(2)).export(any(), eq(KeyUsage.Encryption));
+        verify(keyConversionService, times(2)).export(any(), eq(KeyUsage.SecretKey));
+    }
+
+    @Test
+    public void shouldConvertKeysNotUsableForNewTokensOnFirstUse() throws Exception {
+        addKey(KeyUsage.Signature, KeyState.CREATED, new RSAKeyGenerator(2048).keyID("future").keyUse(KeyUse.SIGNATURE).generate());
+        keyManagementService = new KeyManagementService(repository, keyConversionService, true);
+
+        StsKeyStore keyStore = keyStore(FIRST_UPDATE, partitionUpdates(FIRST_UPDATE));
+        when(repository.load()).thenReturn(keyStore);
+        StsKeySnapshot snapshot = keyManagementService.getSnapshot();
+
+        verify(keyConversionService, never()).export(any(), any(KeyUsage.class));
+        verify(keyConversionService, times(1)).exportKey(any(), eq("sign"));
+        verify(keyConversionService, never()).exportKey(any(), eq("future"));
+        assertThat(snapshot.getPublicKeys().getKeys().size(), equalTo(2));
+        assertThat(snapshot.getSignKeys().get(0).jwk.getKeyID(), equalTo("sign"));
+
+        assertThat(snapshot.get("future").jwk.getKeyID(), equalTo("future"));
+        assertThat(snapshot.get("future"), sameInstance(snapshot.get("future")));
+        verify(keyConversionService, times(1)).exportKey(any(), eq("future"));
+    }
+
+    @Test
+    public void shouldCountKeyUsageUntilKeyIsRemoved() {
+        StsKeyStore firstKeyStore = keyStore(FIRST_UPDATE, partitionUpdates(FIRST_UPDATE));
+        when(repository.load()).thenReturn(firstKeyStore);
+
+        keyManagementService.randomSignKey();
+        keyManagementService.randomSignKey();
+        keyManagementService.getKey("enc");
+        keyManagementService.getKey("unknown");
+
+        Map<String, KeyUsageStatistics> statistics = keyManagementService.getKeyUsageStatistics().stream()
+                .collect(Collectors.toMap(KeyUsageStatistics::getKeyId, it -> it));
+        assertThat(statistics.get("sign").getSignatures(), equalTo(2L));
+        assertThat(statistics.get("enc").getLookups(), equalTo(1L));
+        assertThat(statistics.get("secret").getLookups(), equalTo(0L));
+        assertThat(statistics.containsKey("unknown"), equalTo(false));
+
+        entries.remove("sign");
+        StsKeyStore secondKeyStore = keyStore(SECOND_UPDATE, partitionUpdates(SECOND_UPDATE));
+        when(repository.load()).thenReturn(secondKeyStore);
+        keyManagementService.getSnapshot();
+
+        assertThat(keyManagementService.getUsageCounters().get("sign"), nullValue());
+        assertThat(keyManagementService.getUsageCounters().get("enc").getLookups(), equalTo(1L));
+    }
+
+    private void exportKey(KeyUsage keyUsage, JWK jwk) {
+        addKey(keyUsage, KeyState.VALID, jwk);
+
+        JWKSet privateKeys = new JWKSet(jwk);
+        when(keyConversionService.export(any(), eq(keyUsage)))
+                .thenAnswer(inv -> new ServerKeysHolder(privateKeys, privateKeys.toPublicJWKSet()));
+        when(keyConversionService.exportPublicKeys(any(), eq(keyUsage)))
+                .thenAnswer(inv -> publicKeys(keyUsage));
+    }
+
+    private void addKey(KeyUsage keyUsage, KeyState state, JWK jwk) {
+        entries.put(jwk.getKeyID(), StsKeyEntryImpl.builder()
+                .alias(jwk.getKeyID())
+                .keyUsage(keyUsage)
+                .state(state)
+                .build());
+        exportedKeys.put(jwk.getKeyID(), jwk);
+
+        when(keyConversionService.exportKey(any(), eq(jwk.getKeyID()))).thenReturn(jwk);
+    }
+
+    private JWKSet publicKeys(KeyUsage keyUsage) {
+        return new JWKSet(exportedKeys.values().stream()
+                .filter(jwk -> entries.get(jwk.getKeyID()).getKeyUsage() == keyUsage)
+                .collect(Collectors.toList()))
+                .toPublicJWKSet();
+    }
+
+    private StsKeyStore keyStore(ZonedDateTime lastUpdate, Map<KeyUsage, ZonedDateTime> partitionUpdates) {
+        StsKeyStore keyStore = mock(StsKeyStore.class);
+        when(keyStore.getLastUpdate()).thenReturn(lastUpdate);
+        when(keyStore.getPartitionUpdates()).thenReturn(partitionUpdates);
+        when(keyStore.getEntries()).thenReturn(entries);
+
+        return keyStore;
+    }
+
+    private static Map<KeyUsage, ZonedDateTime> partitionUpdates(ZonedDateTime lastUpdate) {
+        Map<KeyUsage, ZonedDateTime> partitionUpdates = new EnumMap<>(KeyUsage.class);
+        for (KeyUsage keyUsage : KeyUsage.values()) {
+            partitionUpdates.put(keyUsage, lastUpdate);
+        }
+
+        return partitionUpdates;
+    }
+}
@@ -0,0 +1,119 @@
+package de.adorsys.sts.keymanagement.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import de.adorsys.keymanagement.api.Juggler;
+import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyPair;
+import de.adorsys.sts.common.converter.KeyConverter;
+import de.adorsys.sts.common.model.KeyAndJwk;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.security.cert.Certificate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KeyPairGeneratorImplTest {
+
+    private static final String ALIAS = "sign-key";
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Before
+    public void setup() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void shouldGenerateP256SignatureKey() throws Exception {
+        JWK jwk = generateAndLoad("EC", 256, "SHA256withECDSA");
+
+        assertThat(jwk, instanceOf(ECKey.class));
+        assertThat(((ECKey) jwk).getCurve(), equalTo(Curve.P_256));
+        assertThat(jwk.getKeyUse(), equalTo(KeyUse.SIGNATURE));
+
+        SignedJWT jwt = sign(jwk);
+
+        assertThat(jwt.getHeader().getAlgorithm(), equalTo(JWSAlgorithm.ES256));
+        assertThat(jwt.verify(new ECDSAVerifier(((ECKey) jwk).toPublicJWK())), equalTo(true));
+    }
+
+    @Test
+    public void shouldGenerateP384SignatureKey() throws Exception {
+        JWK jwk = generateAndLoad("EC", 384, "SHA384withECDSA");
+
+        assertThat(((ECKey) jwk).getCurve(), equalTo(Curve.P_384));
+
+        SignedJWT jwt = sign(jwk);
+
+        assertThat(jwt.getHeader().getAlgorithm(), equalTo(JWSAlgorithm.ES384));
+        assertThat(jwt.verify(new ECDSAVerifier(((ECKey) jwk).toPublicJWK())), equalTo(true));
+    }
+
+    @Test
+    public void shouldGenerateEd25519SignatureKey() throws Exception {
+        JWK jwk = generateAndLoad("Ed25519", null, "Ed25519");
+
+        assertThat(jwk, instanceOf(OctetKeyPair.class));
+        assertThat(((OctetKeyPair) jwk).getCurve(), equalTo(Curve.Ed25519));
+        assertThat(jwk.getKeyUse(), equalTo(KeyUse.SIGNATURE));
+
+        SignedJWT jwt = sign(jwk);
+
+        assertThat(jwt.getHeader().getAlgorithm(), equalTo(JWSAlgorithm.EdDSA));
+
+        Signature signature = Signature.getInstance("Ed25519");
+        signature.initVerify((PublicKey) KeyConverter.toPublic(jwk.toPublicJWK()));
+        signature.update(jwt.getSigningInput());
+        assertThat(signature.verify(jwt.getSignature().decode()), equalTo(true));
+    }
+
+    private JWK generateAndLoad(String algo, Integer size, String sigAlgo) throws Exception {
+        KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties properties =
+                mock(KeyManagementProperties.KeyStoreProperties.KeysProperties.KeyPairProperties.class);
+        when(properties.getAlgo()).thenReturn(algo);
+        when(properties.getSize()).thenReturn(size);
+        when(properties.getSigAlgo()).thenReturn(sigAlgo);
+        when(properties.getName()).thenReturn("STS");
+
+        ProvidedKeyPair keyPair = new KeyPairGeneratorImpl(mock(Juggler.class), properties)
+                .generateSignatureKey(ALIAS, () -> PASSWORD);
+
+        KeyStore keyStore = KeyStore.getInstance("UBER", BouncyCastleProvider.PROVIDER_NAME);
+        keyStore.load(null, null);
+        keyStore.setKeyEntry(ALIAS, keyPair.getPair().getPrivate(), PASSWORD,
+                keyPair.getCertificates().toArray(new Certificate[0]));
+
+        return KeyConverter.load(keyStore, ALIAS, PASSWORD);
+    }
+
+    private SignedJWT sign(JWK jwk) throws Exception {
+        Key privateKey = KeyConverter.toPrivateOrSecret(jwk);
+        KeyAndJwk signKey = new KeyAndJwk(privateKey, jwk);
+
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(KeyConverter.getJWSAlgo(signKey)).keyID(jwk.getKeyID()).build(),
+                new JWTClaimsSet.Builder().subject("user").build()
+        );
+        jwt.sign(KeyConverter.findSigner(signKey));
+
+        return jwt;
+    }
+}
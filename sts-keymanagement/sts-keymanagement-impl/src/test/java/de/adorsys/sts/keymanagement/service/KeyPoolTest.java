@@ -0,0 +1,70 @@
+package de.adorsys.sts.keymanagement.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class KeyPoolTest {
+
+    private static final int CAPACITY = 3;
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final AtomicInteger generatedKeys = new AtomicInteger();
+
+    private KeyPool<Integer> pool;
+
+    @Before
+    public void setup() {
+        pool = new KeyPool<>("test", generatedKeys::incrementAndGet, scheduled::add, CAPACITY);
+    }
+
+    @Test
+    public void shouldGenerateInlineIfEmpty() {
+        Integer key = pool.take();
+
+        assertThat(key, equalTo(1));
+        assertThat(pool.getMissCount(), equalTo(1L));
+        assertThat(scheduled.size(), equalTo(CAPACITY));
+    }
+
+    @Test
+    public void shouldTakePreGeneratedKeys() {
+        pool.refill();
+        runScheduled();
+
+        assertThat(pool.size(), equalTo(CAPACITY));
+
+        Integer key = pool.take();
+
+        assertThat(key, equalTo(1));
+        assertThat(pool.getMissCount(), equalTo(0L));
+        assertThat(pool.size(), equalTo(CAPACITY - 1));
+        assertThat(scheduled.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldNotScheduleBeyondCapacity() {
+        pool.refill();
+        pool.refill();
+        pool.take();
+
+        assertThat(scheduled.size(), equalTo(CAPACITY));
+
+        runScheduled();
+
+        assertThat(pool.size(), equalTo(CAPACITY));
+        assertThat(pool.getGeneratedCount(), equalTo((long) CAPACITY + 1));
+    }
+
+    private void runScheduled() {
+        List<Runnable> toRun = new ArrayList<>(scheduled);
+        scheduled.clear();
+        toRun.forEach(Runnable::run);
+    }
+}
@@ -30,12 +30,15 @@ import java.time.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(NestedRunner.class)
@@ -279,6 +282,56 @@ public class KeyRotationServiceTest {
         }
     }
 
+    public class KeyStoreWithValidKeys {
+
+        @Test
+        public void shouldReuseIndexOfSameKeyStoreVersion() {
+            keyRotationService.rotate(stsKeyStore);
+            keyRotationService.rotate(stsKeyStore);
+
+            verify(view, times(1)).all();
+        }
+
+        @Test
+        public void shouldRebuildIndexOnNewKeyStoreVersion() {
+            keyRotationService.rotate(stsKeyStore);
+            stsKeyStore.setLastUpdate(FIXED_DATE_TIME.atZone(ZoneOffset.UTC));
+            keyRotationService.rotate(stsKeyStore);
+
+            verify(view, times(2)).all();
+        }
+
+        @Test
+        public void shouldComputeNextTransitionFromIndexOfRotation() {
+            keyRotationService.rotate(stsKeyStore);
+            keyRotationService.nextTransition(stsKeyStore);
+
+            verify(view, times(1)).all();
+        }
+
+        @Test
+        public void shouldReturnEarliestNotAfterAsNextTransition() {
+            Optional<ZonedDateTime> nextTransition = keyRotationService.nextTransition(stsKeyStore);
+
+            assertThat(nextTransition, is(equalTo(Optional.of(FIXED_DATE_TIME.plusSeconds(1).atZone(ZoneOffset.UTC)))));
+        }
+    }
+
+    public class KeyStoreWithLegacySignatureKeyPair {
+
+        @Before
+        public void setup() throws Exception {
+            when(signatureKeyEntry.getState()).thenReturn(KeyState.LEGACY);
+        }
+
+        @Test
+        public void shouldReturnNowAsNextTransition() {
+            Optional<ZonedDateTime> nextTransition = keyRotationService.nextTransition(stsKeyStore);
+
+            assertThat(nextTransition, is(equalTo(Optional.of(FIXED_DATE_TIME.atZone(ZoneOffset.UTC)))));
+        }
+    }
+
     @Getter
     @RequiredArgsConstructor
     private static class StsKeyEntryTestable implements StsKeyEntry {
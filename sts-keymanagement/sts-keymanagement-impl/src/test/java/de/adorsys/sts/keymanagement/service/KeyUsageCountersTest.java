@@ -0,0 +1,61 @@
+package de.adorsys.sts.keymanagement.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class KeyUsageCountersTest {
+
+    private KeyUsageCounters counters;
+    private KeyUsageCounters.Listener listener;
+
+    @Before
+    public void setup() {
+        counters = new KeyUsageCounters();
+        listener = mock(KeyUsageCounters.Listener.class);
+        counters.addListener(listener);
+    }
+
+    @Test
+    public void shouldNotifyListenerOnceForConcurrentlyUsedKey() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 100; ++i) {
+            executor.execute(() -> counters.signed("kid"));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        verify(listener, times(1)).added(eq("kid"), any());
+        assertThat(counters.get("kid").getSignatures(), equalTo(100L));
+    }
+
+    @Test
+    public void shouldNotifyListenerAboutDroppedCounters() {
+        counters.decrypted("kid");
+        counters.retainOnly(Collections.singleton("other"));
+
+        verify(listener).removed(eq("kid"), any());
+        assertThat(counters.get("kid"), nullValue());
+    }
+
+    @Test
+    public void shouldNotifyNewListenerAboutExistingCounters() {
+        counters.lookedUp("kid");
+        KeyUsageCounters.Listener added = mock(KeyUsageCounters.Listener.class);
+
+        counters.addListener(added);
+
+        verify(added).added("kid", counters.get("kid"));
+    }
+}
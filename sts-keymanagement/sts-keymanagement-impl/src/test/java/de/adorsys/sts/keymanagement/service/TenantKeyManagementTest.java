@@ -0,0 +1,182 @@
+package de.adorsys.sts.keymanagement.service;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+import de.adorsys.sts.keymanagement.model.ServerKeysHolder;
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepositoryFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TenantKeyManagementTest {
+
+    @Mock
+    private KeyManagementService defaultKeyManagement;
+
+    @Mock
+    private KeyStoreRepositoryFactory repositoryFactory;
+
+    @Mock
+    private KeyConversionService keyConversionService;
+
+    private TenantKeyManagement tenantKeyManagement;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+
+        when(repositoryFactory.forKeyStore(anyString())).thenAnswer(inv -> mock(KeyStoreRepository.class));
+        tenantKeyManagement = new TenantKeyManagement(
+                "default",
+                defaultKeyManagement,
+                repositoryFactory,
+                keyConversionService,
+                false,
+                Clock.systemUTC(),
+                null,
+                2,
+                Collections.emptySet(),
+                Duration.ofMinutes(1),
+                100
+        );
+    }
+
+    @Test
+    public void shouldServeConfiguredKeyStoreWithoutCaching() {
+        assertThat(tenantKeyManagement.get("default"), sameInstance(defaultKeyManagement));
+
+        verify(repositoryFactory, never()).forKeyStore(anyString());
+        assertThat(tenantKeyManagement.size(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldLoadKeyStoreOfTenantOnce() {
+        KeyManagementService first = tenantKeyManagement.get("tenant-a");
+
+        assertThat(tenantKeyManagement.get("tenant-a"), sameInstance(first));
+        assertThat(tenantKeyManagement.get("tenant-b"), not(sameInstance(first)));
+        verify(repositoryFactory, times(1)).forKeyStore("tenant-a");
+    }
+
+    @Test
+    public void shouldDropLeastRecentlyUsedKeyStore() {
+        tenantKeyManagement.get("tenant-a");
+        tenantKeyManagement.get("tenant-b");
+        tenantKeyManagement.get("tenant-a");
+        tenantKeyManagement.get("tenant-c");
+
+        assertThat(tenantKeyManagement.size(), equalTo(2L));
+
+        tenantKeyManagement.get("tenant-a");
+        tenantKeyManagement.get("tenant-b");
+
+        verify(repositoryFactory, times(1)).forKeyStore("tenant-a");
+        verify(repositoryFactory, times(2)).forKeyStore("tenant-b");
+    }
+
+    @Test
+    public void shouldNotFindMissingKeyStore() {
+        assertThat(tenantKeyManagement.find("default").isPresent(), is(true));
+        assertThat(tenantKeyManagement.find("missing").isPresent(), is(false));
+        assertThat(tenantKeyManagement.size(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldRememberMissingKeyStore() {
+        KeyStoreRepository repository = mock(KeyStoreRepository.class);
+        when(repositoryFactory.forKeyStore("missing")).thenReturn(repository);
+
+        tenantKeyManagement.find("missing");
+        assertThat(tenantKeyManagement.find("missing").isPresent(), is(false));
+
+        verify(repository, times(1)).exists();
+    }
+
+    @Test
+    public void shouldOnlyLookUpConfiguredTenants() {
+        TenantKeyManagement configured = new TenantKeyManagement(
+                "default", defaultKeyManagement, repositoryFactory, keyConversionService, false, Clock.systemUTC(), null, 2,
+                Collections.singleton("tenant-a"), Duration.ofMinutes(1), 100
+        );
+
+        assertThat(configured.find("tenant-b").isPresent(), is(false));
+        assertThat(configured.find("default").isPresent(), is(true));
+        verify(repositoryFactory, never()).forKeyStore("tenant-b");
+    }
+
+    @Test
+    public void shouldWeighKeyStoreAgainOnNewVersion() {
+        ZonedDateTime firstVersion = ZonedDateTime.now();
+        StsKeyStore firstKeyStore = keyStore(firstVersion);
+        StsKeyStore grownKeyStore = keyStore(firstVersion.plusMinutes(1));
+
+        KeyStoreRepository repository = mock(KeyStoreRepository.class);
+        when(repository.exists()).thenReturn(true);
+        when(repository.lastUpdate()).thenReturn(firstVersion);
+        when(repository.load()).thenReturn(firstKeyStore);
+        when(repositoryFactory.forKeyStore("tenant-a")).thenReturn(repository);
+
+        when(keyConversionService.export(any(StsKeyStore.class), any(KeyUsage.class))).thenAnswer(inv -> secretKeys(
+                inv.getArgument(1) != KeyUsage.SecretKey ? 0 : inv.getArgument(0) == firstKeyStore ? 1 : 3
+        ));
+
+        TenantKeyManagement fourKeys = new TenantKeyManagement(
+                "default", defaultKeyManagement, repositoryFactory, keyConversionService, false, Clock.systemUTC(), null, 4,
+                Collections.emptySet(), Duration.ofMinutes(1), 100
+        );
+
+        fourKeys.get("tenant-a");
+        fourKeys.get("tenant-b");
+        fourKeys.get("tenant-c");
+        assertThat(fourKeys.size(), equalTo(3L));
+
+        when(repository.lastUpdate()).thenReturn(firstVersion.plusMinutes(1));
+        when(repository.load()).thenReturn(grownKeyStore);
+        fourKeys.get("tenant-a");
+
+        // tenant-a weighs 3 keys now, the least recently used tenant-b doesn't fit anymore
+        assertThat(fourKeys.size(), equalTo(2L));
+        fourKeys.get("tenant-b");
+        verify(repositoryFactory, times(2)).forKeyStore("tenant-b");
+    }
+
+    private static StsKeyStore keyStore(ZonedDateTime lastUpdate) {
+        StsKeyStore keyStore = mock(StsKeyStore.class);
+        when(keyStore.getLastUpdate()).thenReturn(lastUpdate);
+        return keyStore;
+    }
+
+    private static ServerKeysHolder secretKeys(int count) {
+        List<JWK> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(new OctetSequenceKey.Builder(new byte[32]).keyID("secret-" + i).build());
+        }
+
+        return new ServerKeysHolder(new JWKSet(keys), new JWKSet());
+    }
+}
@@ -1,8 +1,12 @@
 package de.adorsys.sts.persistence.jpa;
 
+import de.adorsys.sts.common.lock.FencingTokenSource;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
 import de.adorsys.sts.keymanagement.model.StsKeyEntry;
 import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreConflictException;
 import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.VersionedKeyEntries;
 import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
 import de.adorsys.sts.persistence.jpa.entity.JpaKeyEntryAttributes;
 import de.adorsys.sts.persistence.jpa.entity.JpaKeyStore;
@@ -14,8 +18,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -24,28 +28,68 @@ public class DatabaseKeyStoreRepository implements KeyStoreRepository {
     private final JpaKeyStoreRepository keyStoreRepository;
     private final JpaKeyEntryAttributesRepository keyEntryRepository;
     private final KeyStoreEntityMapper keyStoreEntityMapper;
+    private final FencingTokenSource fencingTokenSource;
     private final String keyStoreName;
+    private final boolean partitioned;
+
+    private volatile VersionedKeyEntries loadedKeyEntries = VersionedKeyEntries.NONE;
 
     @Autowired
     public DatabaseKeyStoreRepository(
             JpaKeyStoreRepository keyStoreRepository,
             JpaKeyEntryAttributesRepository keyEntryRepository,
             KeyStoreEntityMapper keyStoreEntityMapper,
-            KeyManagementProperties keyManagementProperties
+            KeyManagementProperties keyManagementProperties,
+            FencingTokenSource fencingTokenSource
+    ) {
+        this(
+                keyStoreRepository,
+                keyEntryRepository,
+                keyStoreEntityMapper,
+                keyManagementProperties.getKeystore().getName(),
+                keyManagementProperties.getKeystore().isPartitioned(),
+                fencingTokenSource
+        );
+    }
+
+    /**
+     * Repository of another keystore than the configured one, see {@link DatabaseKeyStoreRepositoryFactory}.
+     */
+    DatabaseKeyStoreRepository(
+            JpaKeyStoreRepository keyStoreRepository,
+            JpaKeyEntryAttributesRepository keyEntryRepository,
+            KeyStoreEntityMapper keyStoreEntityMapper,
+            String keyStoreName,
+            boolean partitioned,
+            FencingTokenSource fencingTokenSource
     ) {
         this.keyStoreRepository = keyStoreRepository;
         this.keyEntryRepository = keyEntryRepository;
 
         this.keyStoreEntityMapper = keyStoreEntityMapper;
-        this.keyStoreName = keyManagementProperties.getKeystore().getName();
+        this.keyStoreName = keyStoreName;
+        this.partitioned = partitioned;
+        this.fencingTokenSource = fencingTokenSource;
     }
 
     @Override
     public StsKeyStore load() {
         JpaKeyStore persistentKeyStore = keyStoreRepository.findByName(keyStoreName);
-        List<JpaKeyEntryAttributes> persistentKeyEntries = keyEntryRepository.findAllByKeyStoreId(persistentKeyStore.getId());
 
-        return keyStoreEntityMapper.mapFromEntity(persistentKeyStore, persistentKeyEntries);
+        if (persistentKeyStore.getVersion() == null) {
+            // not migrated yet, i.e. the migration is running on another node
+            return loadWholeKeyStore(persistentKeyStore);
+        }
+
+        VersionedKeyEntries keyEntries = loadKeyEntries(persistentKeyStore);
+        StsKeyStore keyStore = keyStoreEntityMapper.mapFromEntries(keyEntries, persistentKeyStore.getLastUpdate());
+        keyStore.setVersion(persistentKeyStore.getVersion());
+
+        if (partitioned) {
+            persistentKeyStore.getPartitionUpdates().forEach(keyStore::setPartitionUpdate);
+        }
+
+        return keyStore;
     }
 
     @Override
@@ -53,31 +97,51 @@ public class DatabaseKeyStoreRepository implements KeyStoreRepository {
         return keyStoreRepository.countByName(keyStoreName) > 0;
     }
 
+    /**
+     * Persists only the key entries which have been added, changed or removed. Entries persisted before as part of
+     * the whole keystore are migrated on the first save. If partitioned, the partitions of the key usages with
+     * changed entries get the `lastUpdate` of the keystore as their version.
+     * <p>
+     * A keystore loaded in a specific version (see {@link StsKeyStore#getVersion()}) is only saved if that is still
+     * the persisted version, so keys added by another node meanwhile are not dropped.
+     */
     @Override
     public void save(StsKeyStore keyStore) {
+        fencingTokenSource.verifyCurrent();
+
         JpaKeyStore foundKeyStore = keyStoreRepository.findByName(keyStoreName);
+        verifyVersion(keyStore, foundKeyStore == null ? null : foundKeyStore.getVersion());
         Map<String, StsKeyEntry> stsKeyEntries = keyStore.getEntries();
+        Map<String, JpaKeyEntryAttributes> keyEntries = new HashMap<>();
 
+        long version;
         if (foundKeyStore == null) {
-            foundKeyStore = keyStoreEntityMapper.mapToEntity(keyStore);
-            JpaKeyStore savedKeyStore = keyStoreRepository.save(foundKeyStore);
-
-            addKeyEntries(savedKeyStore, stsKeyEntries);
+            foundKeyStore = keyStoreRepository.save(keyStoreEntityMapper.mapToEntity(keyStore, keyStoreName));
+            version = 1L;
         } else {
-            keyStoreEntityMapper.mapIntoEntity(keyStore, foundKeyStore);
+            version = claimNextVersion(foundKeyStore);
+            for (JpaKeyEntryAttributes keyEntry : keyEntryRepository.findAllByKeyStoreId(foundKeyStore.getId())) {
+                keyEntries.put(keyEntry.getAlias(), keyEntry);
+            }
+        }
 
-            Long keyStoreId = foundKeyStore.getId();
-            List<JpaKeyEntryAttributes> keyEntries = keyEntryRepository.findAllByKeyStoreId(keyStoreId);
+        Set<KeyUsage> changedUsages = new HashSet<>();
 
-            for (JpaKeyEntryAttributes keyEntry : keyEntries) {
-                if (!stsKeyEntries.containsKey(keyEntry.getAlias())) {
-                    keyEntryRepository.deleteById(keyEntry.getId());
-                }
+        for (JpaKeyEntryAttributes keyEntry : keyEntries.values()) {
+            if (!stsKeyEntries.containsKey(keyEntry.getAlias())) {
+                keyEntryRepository.deleteById(keyEntry.getId());
+                changedUsages.add(keyEntry.getKeyUsage());
             }
-
-            addOrUpdateKeyEntries(foundKeyStore, stsKeyEntries);
-            keyStoreRepository.save(foundKeyStore);
         }
+
+        changedUsages.addAll(addOrUpdateKeyEntries(foundKeyStore, keyStore, keyEntries, version));
+
+        keyStoreEntityMapper.mapIntoEntity(keyStore, foundKeyStore);
+        foundKeyStore.setVersion(version);
+        foundKeyStore.setSchemaVersion(CURRENT_SCHEMA_VERSION);
+        updatePartitions(foundKeyStore, keyStore, changedUsages);
+        keyStoreRepository.save(foundKeyStore);
+        keyStore.setVersion(version);
     }
 
     @Override
@@ -85,34 +149,156 @@ public class DatabaseKeyStoreRepository implements KeyStoreRepository {
         return keyStoreRepository.getLastUpdate(keyStoreName);
     }
 
-    private void addOrUpdateKeyEntries(JpaKeyStore savedKeyStore, Map<String, StsKeyEntry> stsKeyEntries) {
-        for (Map.Entry<String, StsKeyEntry> stsKeyEntryMapEntry : stsKeyEntries.entrySet()) {
-            JpaKeyEntryAttributes keyEntryAttributes;
-            StsKeyEntry stsKeyEntry = stsKeyEntryMapEntry.getValue();
+    /**
+     * Writes a keystore persisted as a whole entry by entry, upgrading entries without metadata. Keystores already
+     * persisted entry by entry before the schema version was introduced only get the marker.
+     */
+    @Override
+    public boolean migrate() {
+        JpaKeyStore persistentKeyStore = keyStoreRepository.findByName(keyStoreName);
 
-            JpaKeyEntryAttributes foundKeyEntry = keyEntryRepository.findByAlias(stsKeyEntry.getAlias());
-            if(foundKeyEntry == null) {
-                keyEntryAttributes = new JpaKeyEntryAttributes();
-                keyEntryAttributes.setKeyStoreId(savedKeyStore.getId());
-            } else {
-                keyEntryAttributes = foundKeyEntry;
+        if (persistentKeyStore == null || Objects.equals(persistentKeyStore.getSchemaVersion(), CURRENT_SCHEMA_VERSION)) {
+            return false;
+        }
+
+        if (persistentKeyStore.getVersion() == null) {
+            save(loadWholeKeyStore(persistentKeyStore));
+        } else {
+            fencingTokenSource.verifyCurrent();
+            persistentKeyStore.setSchemaVersion(CURRENT_SCHEMA_VERSION);
+            keyStoreRepository.save(persistentKeyStore);
+        }
+
+        return true;
+    }
+
+    private StsKeyStore loadWholeKeyStore(JpaKeyStore persistentKeyStore) {
+        List<JpaKeyEntryAttributes> persistentKeyEntries = keyEntryRepository.findAllByKeyStoreId(persistentKeyStore.getId());
+        return keyStoreEntityMapper.mapFromEntity(persistentKeyStore, persistentKeyEntries);
+    }
+
+    /**
+     * Increments the version only if it is still the one read, the row stays locked until the transaction ends. So
+     * of two concurrent writers of the same version only one gets the next version, the other one is rejected.
+     */
+    private long claimNextVersion(JpaKeyStore foundKeyStore) {
+        Long foundVersion = foundKeyStore.getVersion();
+        long version = foundVersion == null ? 1L : foundVersion + 1L;
+
+        int updated = foundVersion == null
+                ? keyStoreRepository.initVersion(foundKeyStore.getId(), version)
+                : keyStoreRepository.updateVersion(foundKeyStore.getId(), foundVersion, version);
+
+        if (updated == 0) {
+            throw new KeyStoreConflictException(keyStoreName, foundVersion);
+        }
+
+        return version;
+    }
+
+    private void verifyVersion(StsKeyStore keyStore, Long persistedVersion) {
+        if (keyStore.getVersion() != null && !keyStore.getVersion().equals(persistedVersion)) {
+            throw new KeyStoreConflictException(keyStoreName, keyStore.getVersion(), persistedVersion);
+        }
+    }
+
+    private VersionedKeyEntries loadKeyEntries(JpaKeyStore persistentKeyStore) {
+        Long keyStoreId = persistentKeyStore.getId();
+        long version = persistentKeyStore.getVersion();
+        VersionedKeyEntries loaded = loadedKeyEntries;
+
+        if (loaded.getVersion() == version) {
+            return loaded;
+        }
+
+        List<JpaKeyEntryAttributes> changedKeyEntries;
+        List<String> aliases;
+
+        if (loaded.getVersion() > version) {
+            loaded = VersionedKeyEntries.NONE;
+        }
+
+        if (loaded == VersionedKeyEntries.NONE) {
+            changedKeyEntries = keyEntryRepository.findAllByKeyStoreId(keyStoreId);
+            aliases = changedKeyEntries.stream().map(JpaKeyEntryAttributes::getAlias).collect(Collectors.toList());
+        } else {
+            changedKeyEntries = keyEntryRepository.findAllByKeyStoreIdAndVersionGreaterThan(keyStoreId, loaded.getVersion());
+            aliases = keyEntryRepository.findAliasesByKeyStoreId(keyStoreId);
+        }
+
+        VersionedKeyEntries keyEntries = keyStoreEntityMapper.mapFromEntities(loaded, version, changedKeyEntries, aliases);
+        loadedKeyEntries = keyEntries;
+
+        return keyEntries;
+    }
+
+    private void updatePartitions(JpaKeyStore persistentKeyStore, StsKeyStore keyStore, Set<KeyUsage> changedUsages) {
+        Map<KeyUsage, ZonedDateTime> partitionUpdates = persistentKeyStore.getPartitionUpdates();
+
+        if (!partitioned) {
+            // versions of partitions would not be updated anymore
+            partitionUpdates.clear();
+            return;
+        }
+
+        for (KeyUsage keyUsage : KeyUsage.values()) {
+            if (changedUsages.contains(keyUsage) || !partitionUpdates.containsKey(keyUsage)) {
+                partitionUpdates.put(keyUsage, keyStore.getLastUpdate());
             }
 
-            keyStoreEntityMapper.mapIntoEntity(stsKeyEntry, keyEntryAttributes);
-            keyEntryRepository.save(keyEntryAttributes);
+            keyStore.setPartitionUpdate(keyUsage, partitionUpdates.get(keyUsage));
         }
     }
 
-    private void addKeyEntries(JpaKeyStore savedKeyStore, Map<String, StsKeyEntry> stsKeyEntries) {
-        for (Map.Entry<String, StsKeyEntry> stsKeyEntryMapEntry : stsKeyEntries.entrySet()) {
-            StsKeyEntry stsKeyEntry = stsKeyEntryMapEntry.getValue();
+    /**
+     * @return Key usages of the entries which have been added or changed.
+     */
+    private Set<KeyUsage> addOrUpdateKeyEntries(
+            JpaKeyStore savedKeyStore,
+            StsKeyStore keyStore,
+            Map<String, JpaKeyEntryAttributes> keyEntries,
+            long version
+    ) {
+        Map<String, StsKeyEntry> stsKeyEntries = keyStore.getEntries();
 
-            JpaKeyEntryAttributes keyEntryAttributes = new JpaKeyEntryAttributes();
-            keyStoreEntityMapper.mapIntoEntity(stsKeyEntry, keyEntryAttributes);
+        // entries written by another codec are written again, so they are migrated on the next save
+        Set<String> aliasesToSerialize = new HashSet<>();
+        for (String alias : stsKeyEntries.keySet()) {
+            JpaKeyEntryAttributes foundKeyEntry = keyEntries.get(alias);
+            if (foundKeyEntry == null || !keyStoreEntityMapper.isCurrentFormat(foundKeyEntry.getKeyData())) {
+                aliasesToSerialize.add(alias);
+            }
+        }
+
+        Map<String, byte[]> keyData = keyStoreEntityMapper.serialize(keyStore, aliasesToSerialize);
+        Set<KeyUsage> changedUsages = new HashSet<>();
 
-            keyEntryAttributes.setKeyStoreId(savedKeyStore.getId());
+        for (StsKeyEntry stsKeyEntry : stsKeyEntries.values()) {
+            JpaKeyEntryAttributes keyEntryAttributes = keyEntries.get(stsKeyEntry.getAlias());
+            boolean upToDate = keyEntryAttributes != null && keyEntryAttributes.getKeyData() != null
+                    && keyStoreEntityMapper.isUpToDate(stsKeyEntry, keyEntryAttributes);
+
+            if (upToDate && !keyData.containsKey(stsKeyEntry.getAlias())) {
+                continue;
+            }
+
+            if (keyEntryAttributes == null) {
+                keyEntryAttributes = new JpaKeyEntryAttributes();
+                keyEntryAttributes.setKeyStoreId(savedKeyStore.getId());
+            }
+
+            keyStoreEntityMapper.mapIntoEntity(stsKeyEntry, keyEntryAttributes);
+            if (keyData.containsKey(stsKeyEntry.getAlias())) {
+                keyEntryAttributes.setKeyData(keyData.get(stsKeyEntry.getAlias()));
+            }
+            keyEntryAttributes.setVersion(version);
 
             keyEntryRepository.save(keyEntryAttributes);
+            if (!upToDate) {
+                changedUsages.add(stsKeyEntry.getKeyUsage());
+            }
         }
+
+        return changedUsages;
     }
 }
@@ -0,0 +1,59 @@
+package de.adorsys.sts.persistence.jpa;
+
+import de.adorsys.sts.common.lock.FencingTokenSource;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepositoryFactory;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.persistence.jpa.mapping.KeyStoreEntityMapper;
+import de.adorsys.sts.persistence.jpa.repository.JpaKeyEntryAttributesRepository;
+import de.adorsys.sts.persistence.jpa.repository.JpaKeyStoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class DatabaseKeyStoreRepositoryFactory implements KeyStoreRepositoryFactory {
+
+    private final JpaKeyStoreRepository keyStoreRepository;
+    private final JpaKeyEntryAttributesRepository keyEntryRepository;
+    private final KeyStoreEntityMapper keyStoreEntityMapper;
+    private final FencingTokenSource fencingTokenSource;
+    private final TransactionTemplate transaction;
+    private final boolean partitioned;
+
+    @Autowired
+    public DatabaseKeyStoreRepositoryFactory(
+            JpaKeyStoreRepository keyStoreRepository,
+            JpaKeyEntryAttributesRepository keyEntryRepository,
+            KeyStoreEntityMapper keyStoreEntityMapper,
+            KeyManagementProperties keyManagementProperties,
+            FencingTokenSource fencingTokenSource,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.keyStoreRepository = keyStoreRepository;
+        this.keyEntryRepository = keyEntryRepository;
+        this.keyStoreEntityMapper = keyStoreEntityMapper;
+        this.fencingTokenSource = fencingTokenSource;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.partitioned = keyManagementProperties.getKeystore().isPartitioned();
+    }
+
+    /**
+     * @return Repository which runs every call in a transaction, like {@link DatabaseKeyStoreRepository} does.
+     */
+    @Override
+    public KeyStoreRepository forKeyStore(String keyStoreName) {
+        return new TransactionalKeyStoreRepository(
+                new DatabaseKeyStoreRepository(
+                        keyStoreRepository,
+                        keyEntryRepository,
+                        keyStoreEntityMapper,
+                        keyStoreName,
+                        partitioned,
+                        fencingTokenSource
+                ),
+                transaction
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package de.adorsys.sts.persistence.jpa;
+
+import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Runs every call of a repository created outside of the application context in a transaction.
+ */
+class TransactionalKeyStoreRepository implements KeyStoreRepository {
+
+    private final KeyStoreRepository repository;
+    private final TransactionTemplate transaction;
+
+    TransactionalKeyStoreRepository(KeyStoreRepository repository, TransactionTemplate transaction) {
+        this.repository = repository;
+        this.transaction = transaction;
+    }
+
+    @Override
+    public StsKeyStore load() {
+        return transaction.execute(status -> repository.load());
+    }
+
+    @Override
+    public boolean exists() {
+        return Boolean.TRUE.equals(transaction.execute(status -> repository.exists()));
+    }
+
+    @Override
+    public void save(StsKeyStore keyStore) {
+        transaction.executeWithoutResult(status -> repository.save(keyStore));
+    }
+
+    @Override
+    public ZonedDateTime lastUpdate() {
+        return transaction.execute(status -> repository.lastUpdate());
+    }
+
+    @Override
+    public boolean migrate() {
+        return Boolean.TRUE.equals(transaction.execute(status -> repository.migrate()));
+    }
+}
@@ -1,8 +1,10 @@
 package de.adorsys.sts.persistence.jpa.config;
 
+import de.adorsys.sts.common.lock.FencingTokenSource;
 import de.adorsys.sts.keymanagement.KeyManagementConfiguration;
 import de.adorsys.sts.keymanagement.bouncycastle.BouncyCastleProviderConfiguration;
 import de.adorsys.sts.lock.ExecutionLockConfiguration;
+import de.adorsys.sts.persistence.jpa.lock.JdbcFencingTokenSource;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,8 +16,10 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import static de.adorsys.sts.lock.ExecutionLockConfiguration.DEFAULT_JPA_FENCING_TABLE_KEY;
 import static de.adorsys.sts.lock.ExecutionLockConfiguration.DEFAULT_JPA_TABLE_KEY;
 
 @Configuration
@@ -35,4 +39,13 @@ public class JpaConfiguration {
     LockProvider lockProvider(JdbcTemplate template, @Value(DEFAULT_JPA_TABLE_KEY) String lockTable) {
         return new JdbcTemplateLockProvider(template, lockTable);
     }
+
+    @Bean
+    FencingTokenSource fencingTokenSource(
+            JdbcTemplate template,
+            PlatformTransactionManager transactionManager,
+            @Value(DEFAULT_JPA_FENCING_TABLE_KEY) String fencingTable
+    ) {
+        return new JdbcFencingTokenSource(template, transactionManager, fencingTable);
+    }
 }
@@ -42,4 +42,12 @@ public class JpaKeyEntryAttributes {
 
     @Enumerated(EnumType.STRING)
     private KeyUsage keyUsage;
+
+    @Column(length = 64 * 1024)
+    private byte[] keyData;
+
+    /**
+     * Keystore version of the last change of this entry.
+     */
+    private Long version;
 }
@@ -1,11 +1,14 @@
 package de.adorsys.sts.persistence.jpa.entity;
 
+import de.adorsys.sts.keymanagement.model.KeyUsage;
 import de.adorsys.sts.persistence.jpa.mapping.ZonedDateTimeConverter;
 import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.*;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -21,10 +24,36 @@ public class JpaKeyStore {
 
     private String type;
 
+    /**
+     * Whole serialized keystore as persisted before key entries were stored one by one, for older versions. Null once
+     * migrated with legacy keystores disabled.
+     */
     @Column(length = 1024 * 1024)
     private byte[] keystore;
 
+    /**
+     * Incremented on every save, null as long as the key entries have not been persisted one by one.
+     */
+    private Long version;
+
+    /**
+     * Schema the keystore has been written in, see {@link de.adorsys.sts.keymanagement.persistence.KeyStoreRepository#CURRENT_SCHEMA_VERSION}.
+     * Null if it was written before the schema version was introduced.
+     */
+    private Integer schemaVersion;
+
     @Convert(converter = ZonedDateTimeConverter.class)
     private ZonedDateTime lastUpdate;
+
+    /**
+     * Last update per key usage, empty unless the keystore is persisted partitioned by key usage.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "key_store_partition", joinColumns = @JoinColumn(name = "key_store_id"))
+    @MapKeyColumn(name = "key_usage")
+    @MapKeyEnumerated(EnumType.STRING)
+    @Column(name = "last_update")
+    @Convert(converter = ZonedDateTimeConverter.class)
+    private Map<KeyUsage, ZonedDateTime> partitionUpdates = new HashMap<>();
 }
 
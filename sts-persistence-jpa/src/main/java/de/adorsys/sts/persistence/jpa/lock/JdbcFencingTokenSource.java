@@ -0,0 +1,64 @@
+package de.adorsys.sts.persistence.jpa.lock;
+
+import de.adorsys.sts.common.lock.FencingToken;
+import de.adorsys.sts.common.lock.FencingTokenSource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Keeps the last issued token per lock in a table. The token is read with a row lock inside of the transaction of the
+ * write it guards, so a new token can't be issued until a write of the previous holder is committed.
+ */
+public class JdbcFencingTokenSource implements FencingTokenSource {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+
+    private final String incrementSql;
+    private final String insertSql;
+    private final String selectSql;
+    private final String selectForUpdateSql;
+
+    public JdbcFencingTokenSource(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.incrementSql = "UPDATE " + tableName + " SET token = token + 1 WHERE name = ?";
+        this.insertSql = "INSERT INTO " + tableName + " (name, token) VALUES (?, 1)";
+        this.selectSql = "SELECT token FROM " + tableName + " WHERE name = ?";
+        this.selectForUpdateSql = selectSql + " FOR UPDATE";
+    }
+
+    @Override
+    public FencingToken next(String lockName) {
+        Long token = newTransaction.execute(status -> {
+            if (0 == jdbcTemplate.update(incrementSql, lockName)) {
+                insertOrIncrement(lockName);
+            }
+
+            return jdbcTemplate.queryForObject(selectSql, Long.class, lockName);
+        });
+
+        return new FencingToken(lockName, token);
+    }
+
+    @Override
+    public boolean isCurrent(FencingToken token) {
+        List<Long> found = jdbcTemplate.queryForList(selectForUpdateSql, Long.class, token.getLockName());
+        return !found.isEmpty() && found.get(0) == token.getValue();
+    }
+
+    private void insertOrIncrement(String lockName) {
+        try {
+            jdbcTemplate.update(insertSql, lockName);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(incrementSql, lockName);
+        }
+    }
+}
@@ -6,6 +6,9 @@ import de.adorsys.keymanagement.api.types.entity.KeyEntry;
 import de.adorsys.keymanagement.api.types.template.NameAndPassword;
 import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyEntry;
 import de.adorsys.sts.keymanagement.model.*;
+import de.adorsys.sts.keymanagement.persistence.KeyEntryCodec;
+import de.adorsys.sts.keymanagement.persistence.KeyEntrySerializer;
+import de.adorsys.sts.keymanagement.persistence.VersionedKeyEntries;
 import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
 import de.adorsys.sts.persistence.jpa.entity.JpaKeyEntryAttributes;
 import de.adorsys.sts.persistence.jpa.entity.JpaKeyStore;
@@ -14,46 +17,94 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.security.KeyStore;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.ZonedDateTime;
+import java.util.*;
 
 @Component
 public class KeyStoreEntityMapper {
 
     private final Juggler juggler;
     private final PasswordCallbackHandler keyPassHandler;
-    private final String keystoreName;
+    private final KeyEntrySerializer keyEntrySerializer;
+    private final boolean legacyKeystore;
 
     @Autowired
     public KeyStoreEntityMapper(
             Juggler juggler,
-            KeyManagementProperties keyManagementProperties
+            KeyManagementProperties keyManagementProperties,
+            KeyEntryCodec keyEntryCodec
     ) {
         this.juggler = juggler;
         String keyStorePassword = keyManagementProperties.getKeystore().getPassword();
         keyPassHandler = new PasswordCallbackHandler(keyStorePassword.toCharArray());
-        keystoreName = keyManagementProperties.getKeystore().getName();
+        keyEntrySerializer = new KeyEntrySerializer(juggler, keyPassHandler::getPassword, keyEntryCodec);
+        legacyKeystore = keyManagementProperties.getKeystore().isLegacyKeystore();
     }
 
-    public JpaKeyStore mapToEntity(StsKeyStore keyStore) {
+    public JpaKeyStore mapToEntity(StsKeyStore keyStore, String keyStoreName) {
         JpaKeyStore persistentKeyStore = new JpaKeyStore();
+        persistentKeyStore.setName(keyStoreName);
 
         mapIntoEntity(keyStore, persistentKeyStore);
 
         return persistentKeyStore;
     }
 
+    /**
+     * Maps the keystore attributes, the key entries are persisted one by one (see {@link #serialize}). The whole
+     * keystore is only written for older versions as long as legacy keystores are enabled.
+     */
     public void mapIntoEntity(StsKeyStore keyStore, JpaKeyStore persistentKeyStore) {
         UnmodifyableKeystore toPersist = keyStore.getKeyStoreCopy();
-        byte[] bytes = toPersist.toBytes(juggler, keyPassHandler::getPassword);
 
-        persistentKeyStore.setName(keystoreName);
-        persistentKeyStore.setKeystore(bytes);
+        persistentKeyStore.setKeystore(legacyKeystore ? toPersist.toBytes(juggler, keyPassHandler::getPassword) : null);
         persistentKeyStore.setType(toPersist.getType());
         persistentKeyStore.setLastUpdate(keyStore.getLastUpdate());
     }
 
+    public Map<String, byte[]> serialize(StsKeyStore keyStore, Collection<String> aliases) {
+        return keyEntrySerializer.serialize(keyStore, aliases);
+    }
+
+    /**
+     * @return false if the key data is missing or has been written by another codec.
+     */
+    public boolean isCurrentFormat(byte[] keyData) {
+        return keyEntrySerializer.isCurrentFormat(keyData);
+    }
+
+    /**
+     * Applies the key entries changed since the given version, only entries not yet known get deserialized.
+     */
+    public VersionedKeyEntries mapFromEntities(
+            VersionedKeyEntries loaded,
+            long version,
+            List<JpaKeyEntryAttributes> changedKeyEntries,
+            Collection<String> aliases
+    ) {
+        List<StsKeyEntry> changedAttributes = new ArrayList<>();
+        Map<String, KeyStore.Entry> addedEntries = new HashMap<>();
+
+        for (JpaKeyEntryAttributes keyEntryAttributes : changedKeyEntries) {
+            String alias = keyEntryAttributes.getAlias();
+            changedAttributes.add(mapFromEntity(keyEntryAttributes));
+
+            if (loaded.getEntry(alias) == null) {
+                addedEntries.put(alias, keyEntrySerializer.deserialize(alias, keyEntryAttributes.getKeyData()));
+            }
+        }
+
+        return loaded.update(version, changedAttributes, addedEntries, aliases);
+    }
+
+    public StsKeyStore mapFromEntries(VersionedKeyEntries keyEntries, ZonedDateTime lastUpdate) {
+        return keyEntries.toKeyStore(keyEntrySerializer, lastUpdate);
+    }
+
+    /**
+     * Maps a keystore which was persisted as a whole, before key entries were persisted one by one. Entries without
+     * metadata are upgraded, so this is only used until the keystore has been migrated.
+     */
     public StsKeyStore mapFromEntity(JpaKeyStore persistentKeyStore, List<JpaKeyEntryAttributes> persistentKeyEntries) {
         KeyStore orig = juggler.serializeDeserialize()
                 .deserialize(persistentKeyStore.getKeystore(), keyPassHandler::getPassword);
@@ -113,6 +164,25 @@ public class KeyStoreEntityMapper {
                 .build();
     }
 
+    public boolean isUpToDate(StsKeyEntry stsKeyEntry, JpaKeyEntryAttributes keyEntryAttributes) {
+        return isSameInstant(stsKeyEntry.getCreatedAt(), keyEntryAttributes.getCreatedAt())
+                && isSameInstant(stsKeyEntry.getNotBefore(), keyEntryAttributes.getNotBefore())
+                && isSameInstant(stsKeyEntry.getNotAfter(), keyEntryAttributes.getNotAfter())
+                && isSameInstant(stsKeyEntry.getExpireAt(), keyEntryAttributes.getExpireAt())
+                && Objects.equals(stsKeyEntry.getValidityInterval(), keyEntryAttributes.getValidityInterval())
+                && Objects.equals(stsKeyEntry.getLegacyInterval(), keyEntryAttributes.getLegacyInterval())
+                && stsKeyEntry.getState() == keyEntryAttributes.getState()
+                && stsKeyEntry.getKeyUsage() == keyEntryAttributes.getKeyUsage();
+    }
+
+    private boolean isSameInstant(ZonedDateTime first, ZonedDateTime second) {
+        if (first == null || second == null) {
+            return first == second;
+        }
+
+        return first.isEqual(second);
+    }
+
     public void mapIntoEntity(StsKeyEntry stsKeyEntry, JpaKeyEntryAttributes keyEntryAttributes) {
         keyEntryAttributes.setAlias(stsKeyEntry.getAlias());
         keyEntryAttributes.setCreatedAt(stsKeyEntry.getCreatedAt());
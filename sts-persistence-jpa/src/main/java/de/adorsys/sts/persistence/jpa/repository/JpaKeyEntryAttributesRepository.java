@@ -1,7 +1,9 @@
 package de.adorsys.sts.persistence.jpa.repository;
 
 import de.adorsys.sts.persistence.jpa.entity.JpaKeyEntryAttributes;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,5 +13,10 @@ public interface JpaKeyEntryAttributesRepository extends CrudRepository<JpaKeyEn
 
     List<JpaKeyEntryAttributes> findAllByKeyStoreId(Long keyStoreId);
 
+    List<JpaKeyEntryAttributes> findAllByKeyStoreIdAndVersionGreaterThan(Long keyStoreId, Long version);
+
+    @Query("select e.alias from JpaKeyEntryAttributes e where e.keyStoreId = :keyStoreId")
+    List<String> findAliasesByKeyStoreId(@Param("keyStoreId") Long keyStoreId);
+
     JpaKeyEntryAttributes findByAlias(String alias);
 }
@@ -1,6 +1,7 @@
 package de.adorsys.sts.persistence.jpa.repository;
 
 import de.adorsys.sts.persistence.jpa.entity.JpaKeyStore;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -17,4 +18,18 @@ public interface JpaKeyStoreRepository extends CrudRepository<JpaKeyStore, Long>
 
     @Query("select k.lastUpdate from JpaKeyStore k where k.name = :name")
     ZonedDateTime getLastUpdate(@Param("name") String name);
+
+    /**
+     * @return count of updated keystores, 0 if the version has been changed by another writer meanwhile
+     */
+    @Modifying
+    @Query("update JpaKeyStore k set k.version = :version where k.id = :id and k.version = :expected")
+    int updateVersion(@Param("id") Long id, @Param("expected") Long expected, @Param("version") Long version);
+
+    /**
+     * @return count of updated keystores, 0 if another writer has migrated the keystore meanwhile
+     */
+    @Modifying
+    @Query("update JpaKeyStore k set k.version = :version where k.id = :id and k.version is null")
+    int initVersion(@Param("id") Long id, @Param("version") Long version);
 }
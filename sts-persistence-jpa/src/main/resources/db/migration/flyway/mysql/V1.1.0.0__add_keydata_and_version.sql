@@ -0,0 +1,3 @@
+ALTER TABLE sts.key_store ADD COLUMN version BIGINT NULL;
+ALTER TABLE sts.key_entry ADD COLUMN key_data BLOB NULL;
+ALTER TABLE sts.key_entry ADD COLUMN version BIGINT NULL;
@@ -0,0 +1,6 @@
+CREATE TABLE sts.sts_fencing_token
+(
+    name  VARCHAR(64),
+    token BIGINT NOT NULL,
+    PRIMARY KEY (name)
+);
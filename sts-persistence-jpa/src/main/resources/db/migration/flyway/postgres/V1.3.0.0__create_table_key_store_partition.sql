@@ -0,0 +1,9 @@
+CREATE TABLE sts.key_store_partition
+(
+    key_store_id INT          NOT NULL,
+    key_usage    VARCHAR(255) NOT NULL,
+    last_update  TIMESTAMP    NULL,
+
+    PRIMARY KEY (key_store_id, key_usage),
+    FOREIGN KEY (key_store_id) REFERENCES sts.key_store (id) ON DELETE CASCADE
+);
@@ -0,0 +1 @@
+ALTER TABLE sts.key_store ADD COLUMN schema_version INT NULL;
@@ -1,42 +1,95 @@
 package de.adorsys.sts.persistence.mongo;
 
+import de.adorsys.sts.common.lock.FencingTokenSource;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
+import de.adorsys.sts.keymanagement.model.StsKeyEntry;
 import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreConflictException;
 import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.VersionedKeyEntries;
 import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.persistence.mongo.entity.KeyEntryEntity;
 import de.adorsys.sts.persistence.mongo.entity.KeyStoreEntity;
 import de.adorsys.sts.persistence.mongo.mapper.KeyStoreEntityMapper;
+import de.adorsys.sts.persistence.mongo.repository.MongoKeyEntryRepository;
 import de.adorsys.sts.persistence.mongo.repository.MongoKeyStoreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class MongoDatabaseKeyStoreRepository implements KeyStoreRepository {
 
     private final MongoKeyStoreRepository keyStoreRepository;
+    private final MongoKeyEntryRepository keyEntryRepository;
     private final KeyStoreEntityMapper keyStoreEntityMapper;
+    private final FencingTokenSource fencingTokenSource;
 
     private final String keyStoreName;
+    private final boolean partitioned;
+
+    private volatile VersionedKeyEntries loadedKeyEntries = VersionedKeyEntries.NONE;
 
     @Autowired
     public MongoDatabaseKeyStoreRepository(
             MongoKeyStoreRepository keyStoreRepository,
+            MongoKeyEntryRepository keyEntryRepository,
             KeyStoreEntityMapper keyStoreEntityMapper,
-            KeyManagementProperties keyManagementProperties
+            KeyManagementProperties keyManagementProperties,
+            FencingTokenSource fencingTokenSource
+    ) {
+        this(
+                keyStoreRepository,
+                keyEntryRepository,
+                keyStoreEntityMapper,
+                keyManagementProperties.getKeystore().getName(),
+                keyManagementProperties.getKeystore().isPartitioned(),
+                fencingTokenSource
+        );
+    }
+
+    /**
+     * Repository of another keystore than the configured one, see {@link MongoDatabaseKeyStoreRepositoryFactory}.
+     */
+    MongoDatabaseKeyStoreRepository(
+            MongoKeyStoreRepository keyStoreRepository,
+            MongoKeyEntryRepository keyEntryRepository,
+            KeyStoreEntityMapper keyStoreEntityMapper,
+            String keyStoreName,
+            boolean partitioned,
+            FencingTokenSource fencingTokenSource
     ) {
         this.keyStoreRepository = keyStoreRepository;
+        this.keyEntryRepository = keyEntryRepository;
         this.keyStoreEntityMapper = keyStoreEntityMapper;
-        this.keyStoreName = keyManagementProperties.getKeystore().getName();
+        this.keyStoreName = keyStoreName;
+        this.partitioned = partitioned;
+        this.fencingTokenSource = fencingTokenSource;
     }
 
     @Override
     public StsKeyStore load() {
         KeyStoreEntity persistentKeyStore = keyStoreRepository.findByName(keyStoreName);
-        return keyStoreEntityMapper.mapFromEntity(persistentKeyStore);
+
+        if (persistentKeyStore.getVersion() == null) {
+            // not migrated yet, i.e. the migration is running on another node
+            return keyStoreEntityMapper.mapFromEntity(persistentKeyStore);
+        }
+
+        VersionedKeyEntries keyEntries = loadKeyEntries(persistentKeyStore);
+        StsKeyStore keyStore = keyStoreEntityMapper.mapFromEntries(keyEntries, persistentKeyStore);
+        keyStore.setVersion(persistentKeyStore.getVersion());
+
+        if (partitioned) {
+            keyStoreEntityMapper.mapPartitionUpdates(persistentKeyStore).forEach(keyStore::setPartitionUpdate);
+        }
+
+        return keyStore;
     }
 
     @Override
@@ -44,17 +97,75 @@ public class MongoDatabaseKeyStoreRepository implements KeyStoreRepository {
         return keyStoreRepository.countByName(keyStoreName) > 0;
     }
 
+    /**
+     * Persists only the key entries which have been added, changed or removed. Entries persisted before as part of
+     * the keystore document are migrated on the first save. If partitioned, the partitions of the key usages with
+     * changed entries get the `lastUpdate` of the keystore as their version.
+     * <p>
+     * A keystore loaded in a specific version (see {@link StsKeyStore#getVersion()}) is only saved if that is still
+     * the persisted version, so keys added by another node meanwhile are not dropped.
+     */
     @Override
     public void save(StsKeyStore keyStore) {
+        fencingTokenSource.verifyCurrent();
+
         KeyStoreEntity foundKeyStore = keyStoreRepository.findByName(keyStoreName);
+        verifyVersion(keyStore, foundKeyStore == null ? null : foundKeyStore.getVersion());
+        Map<String, KeyEntryEntity> keyEntries = new HashMap<>();
+
+        long version;
+        if (foundKeyStore == null) {
+            foundKeyStore = keyStoreEntityMapper.mapToEntity(keyStore, keyStoreName);
+            version = 1L;
+        } else {
+            version = claimNextVersion(foundKeyStore);
+            for (KeyEntryEntity keyEntry : keyEntryRepository.findAllByKeyStoreName(keyStoreName)) {
+                keyEntries.put(keyEntry.getAlias(), keyEntry);
+            }
+        }
+
+        Map<String, StsKeyEntry> stsKeyEntries = keyStore.getEntries();
+        Set<KeyUsage> changedUsages = new HashSet<>();
 
-        if( foundKeyStore == null) {
-            foundKeyStore = keyStoreEntityMapper.mapToEntity(keyStore);
-            keyStoreRepository.save(foundKeyStore);
+        for (KeyEntryEntity keyEntry : keyEntries.values()) {
+            if (!stsKeyEntries.containsKey(keyEntry.getAlias())) {
+                keyEntryRepository.delete(keyEntry);
+                changedUsages.add(keyEntry.getAttributes().getKeyUsage());
+            }
+        }
+
+        changedUsages.addAll(addOrUpdateKeyEntries(keyStore, keyEntries, version));
+
+        Map<KeyUsage, ZonedDateTime> partitionUpdates = keyStoreEntityMapper.mapPartitionUpdates(foundKeyStore);
+        keyStoreEntityMapper.mapIntoEntity(keyStore, foundKeyStore);
+        keyStoreEntityMapper.mapIntoEntity(updatePartitions(partitionUpdates, keyStore, changedUsages), foundKeyStore);
+        foundKeyStore.setVersion(version);
+        foundKeyStore.setSchemaVersion(CURRENT_SCHEMA_VERSION);
+        keyStoreRepository.save(foundKeyStore);
+        keyStore.setVersion(version);
+    }
+
+    /**
+     * Writes a keystore persisted as a whole entry by entry, upgrading entries without metadata. Keystores already
+     * persisted entry by entry before the schema version was introduced only get the marker.
+     */
+    @Override
+    public boolean migrate() {
+        KeyStoreEntity persistentKeyStore = keyStoreRepository.findByName(keyStoreName);
+
+        if (persistentKeyStore == null || Objects.equals(persistentKeyStore.getSchemaVersion(), CURRENT_SCHEMA_VERSION)) {
+            return false;
+        }
+
+        if (persistentKeyStore.getVersion() == null) {
+            save(keyStoreEntityMapper.mapFromEntity(persistentKeyStore));
         } else {
-            keyStoreEntityMapper.mapIntoEntity(keyStore, foundKeyStore);
-            keyStoreRepository.save(foundKeyStore);
+            fencingTokenSource.verifyCurrent();
+            persistentKeyStore.setSchemaVersion(CURRENT_SCHEMA_VERSION);
+            keyStoreRepository.save(persistentKeyStore);
         }
+
+        return true;
     }
 
     @Override
@@ -69,4 +180,126 @@ public class MongoDatabaseKeyStoreRepository implements KeyStoreRepository {
 
         throw new RuntimeException("No keystore found");
     }
+
+    /**
+     * Increments the version only if it is still the one read, so of two concurrent writers of the same version only
+     * one gets the next version, the other one is rejected.
+     */
+    private long claimNextVersion(KeyStoreEntity foundKeyStore) {
+        Long foundVersion = foundKeyStore.getVersion();
+        long version = foundVersion == null ? 1L : foundVersion + 1L;
+
+        if (!keyStoreRepository.updateVersion(foundKeyStore.getId(), foundVersion, version)) {
+            throw new KeyStoreConflictException(keyStoreName, foundVersion);
+        }
+
+        return version;
+    }
+
+    private void verifyVersion(StsKeyStore keyStore, Long persistedVersion) {
+        if (keyStore.getVersion() != null && !keyStore.getVersion().equals(persistedVersion)) {
+            throw new KeyStoreConflictException(keyStoreName, keyStore.getVersion(), persistedVersion);
+        }
+    }
+
+    private VersionedKeyEntries loadKeyEntries(KeyStoreEntity persistentKeyStore) {
+        long version = persistentKeyStore.getVersion();
+        VersionedKeyEntries loaded = loadedKeyEntries;
+
+        if (loaded.getVersion() == version) {
+            return loaded;
+        }
+
+        List<KeyEntryEntity> changedKeyEntries;
+        List<String> aliases;
+
+        if (loaded.getVersion() > version) {
+            loaded = VersionedKeyEntries.NONE;
+        }
+
+        if (loaded == VersionedKeyEntries.NONE) {
+            changedKeyEntries = keyEntryRepository.findAllByKeyStoreName(keyStoreName);
+            aliases = changedKeyEntries.stream().map(KeyEntryEntity::getAlias).collect(Collectors.toList());
+        } else {
+            changedKeyEntries = keyEntryRepository.findAllByKeyStoreNameAndVersionGreaterThan(keyStoreName, loaded.getVersion());
+            aliases = keyEntryRepository.findAliases(keyStoreName).stream()
+                    .map(KeyEntryEntity::getAlias)
+                    .collect(Collectors.toList());
+        }
+
+        VersionedKeyEntries keyEntries = keyStoreEntityMapper.mapFromEntities(loaded, version, changedKeyEntries, aliases);
+        loadedKeyEntries = keyEntries;
+
+        return keyEntries;
+    }
+
+    /**
+     * @return Partition versions to persist, null if not partitioned
+     */
+    private Map<KeyUsage, ZonedDateTime> updatePartitions(
+            Map<KeyUsage, ZonedDateTime> partitionUpdates,
+            StsKeyStore keyStore,
+            Set<KeyUsage> changedUsages
+    ) {
+        if (!partitioned) {
+            // versions of partitions would not be updated anymore
+            return null;
+        }
+
+        for (KeyUsage keyUsage : KeyUsage.values()) {
+            if (changedUsages.contains(keyUsage) || !partitionUpdates.containsKey(keyUsage)) {
+                partitionUpdates.put(keyUsage, keyStore.getLastUpdate());
+            }
+
+            keyStore.setPartitionUpdate(keyUsage, partitionUpdates.get(keyUsage));
+        }
+
+        return partitionUpdates;
+    }
+
+    /**
+     * @return Key usages of the entries which have been added or changed.
+     */
+    private Set<KeyUsage> addOrUpdateKeyEntries(StsKeyStore keyStore, Map<String, KeyEntryEntity> keyEntries, long version) {
+        Map<String, StsKeyEntry> stsKeyEntries = keyStore.getEntries();
+
+        // entries written by another codec are written again, so they are migrated on the next save
+        Set<String> aliasesToSerialize = new HashSet<>();
+        for (String alias : stsKeyEntries.keySet()) {
+            KeyEntryEntity foundKeyEntry = keyEntries.get(alias);
+            if (foundKeyEntry == null || !keyStoreEntityMapper.isCurrentFormat(foundKeyEntry.getKeyData())) {
+                aliasesToSerialize.add(alias);
+            }
+        }
+
+        Map<String, byte[]> keyData = keyStoreEntityMapper.serialize(keyStore, aliasesToSerialize);
+        Set<KeyUsage> changedUsages = new HashSet<>();
+
+        for (StsKeyEntry stsKeyEntry : stsKeyEntries.values()) {
+            KeyEntryEntity keyEntry = keyEntries.get(stsKeyEntry.getAlias());
+            boolean upToDate = keyEntry != null && keyEntry.getKeyData() != null
+                    && keyStoreEntityMapper.isUpToDate(stsKeyEntry, keyEntry);
+
+            if (upToDate && !keyData.containsKey(stsKeyEntry.getAlias())) {
+                continue;
+            }
+
+            KeyEntryEntity mappedKeyEntry = keyStoreEntityMapper.mapToEntity(stsKeyEntry, keyStoreName);
+            if (keyEntry != null) {
+                mappedKeyEntry.setId(keyEntry.getId());
+                mappedKeyEntry.setKeyData(keyEntry.getKeyData());
+            }
+            if (keyData.containsKey(stsKeyEntry.getAlias())) {
+                mappedKeyEntry.setKeyData(keyData.get(stsKeyEntry.getAlias()));
+            }
+            mappedKeyEntry.setVersion(version);
+
+            keyEntryRepository.save(mappedKeyEntry);
+            if (!upToDate) {
+                changedUsages.add(stsKeyEntry.getKeyUsage());
+            }
+        }
+
+        return changedUsages;
+    }
 }
@@ -0,0 +1,48 @@
+package de.adorsys.sts.persistence.mongo;
+
+import de.adorsys.sts.common.lock.FencingTokenSource;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepositoryFactory;
+import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
+import de.adorsys.sts.persistence.mongo.mapper.KeyStoreEntityMapper;
+import de.adorsys.sts.persistence.mongo.repository.MongoKeyEntryRepository;
+import de.adorsys.sts.persistence.mongo.repository.MongoKeyStoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MongoDatabaseKeyStoreRepositoryFactory implements KeyStoreRepositoryFactory {
+
+    private final MongoKeyStoreRepository keyStoreRepository;
+    private final MongoKeyEntryRepository keyEntryRepository;
+    private final KeyStoreEntityMapper keyStoreEntityMapper;
+    private final FencingTokenSource fencingTokenSource;
+    private final boolean partitioned;
+
+    @Autowired
+    public MongoDatabaseKeyStoreRepositoryFactory(
+            MongoKeyStoreRepository keyStoreRepository,
+            MongoKeyEntryRepository keyEntryRepository,
+            KeyStoreEntityMapper keyStoreEntityMapper,
+            KeyManagementProperties keyManagementProperties,
+            FencingTokenSource fencingTokenSource
+    ) {
+        this.keyStoreRepository = keyStoreRepository;
+        this.keyEntryRepository = keyEntryRepository;
+        this.keyStoreEntityMapper = keyStoreEntityMapper;
+        this.fencingTokenSource = fencingTokenSource;
+        this.partitioned = keyManagementProperties.getKeystore().isPartitioned();
+    }
+
+    @Override
+    public KeyStoreRepository forKeyStore(String keyStoreName) {
+        return new MongoDatabaseKeyStoreRepository(
+                keyStoreRepository,
+                keyEntryRepository,
+                keyStoreEntityMapper,
+                keyStoreName,
+                partitioned,
+                fencingTokenSource
+        );
+    }
+}
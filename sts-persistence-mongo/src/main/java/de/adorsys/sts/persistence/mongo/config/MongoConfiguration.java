@@ -1,9 +1,11 @@
 package de.adorsys.sts.persistence.mongo.config;
 
 import com.mongodb.MongoClient;
+import de.adorsys.sts.common.lock.FencingTokenSource;
 import de.adorsys.sts.keymanagement.KeyManagementConfiguration;
 import de.adorsys.sts.keymanagement.bouncycastle.BouncyCastleProviderConfiguration;
 import de.adorsys.sts.lock.ExecutionLockConfiguration;
+import de.adorsys.sts.persistence.mongo.lock.MongoFencingTokenSource;
 import de.adorsys.sts.persistence.mongo.repository.MongoKeyStoreRepository;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.provider.mongo.MongoLockProvider;
@@ -15,6 +17,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 import static de.adorsys.sts.lock.ExecutionLockConfiguration.DEFAULT_MONGO_COLLECTION_KEY;
+import static de.adorsys.sts.lock.ExecutionLockConfiguration.DEFAULT_MONGO_FENCING_COLLECTION_KEY;
 
 @Configuration
 @ComponentScan(basePackages = {
@@ -32,4 +35,10 @@ public class MongoConfiguration {
         String[] dbAndCollection = lockTable.split("\\.");
         return new MongoLockProvider(client, dbAndCollection[0], dbAndCollection[1]);
     }
+
+    @Bean
+    FencingTokenSource fencingTokenSource(MongoClient client, @Value(DEFAULT_MONGO_FENCING_COLLECTION_KEY) String fencingCollection) {
+        String[] dbAndCollection = fencingCollection.split("\\.");
+        return new MongoFencingTokenSource(client, dbAndCollection[0], dbAndCollection[1]);
+    }
 }
@@ -0,0 +1,28 @@
+package de.adorsys.sts.persistence.mongo.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+@Getter
+@Setter
+public class KeyEntryEntity {
+
+    @Id
+    private String id;
+
+    @Indexed
+    private String keyStoreName;
+
+    private String alias;
+
+    private KeyEntryAttributesEntity attributes;
+
+    private byte[] keyData;
+
+    /**
+     * Keystore version of the last change of this entry.
+     */
+    private Long version;
+}
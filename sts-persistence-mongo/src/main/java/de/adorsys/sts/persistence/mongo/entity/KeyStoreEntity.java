@@ -20,9 +20,32 @@ public class KeyStoreEntity {
 
     private String type;
 
+    /**
+     * Whole serialized keystore as persisted before key entries were stored one by one, for older versions. Null once
+     * migrated with legacy keystores disabled.
+     */
     private byte[] keystore;
 
+    /**
+     * Attributes of the key entries of {@link #keystore}, null along with it.
+     */
     private Map<String, KeyEntryAttributesEntity> entries;
 
+    /**
+     * Incremented on every save, null as long as the key entries have not been persisted one by one.
+     */
+    private Long version;
+
+    /**
+     * Schema the keystore has been written in, see {@link de.adorsys.sts.keymanagement.persistence.KeyStoreRepository#CURRENT_SCHEMA_VERSION}.
+     * Null if it was written before the schema version was introduced.
+     */
+    private Integer schemaVersion;
+
     private Date lastUpdate;
+
+    /**
+     * Last update per key usage name, null unless the keystore is persisted partitioned by key usage.
+     */
+    private Map<String, Date> partitionUpdates;
 }
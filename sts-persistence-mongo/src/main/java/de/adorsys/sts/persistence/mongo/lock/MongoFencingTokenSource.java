@@ -0,0 +1,44 @@
+package de.adorsys.sts.persistence.mongo.lock;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import de.adorsys.sts.common.lock.FencingToken;
+import de.adorsys.sts.common.lock.FencingTokenSource;
+import org.bson.Document;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Updates.inc;
+
+/**
+ * Keeps the last issued token per lock in a collection, one document per lock.
+ */
+public class MongoFencingTokenSource implements FencingTokenSource {
+
+    private static final String ID = "_id";
+    private static final String TOKEN = "token";
+
+    private final MongoCollection<Document> collection;
+
+    public MongoFencingTokenSource(MongoClient client, String databaseName, String collectionName) {
+        this.collection = client.getDatabase(databaseName).getCollection(collectionName);
+    }
+
+    @Override
+    public FencingToken next(String lockName) {
+        Document issued = collection.findOneAndUpdate(
+                eq(ID, lockName),
+                inc(TOKEN, 1L),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER)
+        );
+
+        return new FencingToken(lockName, issued.getLong(TOKEN));
+    }
+
+    @Override
+    public boolean isCurrent(FencingToken token) {
+        Document current = collection.find(eq(ID, token.getLockName())).first();
+        return current != null && current.getLong(TOKEN) == token.getValue();
+    }
+}
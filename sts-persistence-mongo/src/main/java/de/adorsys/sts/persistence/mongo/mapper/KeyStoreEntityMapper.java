@@ -6,6 +6,10 @@ import de.adorsys.keymanagement.api.types.entity.KeyEntry;
 import de.adorsys.keymanagement.api.types.template.NameAndPassword;
 import de.adorsys.keymanagement.api.types.template.provided.ProvidedKeyEntry;
 import de.adorsys.sts.keymanagement.model.*;
+import de.adorsys.sts.keymanagement.persistence.KeyEntryCodec;
+import de.adorsys.sts.keymanagement.persistence.KeyEntrySerializer;
+import de.adorsys.sts.keymanagement.persistence.VersionedKeyEntries;
+import de.adorsys.sts.persistence.mongo.entity.KeyEntryEntity;
 import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
 import de.adorsys.sts.persistence.mongo.entity.KeyEntryAttributesEntity;
 import de.adorsys.sts.persistence.mongo.entity.KeyStoreEntity;
@@ -16,11 +20,7 @@ import java.security.KeyStore;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Component
 public class KeyStoreEntityMapper {
@@ -28,47 +28,90 @@ public class KeyStoreEntityMapper {
     private static final ZonedDateTime DEFAULT_LAST_UPDATE = ZonedDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
     private final Juggler juggler;
     private final PasswordCallbackHandler keyPassHandler;
-    private final String keystoreName;
+    private final KeyEntrySerializer keyEntrySerializer;
+    private final boolean legacyKeystore;
 
     @Autowired
     public KeyStoreEntityMapper(
             Juggler juggler,
-            KeyManagementProperties keyManagementProperties
+            KeyManagementProperties keyManagementProperties,
+            KeyEntryCodec keyEntryCodec
     ) {
         this.juggler = juggler;
         String keyStorePassword = keyManagementProperties.getKeystore().getPassword();
         keyPassHandler = new PasswordCallbackHandler(keyStorePassword.toCharArray());
-        keystoreName = keyManagementProperties.getKeystore().getName();
+        keyEntrySerializer = new KeyEntrySerializer(juggler, keyPassHandler::getPassword, keyEntryCodec);
+        legacyKeystore = keyManagementProperties.getKeystore().isLegacyKeystore();
     }
 
-    public KeyStoreEntity mapToEntity(StsKeyStore keyStore) {
+    public KeyStoreEntity mapToEntity(StsKeyStore keyStore, String keyStoreName) {
         KeyStoreEntity persistentKeyStore = new KeyStoreEntity();
+        persistentKeyStore.setName(keyStoreName);
 
         mapIntoEntity(keyStore, persistentKeyStore);
 
         return persistentKeyStore;
     }
 
+    /**
+     * Maps the keystore attributes, the key entries are persisted one by one (see {@link #serialize}). The whole
+     * keystore and its entry attributes are only written for older versions as long as legacy keystores are enabled.
+     */
     public void mapIntoEntity(StsKeyStore keyStore, KeyStoreEntity persistentKeyStore) {
         UnmodifyableKeystore toPersist = keyStore.getKeyStoreCopy();
-        byte[] bytes = toPersist.toBytes(juggler, keyPassHandler::getPassword);
 
-        persistentKeyStore.setName(keystoreName);
-        persistentKeyStore.setKeystore(bytes);
+        persistentKeyStore.setKeystore(legacyKeystore ? toPersist.toBytes(juggler, keyPassHandler::getPassword) : null);
         persistentKeyStore.setType(toPersist.getType());
         persistentKeyStore.setLastUpdate(convert(keyStore.getLastUpdate()));
-
-        Map<String, KeyEntryAttributesEntity> mappedEntryAttributes = mapToEntityMap(keyStore.getEntries());
-        persistentKeyStore.setEntries(mappedEntryAttributes);
+        persistentKeyStore.setEntries(legacyKeystore ? mapToEntityMap(keyStore.getEntries()) : null);
     }
 
     private Map<String, KeyEntryAttributesEntity> mapToEntityMap(Map<String, StsKeyEntry> keyEntries) {
-        return keyEntries.values().stream()
-                .map(this::mapToEntity)
-                .collect(Collectors.toMap(KeyEntryAttributesEntity::getAlias, Function.identity()));
+        Map<String, KeyEntryAttributesEntity> mapped = new HashMap<>();
+        for (StsKeyEntry keyEntry : keyEntries.values()) {
+            mapped.put(keyEntry.getAlias(), mapToEntity(keyEntry));
+        }
+
+        return mapped;
+    }
+
+    public Map<String, byte[]> serialize(StsKeyStore keyStore, Collection<String> aliases) {
+        return keyEntrySerializer.serialize(keyStore, aliases);
     }
 
-    private KeyEntryAttributesEntity mapToEntity(StsKeyEntry keyEntry) {
+    /**
+     * @return false if the key data is missing or has been written by another codec.
+     */
+    public boolean isCurrentFormat(byte[] keyData) {
+        return keyEntrySerializer.isCurrentFormat(keyData);
+    }
+
+    public KeyEntryEntity mapToEntity(StsKeyEntry keyEntry, String keyStoreName) {
+        KeyEntryEntity keyEntryEntity = new KeyEntryEntity();
+
+        keyEntryEntity.setKeyStoreName(keyStoreName);
+        keyEntryEntity.setAlias(keyEntry.getAlias());
+        keyEntryEntity.setAttributes(mapToEntity(keyEntry));
+
+        return keyEntryEntity;
+    }
+
+    public boolean isUpToDate(StsKeyEntry keyEntry, KeyEntryEntity keyEntryEntity) {
+        KeyEntryAttributesEntity expected = mapToEntity(keyEntry);
+        KeyEntryAttributesEntity actual = keyEntryEntity.getAttributes();
+
+        return actual != null
+                && Objects.equals(expected.getCreatedAt(), actual.getCreatedAt())
+                && Objects.equals(expected.getNotBefore(), actual.getNotBefore())
+                && Objects.equals(expected.getNotAfter(), actual.getNotAfter())
+                && Objects.equals(expected.getExpireAt(), actual.getExpireAt())
+                && Objects.equals(expected.getValidityInterval(), actual.getValidityInterval())
+                && Objects.equals(expected.getLegacyInterval(), actual.getLegacyInterval())
+                && expected.getState() == actual.getState()
+                && expected.getKeyUsage() == actual.getKeyUsage();
+    }
+
+    public KeyEntryAttributesEntity mapToEntity(StsKeyEntry keyEntry) {
         KeyEntryAttributesEntity entryAttributes = new KeyEntryAttributesEntity();
 
         entryAttributes.setAlias(keyEntry.getAlias());
@@ -124,6 +167,65 @@ public class KeyStoreEntityMapper {
                 .build();
     }
 
+    /**
+     * Applies the key entries changed since the given version, only entries not yet known get deserialized.
+     */
+    public VersionedKeyEntries mapFromEntities(
+            VersionedKeyEntries loaded,
+            long version,
+            List<KeyEntryEntity> changedKeyEntries,
+            Collection<String> aliases
+    ) {
+        List<StsKeyEntry> changedAttributes = new ArrayList<>();
+        Map<String, KeyStore.Entry> addedEntries = new HashMap<>();
+
+        for (KeyEntryEntity keyEntryEntity : changedKeyEntries) {
+            String alias = keyEntryEntity.getAlias();
+            changedAttributes.add(mapFromEntity(keyEntryEntity.getAttributes()));
+
+            if (loaded.getEntry(alias) == null) {
+                addedEntries.put(alias, keyEntrySerializer.deserialize(alias, keyEntryEntity.getKeyData()));
+            }
+        }
+
+        return loaded.update(version, changedAttributes, addedEntries, aliases);
+    }
+
+    public StsKeyStore mapFromEntries(VersionedKeyEntries keyEntries, KeyStoreEntity persistentKeyStore) {
+        return keyEntries.toKeyStore(keyEntrySerializer, mapLastUpdate(persistentKeyStore));
+    }
+
+    public Map<KeyUsage, ZonedDateTime> mapPartitionUpdates(KeyStoreEntity persistentKeyStore) {
+        Map<KeyUsage, ZonedDateTime> partitionUpdates = new EnumMap<>(KeyUsage.class);
+        if (persistentKeyStore.getPartitionUpdates() == null) {
+            return partitionUpdates;
+        }
+
+        for (Map.Entry<String, Date> partitionUpdate : persistentKeyStore.getPartitionUpdates().entrySet()) {
+            partitionUpdates.put(KeyUsage.valueOf(partitionUpdate.getKey()), convert(partitionUpdate.getValue()));
+        }
+
+        return partitionUpdates;
+    }
+
+    /**
+     * @param partitionUpdates Last update per key usage, null if the keystore is not persisted partitioned
+     */
+    public void mapIntoEntity(Map<KeyUsage, ZonedDateTime> partitionUpdates, KeyStoreEntity persistentKeyStore) {
+        if (partitionUpdates == null) {
+            persistentKeyStore.setPartitionUpdates(null);
+            return;
+        }
+
+        Map<String, Date> mapped = new HashMap<>();
+        partitionUpdates.forEach((keyUsage, lastUpdate) -> mapped.put(keyUsage.name(), convert(lastUpdate)));
+        persistentKeyStore.setPartitionUpdates(mapped);
+    }
+
+    /**
+     * Maps a keystore which was persisted as a whole, before key entries were persisted one by one. Entries without
+     * metadata are upgraded, so this is only used until the keystore has been migrated.
+     */
     public StsKeyStore mapFromEntity(KeyStoreEntity persistentKeyStore) {
         KeyStore orig = juggler.serializeDeserialize()
                 .deserialize(persistentKeyStore.getKeystore(), keyPassHandler::getPassword);
@@ -0,0 +1,17 @@
+package de.adorsys.sts.persistence.mongo.repository;
+
+import de.adorsys.sts.persistence.mongo.entity.KeyEntryEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.List;
+
+public interface MongoKeyEntryRepository extends MongoRepository<KeyEntryEntity, String> {
+
+    List<KeyEntryEntity> findAllByKeyStoreName(String keyStoreName);
+
+    List<KeyEntryEntity> findAllByKeyStoreNameAndVersionGreaterThan(String keyStoreName, Long version);
+
+    @Query(value = "{ 'keyStoreName' : ?0 }", fields = "{ alias : 1 }")
+    List<KeyEntryEntity> findAliases(String keyStoreName);
+}
@@ -6,7 +6,7 @@ import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 
-public interface MongoKeyStoreRepository extends MongoRepository<KeyStoreEntity, String> {
+public interface MongoKeyStoreRepository extends MongoRepository<KeyStoreEntity, String>, MongoKeyStoreVersionRepository {
 
     KeyStoreEntity findByName(String name);
 
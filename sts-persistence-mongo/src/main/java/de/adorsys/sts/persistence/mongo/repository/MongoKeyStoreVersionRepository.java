@@ -0,0 +1,12 @@
+package de.adorsys.sts.persistence.mongo.repository;
+
+public interface MongoKeyStoreVersionRepository {
+
+    /**
+     * Sets the version of the keystore only if it is still the expected one.
+     *
+     * @param expected version read before, null if the keystore has not been persisted one by one yet
+     * @return false if the version has been changed by another writer meanwhile
+     */
+    boolean updateVersion(String id, Long expected, long version);
+}
@@ -0,0 +1,26 @@
+package de.adorsys.sts.persistence.mongo.repository;
+
+import de.adorsys.sts.persistence.mongo.entity.KeyStoreEntity;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+public class MongoKeyStoreVersionRepositoryImpl implements MongoKeyStoreVersionRepository {
+
+    private final MongoOperations mongoOperations;
+
+    public MongoKeyStoreVersionRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public boolean updateVersion(String id, Long expected, long version) {
+        return mongoOperations.updateFirst(
+                query(where("id").is(id).and("version").is(expected)),
+                Update.update("version", version),
+                KeyStoreEntity.class
+        ).getModifiedCount() > 0;
+    }
+}
@@ -1,17 +1,82 @@
 package de.adorsys.sts.pop;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.nimbusds.jose.jwk.JWKSet;
 import de.adorsys.sts.keymanagement.service.ServerKeyMapProvider;
+import de.adorsys.sts.keymanagement.service.TenantKeyManagement;
+
+import java.util.Optional;
 
 public class PopService {
 
+    // serialized public keys of the most recently requested tenants
+    private static final int TENANT_DOCUMENTS = 1000;
+
     private final ServerKeyMapProvider keyManagementService;
+    private final TenantKeyManagement tenantKeyManagement;
+    private final boolean gzip;
+
+    private volatile PublicKeysDocument document;
+    private final Cache<String, PublicKeysDocument> tenantDocuments = CacheBuilder.newBuilder()
+            .maximumSize(TENANT_DOCUMENTS)
+            .build();
 
     public PopService(ServerKeyMapProvider keyManagementService) {
+        this(keyManagementService, false);
+    }
+
+    public PopService(ServerKeyMapProvider keyManagementService, boolean gzip) {
+        this(keyManagementService, null, gzip);
+    }
+
+    /**
+     * @param tenantKeyManagement key management of the tenant keystores, null if only the configured keystore is served
+     */
+    public PopService(ServerKeyMapProvider keyManagementService, TenantKeyManagement tenantKeyManagement, boolean gzip) {
         this.keyManagementService = keyManagementService;
+        this.tenantKeyManagement = tenantKeyManagement;
+        this.gzip = gzip;
     }
 
     public JWKSet getPublicKeys(){
         return keyManagementService.getPublicKeys();
     }
+
+    /**
+     * @return Serialized public keys, re-serialized only if the key set has changed (i.e. on rotation).
+     */
+    public PublicKeysDocument getPublicKeysDocument() {
+        JWKSet publicKeys = getPublicKeys();
+        PublicKeysDocument current = document;
+
+        if (current == null || !current.isDocumentOf(publicKeys)) {
+            current = new PublicKeysDocument(publicKeys, gzip);
+            document = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * @return Serialized public keys of the keystore of this tenant, empty if tenants are disabled or the tenant has
+     * no keystore.
+     */
+    public Optional<PublicKeysDocument> getPublicKeysDocument(String tenant) {
+        if (tenantKeyManagement == null) {
+            return Optional.empty();
+        }
+
+        return tenantKeyManagement.find(tenant).map(keyManagement -> {
+            JWKSet publicKeys = keyManagement.getPublicKeys();
+            PublicKeysDocument current = tenantDocuments.getIfPresent(tenant);
+
+            if (current == null || !current.isDocumentOf(publicKeys)) {
+                current = new PublicKeysDocument(publicKeys, gzip);
+                tenantDocuments.put(tenant, current);
+            }
+
+            return current;
+        });
+    }
 }
@@ -0,0 +1,96 @@
+package de.adorsys.sts.pop;
+
+import com.nimbusds.jose.jwk.JWKSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized form of the public JWKSet, computed once per key set, so that serving it costs no more than
+ * writing a byte array.
+ */
+public class PublicKeysDocument {
+
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private final JWKSet publicKeys;
+    private final byte[] body;
+    private final byte[] gzippedBody;
+    private final String eTag;
+
+    PublicKeysDocument(JWKSet publicKeys, boolean gzip) {
+        this.publicKeys = publicKeys;
+        this.body = publicKeys.toJSONObject().toJSONString().getBytes(StandardCharsets.UTF_8);
+        this.gzippedBody = gzip ? gzip(body) : null;
+        this.eTag = sha256(body);
+    }
+
+    boolean isDocumentOf(JWKSet publicKeys) {
+        return this.publicKeys == publicKeys;
+    }
+
+    public boolean hasGzippedBody() {
+        return gzippedBody != null;
+    }
+
+    public byte[] getBody(boolean gzipped) {
+        return gzipped ? gzippedBody : body;
+    }
+
+    /**
+     * @return Strong entity tag (quoted), gzipped representation gets its own tag.
+     */
+    public String getETag(boolean gzipped) {
+        return "\"" + eTag + (gzipped ? GZIP_ETAG_SUFFIX : "") + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch value of the If-None-Match request header, may be null
+     * @return true if the client already has this representation
+     */
+    public boolean isNotModified(String ifNoneMatch, boolean gzipped) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String expected = getETag(gzipped);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+
+            if ("*".equals(tag) || expected.equals(tag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
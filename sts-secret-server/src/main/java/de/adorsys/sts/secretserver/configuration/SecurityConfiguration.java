@@ -33,7 +33,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                     .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                     .and()
                 .authorizeRequests()
-                    .antMatchers(HttpMethod.GET, "/pop").permitAll()
+                    .antMatchers(HttpMethod.GET, "/pop", "/pop/*").permitAll()
                     .antMatchers(HttpMethod.GET, "/actuator/**").permitAll()
                     .anyRequest().authenticated()
         ;
@@ -39,7 +39,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 			.authorizeRequests()
 			.antMatchers(HttpMethod.GET,
 					"/",
-					"/pop"
+					"/pop",
+					"/pop/*"
 			).permitAll()
 			.anyRequest().authenticated()
 			;
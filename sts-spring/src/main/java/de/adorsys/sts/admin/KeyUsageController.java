@@ -0,0 +1,38 @@
+package de.adorsys.sts.admin;
+
+import de.adorsys.sts.common.config.AdminResource;
+import de.adorsys.sts.keymanagement.model.KeyUsageStatistics;
+import de.adorsys.sts.keymanagement.service.KeyManagementService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Api(value = "/admin", tags = {"Admin Endpoint"}, description = "Admin Endpoint")
+@RequestMapping("/admin")
+@AdminResource
+public class KeyUsageController {
+
+    private final KeyManagementService keyManagementService;
+
+    @Autowired
+    public KeyUsageController(KeyManagementService keyManagementService) {
+        this.keyManagementService = keyManagementService;
+    }
+
+    @GetMapping(path = "/keyUsage", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @ApiOperation(value = "Returns the usage of the keys", response = KeyUsageStatistics.class, responseContainer = "List", notes = "Counts per key of this instance since its start, how often the key was picked for signing, looked up by its key id and used to decrypt.")
+    @ApiResponses(value = {@ApiResponse(code = 200, message = "Ok")})
+    public ResponseEntity<List<KeyUsageStatistics>> loadKeyUsage() {
+        return ResponseEntity.ok(keyManagementService.getKeyUsageStatistics());
+    }
+}
@@ -6,20 +6,35 @@ import de.adorsys.keymanagement.api.config.keystore.KeyStoreConfig;
 import de.adorsys.keymanagement.core.metadata.MetadataPersistenceConfig;
 import de.adorsys.keymanagement.core.metadata.WithPersister;
 import de.adorsys.keymanagement.juggler.services.DaggerBCJuggler;
+import de.adorsys.sts.keymanagement.model.KeyUsage;
 import de.adorsys.sts.keymanagement.model.StsKeyEntryImpl;
+import de.adorsys.sts.keymanagement.persistence.CachedKeyStoreRefresher;
 import de.adorsys.sts.keymanagement.persistence.CachedKeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.DetectingKeyEntryCodec;
+import de.adorsys.sts.keymanagement.persistence.EnvelopeKeyEntryCodec;
+import de.adorsys.sts.keymanagement.persistence.KeyEntryCodec;
+import de.adorsys.sts.keymanagement.persistence.KeyEntrySerializer;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreKeyEntryCodec;
 import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepositoryFactory;
+import de.adorsys.sts.keymanagement.persistence.LocalKeyStoreSnapshot;
 import de.adorsys.sts.keymanagement.service.*;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 
+import java.nio.file.Paths;
 import java.security.Security;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.Collections;
 
 @Configuration
 @ComponentScan(
@@ -29,6 +44,7 @@ import java.time.ZonedDateTime;
                 type = FilterType.REGEX
         )
 )
+@Import(KeyManagementMetricsConfiguration.class)
 public class KeyManagementConfiguration {
 
     @Bean
@@ -39,19 +55,98 @@ public class KeyManagementConfiguration {
         return new KeyConversionServiceImpl(keystore.getPassword());
     }
 
+    @Bean
+    KeyEntryCodec keyEntryCodec(
+            Juggler juggler,
+            KeyManagementConfigurationProperties keyManagementProperties
+    ) {
+        KeyManagementProperties.KeyStoreProperties keystore = keyManagementProperties.getKeystore();
+        KeyStoreKeyEntryCodec keyStoreCodec = new KeyStoreKeyEntryCodec(juggler, () -> keystore.getPassword().toCharArray());
+        EnvelopeKeyEntryCodec envelopeCodec = new EnvelopeKeyEntryCodec(keystore.getPassword().toCharArray(), keystore.getName());
+
+        return new DetectingKeyEntryCodec(
+                "envelope".equals(keystore.getCodec()) ? envelopeCodec : keyStoreCodec,
+                Collections.singletonList(envelopeCodec),
+                keyStoreCodec
+        );
+    }
+
     @Bean(name = "cached")
-    KeyStoreRepository cachedKeyStoreRepository(KeyStoreRepository keyStoreRepository) {
-        return new CachedKeyStoreRepository(keyStoreRepository);
+    KeyStoreRepository cachedKeyStoreRepository(
+            KeyStoreRepository keyStoreRepository,
+            Clock clock,
+            Juggler juggler,
+            KeyStoreRefreshConfigurationProperties refreshProperties,
+            KeyManagementConfigurationProperties keyManagementProperties
+    ) {
+        LocalKeyStoreSnapshot localSnapshot = null;
+        if (refreshProperties.getSnapshotFile() != null) {
+            KeyManagementProperties.KeyStoreProperties keystore = keyManagementProperties.getKeystore();
+            localSnapshot = new LocalKeyStoreSnapshot(
+                    Paths.get(refreshProperties.getSnapshotFile()),
+                    new KeyEntrySerializer(juggler, () -> keystore.getPassword().toCharArray()),
+                    keystore.getPassword().toCharArray(),
+                    keystore.getName()
+            );
+        }
+
+        return new CachedKeyStoreRepository(
+                keyStoreRepository,
+                clock,
+                refreshProperties.isEnabled() ? Duration.ofMillis(refreshProperties.getMaxStaleness()) : null,
+                localSnapshot
+        );
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "sts.keymanagement.refresh", name = "enabled", havingValue = "true")
+    CachedKeyStoreRefresher cachedKeyStoreRefresher(
+            @Qualifier("cached") KeyStoreRepository keyStoreRepository,
+            KeyStoreRefreshConfigurationProperties refreshProperties
+    ) {
+        return new CachedKeyStoreRefresher(
+                (CachedKeyStoreRepository) keyStoreRepository,
+                Duration.ofMillis(refreshProperties.getInterval()),
+                Duration.ofMillis(refreshProperties.getJitter())
+        );
     }
 
     @Bean
     KeyManagementService keyManagerService(
             @Qualifier("cached") KeyStoreRepository keyStoreRepository,
-            KeyConversionService keyConversionService
+            KeyConversionService keyConversionService,
+            KeyManagementConfigurationProperties keyManagementProperties
     ) {
         return new KeyManagementService(
                 keyStoreRepository,
-                keyConversionService
+                keyConversionService,
+                keyManagementProperties.getKeystore().isLazyKeys()
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "sts.keymanagement.tenants", name = "enabled", havingValue = "true")
+    TenantKeyManagement tenantKeyManagement(
+            KeyManagementService keyManagerService,
+            KeyStoreRepositoryFactory keyStoreRepositoryFactory,
+            KeyConversionService keyConversionService,
+            Clock clock,
+            KeyManagementConfigurationProperties keyManagementProperties,
+            KeyStoreRefreshConfigurationProperties refreshProperties,
+            KeyStoreTenantConfigurationProperties tenantProperties
+    ) {
+        return new TenantKeyManagement(
+                keyManagementProperties.getKeystore().getName(),
+                keyManagerService,
+                keyStoreRepositoryFactory,
+                keyConversionService,
+                keyManagementProperties.getKeystore().isLazyKeys(),
+                clock,
+                refreshProperties.isEnabled() ? Duration.ofMillis(refreshProperties.getMaxStaleness()) : null,
+                tenantProperties.getMaxKeys(),
+                tenantProperties.getNames(),
+                Duration.ofMillis(tenantProperties.getMissingTtl()),
+                tenantProperties.getMaxMissing()
         );
     }
 
@@ -82,28 +177,61 @@ public class KeyManagementConfiguration {
     @Bean(name = "enc")
     KeyPairGenerator encKeyPairGenerator(
             Juggler juggler,
-            KeyManagementConfigurationProperties keyManagementProperties
+            KeyManagementConfigurationProperties keyManagementProperties,
+            KeyPoolConfigurationProperties poolProperties,
+            ObjectProvider<KeyPoolThreads> keyPoolThreads
     ) {
-        return new KeyPairGeneratorImpl(juggler, keyManagementProperties.getKeystore().getKeys().getEncKeyPairs());
+        KeyPairGenerator generator = new KeyPairGeneratorImpl(juggler, keyManagementProperties.getKeystore().getKeys().getEncKeyPairs());
+        if (!poolProperties.isEnabled()) {
+            return generator;
+        }
+
+        PooledKeyPairGenerator pooled = new PooledKeyPairGenerator(generator, KeyUsage.Encryption, keyPoolThreads.getObject().getExecutor(), poolProperties.getSize());
+        pooled.start();
+        return pooled;
     }
 
     @Bean(name = "sign")
     KeyPairGenerator signKeyPairGenerator(
             Juggler juggler,
-            KeyManagementConfigurationProperties keyManagementProperties
+            KeyManagementConfigurationProperties keyManagementProperties,
+            KeyPoolConfigurationProperties poolProperties,
+            ObjectProvider<KeyPoolThreads> keyPoolThreads
     ) {
-        return new KeyPairGeneratorImpl(juggler, keyManagementProperties.getKeystore().getKeys().getSignKeyPairs());
+        KeyPairGenerator generator = new KeyPairGeneratorImpl(juggler, keyManagementProperties.getKeystore().getKeys().getSignKeyPairs());
+        if (!poolProperties.isEnabled()) {
+            return generator;
+        }
+
+        PooledKeyPairGenerator pooled = new PooledKeyPairGenerator(generator, KeyUsage.Signature, keyPoolThreads.getObject().getExecutor(), poolProperties.getSize());
+        pooled.start();
+        return pooled;
     }
 
     @Bean
     SecretKeyGenerator secretKeyGenerator(
             Juggler juggler,
-            KeyManagementConfigurationProperties keyManagementProperties
+            KeyManagementConfigurationProperties keyManagementProperties,
+            KeyPoolConfigurationProperties poolProperties,
+            ObjectProvider<KeyPoolThreads> keyPoolThreads
     ) {
-        return new SecretKeyGeneratorImpl(
+        SecretKeyGenerator generator = new SecretKeyGeneratorImpl(
                 juggler,
                 keyManagementProperties.getKeystore().getKeys().getSecretKeys()
         );
+        if (!poolProperties.isEnabled()) {
+            return generator;
+        }
+
+        PooledSecretKeyGenerator pooled = new PooledSecretKeyGenerator(generator, keyPoolThreads.getObject().getExecutor(), poolProperties.getSize());
+        pooled.start();
+        return pooled;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "sts.keymanagement.pool", name = "enabled", havingValue = "true")
+    KeyPoolThreads keyPoolThreads(KeyPoolConfigurationProperties poolProperties) {
+        return new KeyPoolThreads(poolProperties.getThreads());
     }
 
     @Bean
@@ -6,8 +6,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
 import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 
 @Component
@@ -49,6 +51,16 @@ public class KeyManagementConfigurationProperties implements KeyManagementProper
         @Size(min = 1)
         private String aliasPrefix;
 
+        private boolean partitioned;
+
+        private boolean lazyKeys;
+
+        private boolean legacyKeystore = true;
+
+        @NotNull
+        @Pattern(regexp = "keystore|envelope")
+        private String codec = "keystore";
+
         @Valid
         @NotNull
         private KeysConfigurationProperties keys;
@@ -89,6 +101,42 @@ public class KeyManagementConfigurationProperties implements KeyManagementProper
             this.aliasPrefix = aliasPrefix;
         }
 
+        @Override
+        public boolean isPartitioned() {
+            return partitioned;
+        }
+
+        public void setPartitioned(boolean partitioned) {
+            this.partitioned = partitioned;
+        }
+
+        @Override
+        public boolean isLazyKeys() {
+            return lazyKeys;
+        }
+
+        public void setLazyKeys(boolean lazyKeys) {
+            this.lazyKeys = lazyKeys;
+        }
+
+        @Override
+        public boolean isLegacyKeystore() {
+            return legacyKeystore;
+        }
+
+        public void setLegacyKeystore(boolean legacyKeystore) {
+            this.legacyKeystore = legacyKeystore;
+        }
+
+        @Override
+        public String getCodec() {
+            return codec;
+        }
+
+        public void setCodec(String codec) {
+            this.codec = codec;
+        }
+
         @Override
         public KeysProperties getKeys() {
             return keys;
@@ -140,6 +188,14 @@ public class KeyManagementConfigurationProperties implements KeyManagementProper
                 this.secretKeys = secretKeys;
             }
 
+            /**
+             * Encryption keys are published as RSA keys and used for RSA-OAEP only.
+             */
+            @AssertTrue(message = "Encryption key pairs have to be RSA key pairs")
+            public boolean isEncKeyPairsRsa() {
+                return encKeyPairs == null || encKeyPairs.getAlgo() == null || "RSA".equalsIgnoreCase(encKeyPairs.getAlgo());
+            }
+
             @Validated
             public static class KeyPairConfigurationProperties implements KeyPairProperties {
 
@@ -154,8 +210,9 @@ public class KeyManagementConfigurationProperties implements KeyManagementProper
                 @Size(min = 1)
                 private String sigAlgo;
 
+                // the size per algorithm is checked by isKeySizeSupported
                 @NotNull
-                @Min(1024)
+                @Min(256)
                 private Integer size;
 
                 @NotNull
@@ -232,6 +289,24 @@ public class KeyManagementConfigurationProperties implements KeyManagementProper
                 public void setLegacyInterval(Long legacyInterval) {
                     this.legacyInterval = legacyInterval;
                 }
+
+                @AssertTrue(message = "EC key pairs need a size of 256 or 384, Ed25519 key pairs of 256, RSA and DSA key pairs of at least 1024")
+                public boolean isKeySizeSupported() {
+                    if (size == null) {
+                        return true;
+                    }
+
+                    if ("EC".equalsIgnoreCase(algo)) {
+                        return size == 256 || size == 384;
+                    }
+
+                    if ("Ed25519".equalsIgnoreCase(algo)) {
+                        return size == 256;
+                    }
+
+                    boolean rsaOrDsa = "RSA".equalsIgnoreCase(algo) || "DSA".equalsIgnoreCase(algo);
+                    return !rsaOrDsa || size >= 1024;
+                }
             }
 
             @Validated
@@ -0,0 +1,127 @@
+package de.adorsys.sts.keymanagement;
+
+import de.adorsys.sts.keymanagement.persistence.CachedKeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.service.*;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Key management metrics, only active if micrometer is on the classpath.
+ */
+@Configuration
+@ConditionalOnClass(MeterBinder.class)
+public class KeyManagementMetricsConfiguration {
+
+    @Bean
+    MeterBinder keyStoreRefreshMetrics(@Qualifier("cached") KeyStoreRepository keyStoreRepository) {
+        return registry -> {
+            if (!(keyStoreRepository instanceof CachedKeyStoreRepository)) {
+                return;
+            }
+
+            CachedKeyStoreRepository cached = (CachedKeyStoreRepository) keyStoreRepository;
+            TimeGauge.builder("sts.keystore.refresh.age", cached, TimeUnit.MILLISECONDS, it -> {
+                        Duration sinceLastRefresh = it.getTimeSinceLastRefresh();
+                        return sinceLastRefresh == null ? Double.NaN : sinceLastRefresh.toMillis();
+                    })
+                    .description("Time since the keystore cache was last checked against the repository")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder keyPoolMetrics(
+            @Qualifier("enc") KeyPairGenerator encKeyPairGenerator,
+            @Qualifier("sign") KeyPairGenerator signKeyPairGenerator,
+            SecretKeyGenerator secretKeyGenerator
+    ) {
+        return registry -> {
+            List<KeyPool<?>> pools = new ArrayList<>();
+            for (KeyPairGenerator generator : Arrays.asList(encKeyPairGenerator, signKeyPairGenerator)) {
+                if (generator instanceof PooledKeyPairGenerator) {
+                    pools.add(((PooledKeyPairGenerator) generator).getPool());
+                }
+            }
+            if (secretKeyGenerator instanceof PooledSecretKeyGenerator) {
+                pools.add(((PooledSecretKeyGenerator) secretKeyGenerator).getPool());
+            }
+
+            for (KeyPool<?> pool : pools) {
+                Gauge.builder("sts.keystore.pool.depth", pool, KeyPool::size)
+                        .description("Number of pre-generated keys available")
+                        .tag("usage", pool.getName())
+                        .register(registry);
+                FunctionTimer.builder("sts.keystore.pool.generation", pool,
+                        KeyPool::getGeneratedCount, KeyPool::getGenerationNanos, TimeUnit.NANOSECONDS)
+                        .description("Time spent generating keys, in background or on pool misses")
+                        .tag("usage", pool.getName())
+                        .register(registry);
+                FunctionCounter.builder("sts.keystore.pool.misses", pool, KeyPool::getMissCount)
+                        .description("Keys generated in the calling thread because the pool was empty")
+                        .tag("usage", pool.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Usage per key id, the meters of a key are removed when the key is removed from the keystore.
+     */
+    @Bean
+    MeterBinder keyUsageMetrics(KeyManagementService keyManagementService) {
+        return registry -> keyManagementService.getUsageCounters().addListener(new KeyUsageCounters.Listener() {
+
+            private final Map<String, List<Meter>> metersByKeyId = new ConcurrentHashMap<>();
+
+            @Override
+            public void added(String keyId, KeyUsageCounters.Counters counters) {
+                metersByKeyId.put(keyId, Arrays.asList(
+                        keyUsageCounter(registry, keyId, "sign", counters, KeyUsageCounters.Counters::getSignatures),
+                        keyUsageCounter(registry, keyId, "lookup", counters, KeyUsageCounters.Counters::getLookups),
+                        keyUsageCounter(registry, keyId, "decrypt", counters, KeyUsageCounters.Counters::getDecryptions)
+                ));
+            }
+
+            @Override
+            public void removed(String keyId, KeyUsageCounters.Counters counters) {
+                List<Meter> meters = metersByKeyId.remove(keyId);
+                if (meters != null) {
+                    meters.forEach(registry::remove);
+                }
+            }
+        });
+    }
+
+    private static Meter keyUsageCounter(
+            MeterRegistry registry,
+            String keyId,
+            String operation,
+            KeyUsageCounters.Counters counters,
+            ToDoubleFunction<KeyUsageCounters.Counters> count
+    ) {
+        return FunctionCounter.builder("sts.key.usage", counters, count)
+                .description("Number of times a key was picked for signing, looked up by its key id or used to decrypt")
+                .tag("kid", keyId)
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
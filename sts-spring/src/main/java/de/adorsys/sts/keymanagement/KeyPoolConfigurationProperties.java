@@ -0,0 +1,48 @@
+package de.adorsys.sts.keymanagement;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Component
+@ConfigurationProperties(prefix = "sts.keymanagement.pool")
+@Validated
+public class KeyPoolConfigurationProperties {
+
+    private Boolean enabled = false;
+
+    @NotNull
+    @Min(1)
+    private Integer size = 2;
+
+    @NotNull
+    @Min(1)
+    private Integer threads = 1;
+
+    public Boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+}
@@ -1,11 +1,14 @@
 package de.adorsys.sts.keymanagement;
 
 import de.adorsys.sts.common.lock.LockClient;
+import de.adorsys.sts.keymanagement.persistence.CachedKeyStoreRepository;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
 import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
 import de.adorsys.sts.keymanagement.service.KeyStoreInitializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
@@ -16,23 +19,47 @@ public class KeyStoreInitializationRunner implements ApplicationRunner {
 
     private final KeyStoreInitializer initializer;
     private final LockClient lockClient;
+    private final KeyStoreRepository cachedRepository;
     private final String initializationLockName;
 
     @Autowired
     public KeyStoreInitializationRunner(
             KeyStoreInitializer initializer,
             LockClient lockClient,
+            @Qualifier("cached") KeyStoreRepository cachedRepository,
             KeyManagementProperties properties
     ) {
         this.initializer = initializer;
         this.lockClient = lockClient;
+        this.cachedRepository = cachedRepository;
 
         String keyStoreName = properties.getKeystore().getName();
         this.initializationLockName = "keystore initialization -- " + keyStoreName;
     }
 
+    /**
+     * Initializes and migrates the keystore. If the repository is unavailable but the local snapshot can be served,
+     * this is skipped until the next start, as the keystore of the snapshot exists in the repository already.
+     */
     @Override
     public void run(ApplicationArguments args) throws Exception {
+        try {
+            initialize();
+        } catch (RuntimeException e) {
+            if (!servesLocalSnapshot()) {
+                throw e;
+            }
+
+            logger.warn("Key initialization skipped, the keystore repository is unavailable and the local snapshot is served.", e);
+        }
+    }
+
+    private boolean servesLocalSnapshot() {
+        return cachedRepository instanceof CachedKeyStoreRepository
+                && ((CachedKeyStoreRepository) cachedRepository).loadLocalSnapshot();
+    }
+
+    private void initialize() {
         lockClient.executeIfOwned(initializationLockName, () -> {
             logger.info("Check if keys for keystore are needed to be initialized...");
 
@@ -42,6 +69,10 @@ public class KeyStoreInitializationRunner implements ApplicationRunner {
                 logger.info("Key initialization completed.");
             } else {
                 logger.info("Key initialization skipped.");
+
+                if(initializer.migrate()) {
+                    logger.info("Keystore migrated to schema version {}.", KeyStoreRepository.CURRENT_SCHEMA_VERSION);
+                }
             }
         });
     }
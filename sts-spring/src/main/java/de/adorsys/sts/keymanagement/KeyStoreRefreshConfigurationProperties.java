@@ -0,0 +1,76 @@
+package de.adorsys.sts.keymanagement;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Component
+@ConfigurationProperties(prefix = "sts.keymanagement.refresh")
+@Validated
+public class KeyStoreRefreshConfigurationProperties {
+
+    private Boolean enabled = false;
+
+    @NotNull
+    @Min(1)
+    private Long interval = 10000L;
+
+    @NotNull
+    @Min(0)
+    private Long jitter = 1000L;
+
+    @NotNull
+    @Min(1)
+    private Long maxStaleness = 60000L;
+
+    private String snapshotFile;
+
+    public Boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Long getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Long interval) {
+        this.interval = interval;
+    }
+
+    public Long getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(Long jitter) {
+        this.jitter = jitter;
+    }
+
+    public Long getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(Long maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    @AssertTrue(message = "The local snapshot needs the background refresh (sts.keymanagement.refresh.enabled=true)")
+    public boolean isSnapshotFileSupported() {
+        return snapshotFile == null || Boolean.TRUE.equals(enabled);
+    }
+}
@@ -0,0 +1,79 @@
+package de.adorsys.sts.keymanagement;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.HashSet;
+import java.util.Set;
+
+@Component
+@ConfigurationProperties(prefix = "sts.keymanagement.tenants")
+@Validated
+public class KeyStoreTenantConfigurationProperties {
+
+    private Boolean enabled = false;
+
+    @NotNull
+    @Min(1)
+    private Long maxKeys = 10000L;
+
+    /**
+     * Names of the tenant keystores served, any name is looked up if empty.
+     */
+    @NotNull
+    private Set<String> names = new HashSet<>();
+
+    /**
+     * Milliseconds a name without keystore is remembered before the repository is checked again.
+     */
+    @NotNull
+    @Min(0)
+    private Long missingTtl = 60000L;
+
+    @NotNull
+    @Min(0)
+    private Long maxMissing = 10000L;
+
+    public Boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Long getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(Long maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    public void setNames(Set<String> names) {
+        this.names = names;
+    }
+
+    public Long getMissingTtl() {
+        return missingTtl;
+    }
+
+    public void setMissingTtl(Long missingTtl) {
+        this.missingTtl = missingTtl;
+    }
+
+    public Long getMaxMissing() {
+        return maxMissing;
+    }
+
+    public void setMaxMissing(Long maxMissing) {
+        this.maxMissing = maxMissing;
+    }
+}
@@ -1,9 +1,13 @@
 package de.adorsys.sts.keyrotation;
 
 import de.adorsys.sts.keymanagement.KeyManagementConfiguration;
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
 import de.adorsys.sts.keymanagement.service.KeyRotationService;
 import de.adorsys.sts.keymanagement.service.KeyRotationServiceImpl;
 import de.adorsys.sts.keymanagement.service.KeyStoreGenerator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -11,6 +15,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.time.Clock;
+import java.time.Duration;
 
 @Configuration
 @EnableScheduling
@@ -30,4 +35,24 @@ public class KeyRotationConfiguration {
                 keyManagementRotationProperties
         );
     }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "sts.keymanagement.rotation.deadline", name = "enabled", havingValue = "true")
+    KeyRotationDeadlineScheduler keyRotationDeadlineScheduler(
+            KeyRotationSchedule keyRotationSchedule,
+            KeyRotationService keyRotationService,
+            @Qualifier("cached") KeyStoreRepository keyStoreRepository,
+            Clock clock,
+            @Value("${sts.keymanagement.rotation.deadline.version-check-interval:${sts.keymanagement.rotation.check-interval:60000}}") long versionCheckInterval,
+            @Value("${sts.keymanagement.rotation.deadline.max-interval:3600000}") long maxInterval
+    ) {
+        return new KeyRotationDeadlineScheduler(
+                keyRotationSchedule,
+                keyRotationService,
+                keyStoreRepository,
+                clock,
+                Duration.ofMillis(versionCheckInterval),
+                Duration.ofMillis(maxInterval)
+        );
+    }
 }
@@ -0,0 +1,150 @@
+package de.adorsys.sts.keyrotation;
+
+import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
+import de.adorsys.sts.keymanagement.service.KeyRotationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the key rotation when the next key state transition is due instead of polling in a fixed interval.
+ * In between it only checks the keystore version every {@code versionCheckInterval} and recalculates the
+ * transition once another node changed the keystore. A rotation is triggered at least every {@code maxInterval}.
+ */
+public class KeyRotationDeadlineScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KeyRotationDeadlineScheduler.class);
+
+    // the rotation compares the timestamps exclusively and the clocks of the nodes may differ slightly
+    private static final Duration TRANSITION_GRACE = Duration.ofSeconds(1);
+
+    private final KeyRotationSchedule rotationSchedule;
+    private final KeyRotationService keyRotationService;
+    private final KeyStoreRepository keyStoreRepository;
+    private final Clock clock;
+    private final Duration versionCheckInterval;
+    private final Duration maxInterval;
+
+    private ScheduledExecutorService executor;
+
+    // only accessed by the scheduler thread
+    private ZonedDateTime knownVersion;
+    private Instant nextRotation;
+    private Instant lastRotation;
+
+    public KeyRotationDeadlineScheduler(
+            KeyRotationSchedule rotationSchedule,
+            KeyRotationService keyRotationService,
+            KeyStoreRepository keyStoreRepository,
+            Clock clock,
+            Duration versionCheckInterval,
+            Duration maxInterval
+    ) {
+        this.rotationSchedule = rotationSchedule;
+        this.keyRotationService = keyRotationService;
+        this.keyStoreRepository = keyStoreRepository;
+        this.clock = clock;
+        this.versionCheckInterval = versionCheckInterval;
+        this.maxInterval = maxInterval;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        lastRotation = clock.instant();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sts-key-rotation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNext(executor);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void scheduleNext(ScheduledExecutorService scheduler) {
+        try {
+            scheduler.schedule(() -> wakeUp(scheduler), nextDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Key rotation scheduler stopped");
+        }
+    }
+
+    private void wakeUp(ScheduledExecutorService scheduler) {
+        try {
+            check();
+        } catch (RuntimeException e) {
+            LOG.warn("Key rotation check failed", e);
+        } finally {
+            scheduleNext(scheduler);
+        }
+    }
+
+    private void check() {
+        if (!keyStoreRepository.exists()) {
+            return;
+        }
+
+        ZonedDateTime version = keyStoreRepository.lastUpdate();
+        if (!version.equals(knownVersion)) {
+            updateNextRotation(version);
+        }
+
+        Instant now = clock.instant();
+        if (isDue(now)) {
+            rotationSchedule.scheduledRotation();
+            lastRotation = now;
+            updateNextRotation(keyStoreRepository.lastUpdate());
+        }
+    }
+
+    private void updateNextRotation(ZonedDateTime version) {
+        knownVersion = version;
+        nextRotation = keyRotationService.nextTransition(keyStoreRepository.load())
+                .map(it -> it.toInstant().plus(TRANSITION_GRACE))
+                .orElse(null);
+
+        LOG.debug("Next key rotation at {}", nextRotation);
+    }
+
+    private boolean isDue(Instant now) {
+        return (nextRotation != null && !now.isBefore(nextRotation))
+                || !now.isBefore(lastRotation.plus(maxInterval));
+    }
+
+    /**
+     * Sleeps until the next transition, the next version check or the max interval, whichever comes first.
+     * A transition which is still due after a rotation (i.e. another node holds the rotation lock) is retried
+     * with the next version check.
+     */
+    private long nextDelayMillis() {
+        Instant now = clock.instant();
+        Instant wakeUp = now.plus(versionCheckInterval);
+
+        Instant safetyNet = lastRotation.plus(maxInterval);
+        if (safetyNet.isBefore(wakeUp)) {
+            wakeUp = safetyNet;
+        }
+
+        if (nextRotation != null && nextRotation.isAfter(now) && nextRotation.isBefore(wakeUp)) {
+            wakeUp = nextRotation;
+        }
+
+        return Math.max(0, Duration.between(now, wakeUp).toMillis());
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import de.adorsys.sts.common.lock.LockClient;
 import de.adorsys.sts.keymanagement.model.KeyRotationResult;
 import de.adorsys.sts.keymanagement.model.StsKeyStore;
+import de.adorsys.sts.keymanagement.persistence.CachedKeyStoreRepository;
 import de.adorsys.sts.keymanagement.persistence.KeyStoreRepository;
 import de.adorsys.sts.keymanagement.service.KeyManagementProperties;
 import de.adorsys.sts.keymanagement.service.KeyRotationService;
@@ -38,6 +39,12 @@ public class KeyRotationSchedule {
     @Value("test.value")
     private String testValue;
 
+    /**
+     * Rotation is triggered by {@link KeyRotationDeadlineScheduler} instead of the fixed interval.
+     */
+    @Value("${sts.keymanagement.rotation.deadline.enabled:false}")
+    private boolean deadlineScheduling;
+
     @Autowired
     public KeyRotationSchedule(
             KeyRotationService keyRotationService,
@@ -59,6 +66,12 @@ public class KeyRotationSchedule {
             initialDelayString = "${sts.keymanagement.rotation.check-interval:60000}",
             fixedDelayString = "${sts.keymanagement.rotation.check-interval:60000}"
     )
+    public void pollingRotation() {
+        if (!deadlineScheduling) {
+            scheduledRotation();
+        }
+    }
+
     public void scheduledRotation() {
         lockClient.executeIfOwned(rotationLockName, this::doRotate);
     }
@@ -77,23 +90,37 @@ public class KeyRotationSchedule {
     }
 
     private void performKeyRotation() {
-        StsKeyStore keyStore = keyStoreRepository.load();
+        StsKeyStore keyStore = loadLatest();
         KeyRotationResult keyRotationResult = keyRotationService.rotate(keyStore);
 
         List<String> removedKeys = keyRotationResult.getRemovedKeys();
         List<String> futureKeys = keyRotationResult.getFutureKeys();
         List<String> generatedKeys = keyRotationResult.getGeneratedKeys();
+        List<String> legacyKeys = keyRotationResult.getLegacyKeys();
 
         LOG.debug("{} keys removed: {}", removedKeys.size(), removedKeys);
         LOG.debug("{} future keys generated: {}", futureKeys.size(), futureKeys);
         LOG.debug("{} keys generated: {}", generatedKeys.size(), generatedKeys);
+        LOG.debug("{} keys moved to legacy: {}", legacyKeys.size(), legacyKeys);
 
-        if(removedKeys.size() + futureKeys.size() + generatedKeys.size() > 0) {
+        if(removedKeys.size() + futureKeys.size() + generatedKeys.size() + legacyKeys.size() > 0) {
             keyStore.setLastUpdate(now());
             keyStoreRepository.save(keyStore);
         }
     }
 
+    /**
+     * The cached keystore may lag behind the repository, saving a rotation of it would drop the keys another node
+     * has saved meanwhile.
+     */
+    private StsKeyStore loadLatest() {
+        if (keyStoreRepository instanceof CachedKeyStoreRepository) {
+            return ((CachedKeyStoreRepository) keyStoreRepository).loadLatest();
+        }
+
+        return keyStoreRepository.load();
+    }
+
     private ZonedDateTime now() {
         return clock.instant().atZone(ZoneOffset.UTC);
     }
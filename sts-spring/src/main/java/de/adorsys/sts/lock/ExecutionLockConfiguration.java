@@ -1,16 +1,12 @@
 package de.adorsys.sts.lock;
 
-import de.adorsys.sts.common.lock.LockClient;
-import net.javacrumbs.shedlock.core.DefaultLockingTaskExecutor;
-import net.javacrumbs.shedlock.core.LockConfiguration;
+import de.adorsys.sts.common.lock.FencingTokenSource;
 import net.javacrumbs.shedlock.core.LockProvider;
-import net.javacrumbs.shedlock.core.LockingTaskExecutor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
-import java.time.Instant;
 
 @Configuration
 public class ExecutionLockConfiguration {
@@ -20,20 +16,31 @@ public class ExecutionLockConfiguration {
      */
     public static final String DEFAULT_JPA_TABLE_KEY = "${de.adorsys.sts.lock.table:sts.sts_lock}";
 
+    /**
+     * Expects database table to have format database.tableName
+     */
+    public static final String DEFAULT_JPA_FENCING_TABLE_KEY = "${de.adorsys.sts.lock.fencing-table:sts.sts_fencing_token}";
+
     /**
      * Expects mongo collection to have format database.collection
      */
     public static final String DEFAULT_MONGO_COLLECTION_KEY = "${de.adorsys.sts.lock.collection:sts.sts_lock}";
 
+    /**
+     * Expects mongo collection to have format database.collection
+     */
+    public static final String DEFAULT_MONGO_FENCING_COLLECTION_KEY = "${de.adorsys.sts.lock.fencing-collection:sts.sts_fencing_token}";
+
     @Value("${de.adorsys.sts.lock.expiry:600s}")
     private Duration expiry;
 
-    @Bean
-    LockClient lockClient(LockProvider lockProvider) {
-        LockingTaskExecutor executor = new DefaultLockingTaskExecutor(lockProvider);
-        Instant lockAtMostUntil = Instant.now().plus(expiry);
-
-        return (rotationLockName, toExecute) ->
-                executor.executeWithLock(toExecute, new LockConfiguration(rotationLockName, lockAtMostUntil));
+    @Bean(destroyMethod = "shutdown")
+    LeaseLockClient lockClient(
+            LockProvider lockProvider,
+            FencingTokenSource fencingTokenSource,
+            @Value("${de.adorsys.sts.lock.heartbeat:200s}") Duration heartbeat,
+            @Value("${de.adorsys.sts.lock.non-owner-backoff:30s}") Duration nonOwnerBackoff
+    ) {
+        return new LeaseLockClient(lockProvider, fencingTokenSource, expiry, heartbeat, nonOwnerBackoff);
     }
 }
@@ -0,0 +1,162 @@
+package de.adorsys.sts.lock;
+
+import de.adorsys.sts.common.lock.FencingTokenSource;
+import de.adorsys.sts.common.lock.LockClient;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a task while holding a lease on the lock. The lease expires {@code leaseTime} after it was acquired
+ * or last renewed and is renewed every {@code heartbeatInterval} while the task runs, so it is not lost during long
+ * running tasks but released by the storage if the node dies.
+ * <p>
+ * Every lease gets a new {@link de.adorsys.sts.common.lock.FencingToken} which is bound to the executing thread, so
+ * a holder which lost its lease can't overwrite the changes of the next holder.
+ * <p>
+ * A node which did not get the lease doesn't ask the lock storage again within {@code nonOwnerBackoff}, and a lock
+ * which is already executed on this node is skipped without asking the storage at all.
+ */
+public class LeaseLockClient implements LockClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LeaseLockClient.class);
+
+    private final LockProvider lockProvider;
+    private final FencingTokenSource fencingTokens;
+    private final Duration leaseTime;
+    private final Duration heartbeatInterval;
+    private final Duration nonOwnerBackoff;
+
+    private final ScheduledExecutorService heartbeat;
+
+    private final Set<String> executing = ConcurrentHashMap.newKeySet();
+    private final Map<String, Instant> ownedElsewhereUntil = new ConcurrentHashMap<>();
+
+    public LeaseLockClient(
+            LockProvider lockProvider,
+            FencingTokenSource fencingTokens,
+            Duration leaseTime,
+            Duration heartbeatInterval,
+            Duration nonOwnerBackoff
+    ) {
+        if (heartbeatInterval.compareTo(leaseTime) >= 0) {
+            throw new IllegalArgumentException("Lease heartbeat interval " + heartbeatInterval
+                    + " has to be shorter than the lease time " + leaseTime);
+        }
+
+        this.lockProvider = lockProvider;
+        this.fencingTokens = fencingTokens;
+        this.leaseTime = leaseTime;
+        this.heartbeatInterval = heartbeatInterval;
+        this.nonOwnerBackoff = nonOwnerBackoff;
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sts-lock-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void executeIfOwned(String lockName, Runnable toExecute) {
+        Instant backoffUntil = ownedElsewhereUntil.get(lockName);
+        if (backoffUntil != null && Instant.now().isBefore(backoffUntil)) {
+            LOG.debug("Lock {} is held by another node, skipping until {}", lockName, backoffUntil);
+            return;
+        }
+
+        if (!executing.add(lockName)) {
+            LOG.debug("Lock {} is already executed on this node", lockName);
+            return;
+        }
+
+        try {
+            Optional<SimpleLock> lock = lockProvider.lock(new LockConfiguration(lockName, Instant.now().plus(leaseTime)));
+            if (!lock.isPresent()) {
+                ownedElsewhereUntil.put(lockName, Instant.now().plus(nonOwnerBackoff));
+                return;
+            }
+
+            ownedElsewhereUntil.remove(lockName);
+            executeWithLease(new Lease(lockName, lock.get()), toExecute);
+        } finally {
+            executing.remove(lockName);
+        }
+    }
+
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    private void executeWithLease(Lease lease, Runnable toExecute) {
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        ScheduledFuture<?> renewal = heartbeat.scheduleWithFixedDelay(
+                lease::renew, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS
+        );
+
+        try {
+            fencingTokens.next(lease.name).runWith(toExecute);
+        } finally {
+            renewal.cancel(false);
+            lease.release();
+        }
+    }
+
+    private class Lease {
+
+        private final String name;
+        private SimpleLock lock;
+        private boolean lost;
+        private boolean released;
+
+        Lease(String name, SimpleLock lock) {
+            this.name = name;
+            this.lock = lock;
+        }
+
+        synchronized void renew() {
+            if (released || lost) {
+                return;
+            }
+
+            try {
+                Optional<SimpleLock> extended = lock.extend(Instant.now().plus(leaseTime), Instant.now());
+                if (extended.isPresent()) {
+                    lock = extended.get();
+                    return;
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Renewal of lease {} failed", name, e);
+            }
+
+            lost = true;
+            LOG.warn("Lease {} could not be renewed, writes are rejected once another node holds it", name);
+        }
+
+        synchronized void release() {
+            released = true;
+            if (lost) {
+                return;
+            }
+
+            try {
+                lock.unlock();
+            } catch (RuntimeException e) {
+                LOG.warn("Release of lease {} failed, it expires after {}", name, leaseTime, e);
+            }
+        }
+    }
+}
@@ -2,6 +2,9 @@ package de.adorsys.sts.pop;
 
 import de.adorsys.sts.keymanagement.KeyManagementConfiguration;
 import de.adorsys.sts.keymanagement.service.KeyManagementService;
+import de.adorsys.sts.keymanagement.service.TenantKeyManagement;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -16,8 +19,10 @@ public class PopConfiguration {
 
     @Bean
     public PopService popService(
-            KeyManagementService keyManagementService
+            KeyManagementService keyManagementService,
+            ObjectProvider<TenantKeyManagement> tenantKeyManagement,
+            @Value("${sts.pop.gzip:false}") boolean gzip
     ) {
-        return new PopService(keyManagementService);
+        return new PopService(keyManagementService, tenantKeyManagement.getIfAvailable(), gzip);
     }
 }
@@ -7,23 +7,39 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @Api(value = "/pop", tags={"Proof of Possession RFC7800"}, description = "Public key distribution endpoint")
 @RequestMapping("/pop")
 @TokenResource
 public class PopController {
 
+    private static final String GZIP = "gzip";
+
     private final PopService popService;
+    private final CacheControl cacheControl;
 
     @Autowired
-    public PopController(PopService popService) {
+    public PopController(
+            PopService popService,
+            @Value("${sts.keymanagement.rotation.check-interval:60000}") long rotationCheckInterval
+    ) {
         this.popService = popService;
+        // keys can't change more often than rotation is checked
+        this.cacheControl = CacheControl.maxAge(rotationCheckInterval, TimeUnit.MILLISECONDS).cachePublic();
     }
 
     @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE})
@@ -32,9 +48,56 @@ public class PopController {
             response = JWKSet.class,
             notes = "Fetches public keys of the target server. Keys are used to encrypt data sent to the server and " +
                     "also send a response encryption key to the server. See RFC7800")
-    @ApiResponses(value = { @ApiResponse(code = 200, message = "Ok")})
-    public ResponseEntity<String> getPublicKeys(){
-        JWKSet publicKeys = popService.getPublicKeys();
-        return ResponseEntity.ok(publicKeys.toJSONObject().toJSONString());
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "Ok"), @ApiResponse(code = 304, message = "Not modified")})
+    public ResponseEntity<byte[]> getPublicKeys(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ){
+        return respond(popService.getPublicKeysDocument(), ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping(path = "/{tenant}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @ApiOperation(
+            value = "Read public keys of a tenant",
+            response = JWKSet.class,
+            notes = "Fetches public keys of the keystore of a tenant, only available if tenant keystores are enabled " +
+                    "(sts.keymanagement.tenants.enabled). See RFC7800")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Ok"),
+            @ApiResponse(code = 304, message = "Not modified"),
+            @ApiResponse(code = 404, message = "Tenant has no keystore")
+    })
+    public ResponseEntity<byte[]> getPublicKeysOfTenant(
+            @PathVariable("tenant") String tenant,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ){
+        return popService.getPublicKeysDocument(tenant)
+                .map(document -> respond(document, ifNoneMatch, acceptEncoding))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<byte[]> respond(PublicKeysDocument document, String ifNoneMatch, String acceptEncoding) {
+        boolean gzipped = document.hasGzippedBody() && acceptEncoding != null && acceptEncoding.contains(GZIP);
+
+        boolean notModified = document.isNotModified(ifNoneMatch, gzipped);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(document.getETag(gzipped))
+                .cacheControl(cacheControl);
+
+        if (document.hasGzippedBody()) {
+            response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (notModified) {
+            return response.build();
+        }
+
+        if (gzipped) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+
+        return response.contentType(MediaType.APPLICATION_JSON).body(document.getBody(gzipped));
     }
 }
@@ -27,6 +27,7 @@ public class AuthServerConfigurationProperties {
         private String issUrl;
         private String jwksUrl;
         private Integer refreshIntervalSeconds = 600;
+        private Integer unknownKeyRefreshIntervalSeconds = 60;
 
         public String getName() {
             return name;
@@ -59,5 +60,13 @@ public class AuthServerConfigurationProperties {
         public void setRefreshIntervalSeconds(Integer refreshIntervalSeconds) {
             this.refreshIntervalSeconds = refreshIntervalSeconds;
         }
+
+        public Integer getUnknownKeyRefreshIntervalSeconds() {
+            return unknownKeyRefreshIntervalSeconds;
+        }
+
+        public void setUnknownKeyRefreshIntervalSeconds(Integer unknownKeyRefreshIntervalSeconds) {
+            this.unknownKeyRefreshIntervalSeconds = unknownKeyRefreshIntervalSeconds;
+        }
     }
 }
@@ -51,12 +51,15 @@ public class ConfigurationPropertiesAuthServerProvider implements AuthServersPro
     }
 
     private AuthServer mapFromProperties(AuthServerConfigurationProperties.AuthServerProperties properties) {
-        return new LoggingAuthServer(
+        AuthServer authServer = new LoggingAuthServer(
                 properties.getName(),
                 properties.getIssUrl(),
                 properties.getJwksUrl(),
                 properties.getRefreshIntervalSeconds(),
                 objectMapper
         );
+        authServer.setUnknownKeyRefreshIntervalSeconds(properties.getUnknownKeyRefreshIntervalSeconds());
+
+        return authServer;
     }
 }
@@ -1,6 +1,7 @@
 package de.adorsys.sts.token.authentication;
 
 import de.adorsys.sts.tokenauth.AuthServersProvider;
+import de.adorsys.sts.tokenauth.BearerTokenCache;
 import de.adorsys.sts.tokenauth.BearerTokenValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +13,10 @@ public class LoggingBearerTokenValidator extends BearerTokenValidator {
         super(authServersProvider);
     }
 
+    public LoggingBearerTokenValidator(AuthServersProvider authServersProvider, BearerTokenCache cache) {
+        super(authServersProvider, cache);
+    }
+
     @Override
     protected void onInvalidToken(String headerValue) {
         if(logger.isDebugEnabled()) logger.debug("Token in header is invalid");
@@ -1,11 +1,17 @@
 package de.adorsys.sts.token.authentication;
 
 import de.adorsys.sts.tokenauth.AuthServersProvider;
+import de.adorsys.sts.tokenauth.BearerTokenCache;
 import de.adorsys.sts.tokenauth.BearerTokenValidator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+
+import java.time.Clock;
+import java.time.Duration;
 
 @Configuration
 @ComponentScan(
@@ -15,10 +21,23 @@ import org.springframework.context.annotation.FilterType;
                 type = FilterType.REGEX
         )
 )
+@Import(TokenAuthenticationMetricsConfiguration.class)
 public class TokenAuthenticationConfiguration {
 
     @Bean
-    BearerTokenValidator bearerTokenValidator(AuthServersProvider authServersProvider) {
+    BearerTokenValidator bearerTokenValidator(
+            AuthServersProvider authServersProvider,
+            @Value("${sts.token-cache.enabled:false}") Boolean isCacheEnabled,
+            @Value("${sts.token-cache.maximum-size:10000}") Integer maximumSize,
+            @Value("${sts.token-cache.max-time-to-live:300}") Integer maxTimeToLiveInSeconds
+    ) {
+        if (isCacheEnabled) {
+            return new LoggingBearerTokenValidator(
+                    authServersProvider,
+                    new BearerTokenCache(maximumSize, Duration.ofSeconds(maxTimeToLiveInSeconds), Clock.systemUTC())
+            );
+        }
+
         return new LoggingBearerTokenValidator(authServersProvider);
     }
 }
@@ -0,0 +1,29 @@
+package de.adorsys.sts.token.authentication;
+
+import de.adorsys.sts.tokenauth.AuthServer;
+import de.adorsys.sts.tokenauth.AuthServersProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Token authentication metrics, only active if micrometer is on the classpath.
+ */
+@Configuration
+@ConditionalOnClass(MeterBinder.class)
+public class TokenAuthenticationMetricsConfiguration {
+
+    @Bean
+    MeterBinder authServerMetrics(AuthServersProvider authServersProvider) {
+        return registry -> {
+            for (AuthServer authServer : authServersProvider.getAll().values()) {
+                FunctionCounter.builder("sts.authserver.jwks.unknown.keys", authServer, AuthServer::getUnknownKeyCount)
+                        .description("Requested key ids which were not in the JWK set of the auth server")
+                        .tag("issuer", authServer.getIssUrl())
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package de.adorsys.sts.keymanagement;
+
+import de.adorsys.sts.keymanagement.KeyManagementConfigurationProperties.KeyStoreConfigurationProperties.KeysConfigurationProperties;
+import de.adorsys.sts.keymanagement.KeyManagementConfigurationProperties.KeyStoreConfigurationProperties.KeysConfigurationProperties.KeyPairConfigurationProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+class KeyManagementConfigurationPropertiesTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void acceptsSupportedKeySizes() {
+        assertThat(validator.validate(keyPair("EC", 256)), empty());
+        assertThat(validator.validate(keyPair("EC", 384)), empty());
+        assertThat(validator.validate(keyPair("Ed25519", 256)), empty());
+        assertThat(validator.validate(keyPair("RSA", 2048)), empty());
+    }
+
+    @Test
+    void rejectsUnsupportedKeySizes() {
+        assertThat(validator.validate(keyPair("EC", 512)), hasSize(1));
+        assertThat(validator.validate(keyPair("Ed25519", 384)), hasSize(1));
+        assertThat(validator.validate(keyPair("RSA", 512)), hasSize(1));
+        assertThat(validator.validate(keyPair("DSA", 768)), hasSize(1));
+    }
+
+    @Test
+    void rejectsEncryptionKeyPairsOtherThanRsa() {
+        KeysConfigurationProperties keys = new KeysConfigurationProperties();
+        keys.setEncKeyPairs(keyPair("EC", 256));
+
+        assertThat(validator.validateProperty(keys, "encKeyPairsRsa"), hasSize(1));
+
+        keys.setEncKeyPairs(keyPair("RSA", 2048));
+
+        assertThat(validator.validateProperty(keys, "encKeyPairsRsa"), empty());
+    }
+
+    private static KeyPairConfigurationProperties keyPair(String algo, int size) {
+        KeyPairConfigurationProperties keyPair = new KeyPairConfigurationProperties();
+        keyPair.setAlgo(algo);
+        keyPair.setSigAlgo("SHA256with" + algo);
+        keyPair.setSize(size);
+        keyPair.setName("STS");
+        keyPair.setValidityInterval(1L);
+        keyPair.setLegacyInterval(1L);
+
+        return keyPair;
+    }
+}
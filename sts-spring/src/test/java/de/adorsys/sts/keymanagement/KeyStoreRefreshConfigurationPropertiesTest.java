@@ -0,0 +1,36 @@
+package de.adorsys.sts.keymanagement;
+
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+class KeyStoreRefreshConfigurationPropertiesTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void rejectsSnapshotFileWithoutBackgroundRefresh() {
+        KeyStoreRefreshConfigurationProperties properties = new KeyStoreRefreshConfigurationProperties();
+        properties.setSnapshotFile("keystore.snapshot");
+
+        Set<ConstraintViolation<KeyStoreRefreshConfigurationProperties>> violations = validator.validate(properties);
+
+        assertThat(violations, hasSize(1));
+    }
+
+    @Test
+    void acceptsSnapshotFileWithBackgroundRefresh() {
+        KeyStoreRefreshConfigurationProperties properties = new KeyStoreRefreshConfigurationProperties();
+        properties.setSnapshotFile("keystore.snapshot");
+        properties.setEnabled(true);
+
+        assertThat(validator.validate(properties), empty());
+    }
+}
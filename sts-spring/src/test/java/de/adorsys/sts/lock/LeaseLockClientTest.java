@@ -0,0 +1,228 @@
+package de.adorsys.sts.lock;
+
+import de.adorsys.sts.common.lock.FencingToken;
+import de.adorsys.sts.common.lock.InMemoryFencingTokenSource;
+import de.adorsys.sts.common.lock.StaleFencingTokenException;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Simulates multiple nodes, each with its own {@link LeaseLockClient}, sharing the lock storage and fencing tokens.
+ */
+class LeaseLockClientTest {
+
+    private static final String LOCK = "key-rotation -- test";
+    private static final int NODES = 8;
+
+    private final InMemoryLockProvider lockProvider = new InMemoryLockProvider();
+    private final InMemoryFencingTokenSource fencingTokens = new InMemoryFencingTokenSource();
+    private final List<LeaseLockClient> nodes = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void prepare() {
+        executor = Executors.newFixedThreadPool(NODES);
+    }
+
+    @AfterEach
+    void cleanup() {
+        executor.shutdownNow();
+        nodes.forEach(LeaseLockClient::shutdown);
+    }
+
+    @Test
+    void shouldExecuteExclusivelyWithIncreasingTokens() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Long> tokens = Collections.synchronizedList(new ArrayList<>());
+        CyclicBarrier barrier = new CyclicBarrier(NODES);
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < NODES; ++i) {
+            LeaseLockClient node = node(Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ZERO);
+            results.add(executor.submit(() -> {
+                barrier.await();
+                for (int run = 0; run < 200; ++run) {
+                    node.executeIfOwned(LOCK, () -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        tokens.add(FencingToken.current().get().getValue());
+                        Thread.yield();
+                        running.decrementAndGet();
+                    });
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(maxRunning.get(), is(1));
+        assertThat(tokens.size(), greaterThan(0));
+        for (int i = 1; i < tokens.size(); ++i) {
+            assertThat(tokens.get(i - 1), is(tokens.get(i) - 1));
+        }
+    }
+
+    @Test
+    void shouldRenewLeaseWhileExecuting() throws Exception {
+        LeaseLockClient owner = node(Duration.ofMillis(300), Duration.ofMillis(50), Duration.ZERO);
+        LeaseLockClient other = node(Duration.ofMillis(300), Duration.ofMillis(50), Duration.ZERO);
+        AtomicBoolean otherExecuted = new AtomicBoolean();
+
+        owner.executeIfOwned(LOCK, () -> {
+            sleep(Duration.ofMillis(1000));
+            other.executeIfOwned(LOCK, () -> otherExecuted.set(true));
+        });
+
+        assertThat(otherExecuted.get(), is(false));
+        assertThat(lockProvider.extensions.get(), greaterThan(0));
+    }
+
+    @Test
+    void shouldRejectWriteOfTakenOverLease() throws Exception {
+        LeaseLockClient previousOwner = node(Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ZERO);
+        LeaseLockClient nextOwner = node(Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ZERO);
+        AtomicBoolean nextOwnerWritten = new AtomicBoolean();
+
+        previousOwner.executeIfOwned(LOCK, () -> {
+            // i.e. a long GC pause of the previous owner
+            lockProvider.expire(LOCK);
+            await(executor.submit(() -> nextOwner.executeIfOwned(LOCK, () -> {
+                fencingTokens.verifyCurrent();
+                nextOwnerWritten.set(true);
+            })));
+
+            assertThrows(StaleFencingTokenException.class, fencingTokens::verifyCurrent);
+        });
+
+        assertThat(nextOwnerWritten.get(), is(true));
+    }
+
+    @Test
+    void shouldNotAskLockStorageWhileOwnedElsewhere() {
+        LeaseLockClient owner = node(Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ZERO);
+        LeaseLockClient other = node(Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofHours(1));
+        AtomicInteger otherExecutions = new AtomicInteger();
+
+        owner.executeIfOwned(LOCK, () -> other.executeIfOwned(LOCK, otherExecutions::incrementAndGet));
+        int lockRequests = lockProvider.requests.get();
+
+        for (int i = 0; i < 100; ++i) {
+            other.executeIfOwned(LOCK, otherExecutions::incrementAndGet);
+        }
+
+        assertThat(otherExecutions.get(), is(0));
+        assertThat(lockProvider.requests.get(), lessThanOrEqualTo(lockRequests));
+    }
+
+    private LeaseLockClient node(Duration leaseTime, Duration heartbeat, Duration nonOwnerBackoff) {
+        LeaseLockClient node = new LeaseLockClient(lockProvider, fencingTokens, leaseTime, heartbeat, nonOwnerBackoff);
+        nodes.add(node);
+        return node;
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lock storage shared by all nodes, behaves like the ShedLock storage providers.
+     */
+    private static class InMemoryLockProvider implements LockProvider {
+
+        private final Map<String, Instant> lockedUntil = new HashMap<>();
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger extensions = new AtomicInteger();
+
+        @Override
+        public synchronized Optional<SimpleLock> lock(LockConfiguration configuration) {
+            requests.incrementAndGet();
+            String name = configuration.getName();
+            Instant until = lockedUntil.get(name);
+            if (until != null && Instant.now().isBefore(until)) {
+                return Optional.empty();
+            }
+
+            lockedUntil.put(name, configuration.getLockAtMostUntil());
+            return Optional.of(new Lock(name, configuration.getLockAtMostUntil()));
+        }
+
+        synchronized void expire(String name) {
+            lockedUntil.remove(name);
+        }
+
+        private class Lock implements SimpleLock {
+
+            private final String name;
+            private final Instant until;
+
+            Lock(String name, Instant until) {
+                this.name = name;
+                this.until = until;
+            }
+
+            @Override
+            public void unlock() {
+                synchronized (InMemoryLockProvider.this) {
+                    if (until.equals(lockedUntil.get(name))) {
+                        lockedUntil.remove(name);
+                    }
+                }
+            }
+
+            @Override
+            public Optional<SimpleLock> extend(Instant lockAtMostUntil, Instant lockAtLeastUntil) {
+                synchronized (InMemoryLockProvider.this) {
+                    if (!until.equals(lockedUntil.get(name)) || Instant.now().isAfter(until)) {
+                        return Optional.empty();
+                    }
+
+                    extensions.incrementAndGet();
+                    lockedUntil.put(name, lockAtMostUntil);
+                    return Optional.of(new Lock(name, lockAtMostUntil));
+                }
+            }
+        }
+    }
+}
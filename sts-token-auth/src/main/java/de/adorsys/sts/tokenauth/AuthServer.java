@@ -3,25 +3,40 @@ package de.adorsys.sts.tokenauth;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.KeySourceException;
 import com.nimbusds.jose.jwk.*;
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.jwk.source.RemoteJWKSet;
 import com.nimbusds.jose.proc.SecurityContext;
-import org.apache.commons.lang3.time.DateUtils;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.proc.JWTProcessor;
+import de.adorsys.sts.common.converter.KeyConverter;
+import de.adorsys.sts.common.signer.JcaJWSVerifierFactory;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.Key;
-import java.util.Date;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AuthServer {
     private String name;
     private String issUrl;
     private String jwksUrl;
     private int refreshIntervalSeconds = 600;
+    private int unknownKeyRefreshIntervalSeconds = 60;
 
-    private Date refreshExp = null;
-    private JWKSource<SecurityContext> jwkSource = null;
+    private volatile RefreshAheadJWKSource<SecurityContext> jwkSource = null;
+    private volatile KeysById keysById = null;
+
+    private final LongAdder unknownKeyCount = new LongAdder();
+    private final Object forcedRefreshLock = new Object();
+    private long lastForcedRefresh = Long.MIN_VALUE;
+    private CompletableFuture<JWKSet> forcedRefresh = null;
+
+    private final JWTProcessor<SecurityContext> jwtProcessor = createJwtProcessor();
 
     public AuthServer(String name, String issUrl, String jwksUrl) {
         super();
@@ -39,39 +54,107 @@ public class AuthServer {
     }
 
     public Key getJWK(String keyID) throws JsonWebKeyRetrievalException {
-        Date now = new Date();
-        if (refreshExp == null || now.after(refreshExp)) {
-            refreshExp = DateUtils.addSeconds(now, refreshIntervalSeconds);
-
-            try {
-                jwkSource = new RemoteJWKSet<>(new URL(this.jwksUrl));
-            } catch (MalformedURLException e) {
-                throw new JsonWebKeyRetrievalException(e);
+        RefreshAheadJWKSource<SecurityContext> source = getJwkSource();
+
+        KeysById current;
+        try {
+            current = keysOf(source.getJWKSet());
+        } catch (KeySourceException e) {
+            throw new JsonWebKeyRetrievalException(e);
+        }
+
+        if (!current.contains(keyID)) {
+            current = refreshOnUnknownKey(source, current, keyID);
+        }
+
+        Key key = current.keys.get(keyID);
+        if (key != null) {
+            return key;
+        }
+
+        String unusable = current.unusable.get(keyID);
+        if (unusable != null) {
+            throw new JsonWebKeyRetrievalException(unusable);
+        }
+
+        throw new JsonWebKeyRetrievalException("Unable to retrieve keys: received JWKSet has no key " + keyID);
+    }
+
+    /**
+     * @return The count of requested key ids which were not in the JWK set at the time of the request.
+     */
+    public long getUnknownKeyCount() {
+        return unknownKeyCount.sum();
+    }
+
+    /**
+     * Retrieves the JWK set right away for a key id which is not in the current one, i.e. after the auth server rolled
+     * its signing key. Concurrent requests wait for the same retrieval, further retrievals are forced after
+     * {@link #getUnknownKeyRefreshIntervalSeconds()} at the earliest, so unknown key ids can't flood the auth server.
+     */
+    private KeysById refreshOnUnknownKey(RefreshAheadJWKSource<SecurityContext> source, KeysById current, String keyID) {
+        unknownKeyCount.increment();
+
+        CompletableFuture<JWKSet> refresh;
+        synchronized (forcedRefreshLock) {
+            long now = System.currentTimeMillis();
+
+            if (forcedRefresh != null && !forcedRefresh.isDone()) {
+                refresh = forcedRefresh;
+            } else if (lastForcedRefresh == Long.MIN_VALUE
+                    || now - lastForcedRefresh >= TimeUnit.SECONDS.toMillis(unknownKeyRefreshIntervalSeconds)) {
+                lastForcedRefresh = now;
+                forcedRefresh = source.refresh();
+                refresh = forcedRefresh;
+            } else {
+                return current;
             }
         }
-        JWKSelector jwkSelector = new JWKSelector(new JWKMatcher.Builder().keyID(keyID).build());
 
-        List<JWK> list;
         try {
-            list = jwkSource.get(jwkSelector, null);
-            onJsonWebKeySetRetrieved(list);
+            return keysOf(source.await(refresh));
         } catch (KeySourceException e) {
             throw new JsonWebKeyRetrievalException(e);
         }
+    }
 
-        if (list.isEmpty()) throw new JsonWebKeyRetrievalException("Unable to retrieve keys: received JWKSet is empty");
+    private KeysById keysOf(JWKSet jwkSet) {
+        KeysById current = keysById;
+        if (current != null && current.jwkSet == jwkSet) {
+            return current;
+        }
 
-        JWK jwk = list.iterator().next();
-        if (jwk instanceof RSAKey) {
-            try {
-                return ((RSAKey) jwk).toPublicKey();
-            } catch (JOSEException e) {
-                throw new JsonWebKeyRetrievalException(e);
+        current = new KeysById(jwkSet);
+        keysById = current;
+        onJsonWebKeySetRetrieved(jwkSet.getKeys());
+
+        return current;
+    }
+
+    /**
+     * @return The processor verifying signature and validity time window of the tokens of this server. It is built
+     * once and thread-safe, the keys are selected by {@link #getJWK(String)} for every token.
+     */
+    public JWTProcessor<SecurityContext> getJwtProcessor() {
+        return jwtProcessor;
+    }
+
+    private RefreshAheadJWKSource<SecurityContext> getJwkSource() {
+        RefreshAheadJWKSource<SecurityContext> source = jwkSource;
+        if (source != null) {
+            return source;
+        }
+
+        synchronized (this) {
+            if (jwkSource == null) {
+                try {
+                    jwkSource = new RefreshAheadJWKSource<>(new URL(jwksUrl), Duration.ofSeconds(refreshIntervalSeconds));
+                } catch (MalformedURLException e) {
+                    throw new JsonWebKeyRetrievalException(e);
+                }
             }
-        } else if (jwk instanceof SecretJWK) {
-            return ((SecretJWK) jwk).toSecretKey();
-        } else {
-            throw new JsonWebKeyRetrievalException("unknown key type " + jwk.getClass());
+
+            return jwkSource;
         }
     }
 
@@ -97,6 +180,8 @@ public class AuthServer {
 
     public void setJwksUrl(String jwksUrl) {
         this.jwksUrl = jwksUrl;
+        this.jwkSource = null;
+        this.keysById = null;
     }
 
     public int getRefreshIntervalSeconds() {
@@ -105,11 +190,81 @@ public class AuthServer {
 
     public void setRefreshIntervalSeconds(int refreshIntervalSeconds) {
         this.refreshIntervalSeconds = refreshIntervalSeconds;
+        this.jwkSource = null;
+        this.keysById = null;
+    }
+
+    public int getUnknownKeyRefreshIntervalSeconds() {
+        return unknownKeyRefreshIntervalSeconds;
+    }
+
+    public void setUnknownKeyRefreshIntervalSeconds(int unknownKeyRefreshIntervalSeconds) {
+        this.unknownKeyRefreshIntervalSeconds = unknownKeyRefreshIntervalSeconds;
     }
 
     protected void onJsonWebKeySetRetrieved(List<JWK> jwks) {
     }
 
+    private JWTProcessor<SecurityContext> createJwtProcessor() {
+        // Set up a JWT processor to parse the tokens and then check their signature
+        // and validity time window (bounded by the "iat", "nbf" and "exp" claims)
+        ConfigurableJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new MultiAuthJWSKeySelector<>(this));
+        processor.setJWSVerifierFactory(new JcaJWSVerifierFactory());
+        processor.setJWTClaimsSetVerifier(new JWTClaimsSetVerifierWithLogs<>());
+
+        return processor;
+    }
+
+    /**
+     * Keys of a JWK set by key id, converted once per retrieved JWK set.
+     */
+    private static final class KeysById {
+        private final JWKSet jwkSet;
+        private final Map<String, Key> keys = new HashMap<>();
+        private final Map<String, String> unusable = new HashMap<>();
+
+        private KeysById(JWKSet jwkSet) {
+            this.jwkSet = jwkSet;
+
+            for (JWK jwk : jwkSet.getKeys()) {
+                String keyID = jwk.getKeyID();
+                if (keyID == null || contains(keyID)) {
+                    continue;
+                }
+
+                try {
+                    Key key = toKey(jwk);
+                    if (key != null) {
+                        keys.put(keyID, key);
+                    } else {
+                        unusable.put(keyID, "unknown key type " + jwk.getClass());
+                    }
+                } catch (JOSEException e) {
+                    unusable.put(keyID, "Unable to convert key " + keyID + ": " + e.getMessage());
+                }
+            }
+        }
+
+        private boolean contains(String keyID) {
+            return keys.containsKey(keyID) || unusable.containsKey(keyID);
+        }
+
+        private static Key toKey(JWK jwk) throws JOSEException {
+            if (jwk instanceof RSAKey) {
+                return ((RSAKey) jwk).toPublicKey();
+            } else if (jwk instanceof ECKey) {
+                return ((ECKey) jwk).toPublicKey();
+            } else if (jwk instanceof OctetKeyPair) {
+                return KeyConverter.toEd25519PublicKey((OctetKeyPair) jwk);
+            } else if (jwk instanceof SecretJWK) {
+                return ((SecretJWK) jwk).toSecretKey();
+            } else {
+                return null;
+            }
+        }
+    }
+
     public class JsonWebKeyRetrievalException extends RuntimeException {
         public JsonWebKeyRetrievalException(Throwable cause) {
             super(cause);
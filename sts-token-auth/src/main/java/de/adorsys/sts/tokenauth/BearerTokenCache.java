@@ -0,0 +1,134 @@
+package de.adorsys.sts.tokenauth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cache of validated bearer tokens, so a token used for many requests is verified once. Only valid tokens are cached,
+ * every entry expires with the token (its "exp" claim) and at the latest after the configured time to live.
+ * <p>
+ * The cache is a fixed array of slots addressed by the first 64 bits of the SHA-256 digest of the compact token. An
+ * entry holds the digest as primitive long next to the validated token, a token in the same slot replaces the
+ * previous one. There is no map with boxed keys and no locking, the count of entries is bounded by the slot count.
+ * A hit is only returned if the cached token equals the requested one.
+ */
+public class BearerTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(BearerTokenCache::sha256);
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final long maxTimeToLiveMillis;
+    private final Clock clock;
+
+    /**
+     * @param maxSize       the count of cached tokens, rounded up to the next power of two
+     * @param maxTimeToLive the time a token is cached at most, even if it expires later or has no expiration
+     * @param clock         clock to check the expiration with
+     */
+    public BearerTokenCache(int maxSize, Duration maxTimeToLive, Clock clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize has to be positive");
+        }
+
+        int size = Integer.highestOneBit(maxSize);
+        if (size < maxSize) {
+            size <<= 1;
+        }
+
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxTimeToLiveMillis = maxTimeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * @return The cached valid token, null if the token is not cached or expired.
+     */
+    public BearerToken get(String token) {
+        long hash = hash(token);
+        int index = index(hash);
+        Entry entry = slots.get(index);
+
+        if (entry == null || entry.hash != hash || !entry.bearerToken.getToken().equals(token)) {
+            return null;
+        }
+
+        if (clock.millis() >= entry.expiresAt) {
+            slots.compareAndSet(index, entry, null);
+            return null;
+        }
+
+        return entry.bearerToken;
+    }
+
+    /**
+     * Caches the token if it is valid and not expired yet, other tokens are ignored.
+     */
+    public void put(BearerToken bearerToken) {
+        if (!bearerToken.isValid() || bearerToken.getToken() == null || bearerToken.getClaims() == null) {
+            return;
+        }
+
+        long now = clock.millis();
+        long expiresAt = now + maxTimeToLiveMillis;
+
+        Date expirationTime = bearerToken.getClaims().getExpirationTime();
+        if (expirationTime != null) {
+            expiresAt = Math.min(expiresAt, expirationTime.getTime());
+        }
+
+        if (expiresAt <= now) {
+            return;
+        }
+
+        long hash = hash(bearerToken.getToken());
+        slots.set(index(hash), new Entry(hash, expiresAt, bearerToken));
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); ++i) {
+            slots.set(i, null);
+        }
+    }
+
+    private int index(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long hash(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; ++i) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+
+        return hash;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final long hash;
+        private final long expiresAt;
+        private final BearerToken bearerToken;
+
+        private Entry(long hash, long expiresAt, BearerToken bearerToken) {
+            this.hash = hash;
+            this.expiresAt = expiresAt;
+            this.bearerToken = bearerToken;
+        }
+    }
+}
@@ -6,38 +6,59 @@ import com.nimbusds.jose.proc.BadJOSEException;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
-import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 public class BearerTokenValidator {
     private final Logger logger = LoggerFactory.getLogger(BearerTokenValidator.class);
     private final AuthServersProvider authServersProvider;
+    private final BearerTokenCache cache;
 
     private final KeycloakTokenRolesParser keycloakTokenRolesParser = new KeycloakTokenRolesParser();
     private final StringListRolesParser stringListRolesParser = new StringListRolesParser();
 
     public BearerTokenValidator(AuthServersProvider authServersProvider) {
+        this(authServersProvider, null);
+    }
+
+    /**
+     * @param cache cache of validated tokens, null to validate every token
+     */
+    public BearerTokenValidator(AuthServersProvider authServersProvider, BearerTokenCache cache) {
         this.authServersProvider = authServersProvider;
+        this.cache = cache;
     }
 
     public BearerToken extract(String token) {
+        if (cache != null && token != null) {
+            BearerToken cached = cache.get(token);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         Optional<JWTClaimsSet> jwtClaimsSet = extractClaims(token);
         if(jwtClaimsSet.isPresent()) {
             List<String> roles = extractRoles(jwtClaimsSet.get());
 
-            return BearerToken.builder()
+            BearerToken bearerToken = BearerToken.builder()
                     .token(token)
                     .claims(jwtClaimsSet.get())
                     .isValid(true)
-                    .roles(roles)
+                    .roles(Collections.unmodifiableList(roles))
                     .build();
+
+            if (cache != null) {
+                cache.put(bearerToken);
+            }
+
+            return bearerToken;
         } else {
             logger.debug("Token has no claims");
         }
@@ -107,17 +128,8 @@ public class BearerTokenValidator {
                 return jwtClaimsSet;
             }
 
-            MultiAuthJWSKeySelector<SecurityContext> jwsKeySelector = new MultiAuthJWSKeySelector<>(authServer);
-
-            // Set up a JWT processor to parse the tokens and then check their signature
-            // and validity time window (bounded by the "iat", "nbf" and "exp" claims)
-            ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
-            jwtProcessor.setJWSKeySelector(jwsKeySelector);
-            JWTClaimsSetVerifierWithLogs<SecurityContext> claimsVerifier = new JWTClaimsSetVerifierWithLogs<>();
-            jwtProcessor.setJWTClaimsSetVerifier(claimsVerifier);
-
             SecurityContext context = null;
-            JWTClaimsSet jwtClaims = jwtProcessor.process(signedJWT, context);
+            JWTClaimsSet jwtClaims = authServer.getJwtProcessor().process(signedJWT, context);
 
             jwtClaimsSet = Optional.of(jwtClaims);
         } catch (ParseException | BadJOSEException | JOSEException e) {
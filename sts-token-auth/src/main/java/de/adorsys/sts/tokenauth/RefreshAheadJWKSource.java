@@ -0,0 +1,194 @@
+package de.adorsys.sts.tokenauth;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Remote JWK set which is refreshed in the background before it expires. Requests are served from the last retrieved
+ * set while a refresh is in flight or failing, only the very first retrieval is waited for. There is at most one
+ * retrieval in flight, concurrent callers share it.
+ * <p>
+ * The refresh starts after 80% of the refresh interval, a failed refresh is retried after
+ * {@link #FAILED_REFRESH_RETRY_MILLIS} at the earliest.
+ */
+public class RefreshAheadJWKSource<C extends SecurityContext> implements JWKSource<C> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshAheadJWKSource.class);
+
+    static final long FAILED_REFRESH_RETRY_MILLIS = 30_000L;
+
+    private static final Executor DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "jwks-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final URL jwkSetUrl;
+    private final ResourceRetriever resourceRetriever;
+    private final long refreshAfterMillis;
+    private final Executor executor;
+    private final Clock clock;
+
+    private final AtomicReference<CompletableFuture<JWKSet>> inFlight = new AtomicReference<>();
+    private volatile Retrieved retrieved;
+
+    public RefreshAheadJWKSource(URL jwkSetUrl, Duration refreshInterval) {
+        this(
+                jwkSetUrl,
+                new DefaultResourceRetriever(
+                        RemoteJWKSet.DEFAULT_HTTP_CONNECT_TIMEOUT,
+                        RemoteJWKSet.DEFAULT_HTTP_READ_TIMEOUT,
+                        RemoteJWKSet.DEFAULT_HTTP_SIZE_LIMIT
+                ),
+                refreshInterval,
+                DEFAULT_EXECUTOR,
+                Clock.systemUTC()
+        );
+    }
+
+    /**
+     * @param jwkSetUrl         url of the JWK set
+     * @param resourceRetriever retriever to get the JWK set with
+     * @param refreshInterval   time after which the JWK set is considered as stale, it's refreshed before
+     * @param executor          executor to run the background refresh on
+     * @param clock             clock to decide on the refresh with
+     */
+    public RefreshAheadJWKSource(
+            URL jwkSetUrl,
+            ResourceRetriever resourceRetriever,
+            Duration refreshInterval,
+            Executor executor,
+            Clock clock
+    ) {
+        this.jwkSetUrl = jwkSetUrl;
+        this.resourceRetriever = resourceRetriever;
+        this.refreshAfterMillis = refreshInterval.toMillis() * 4 / 5;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, C context) throws KeySourceException {
+        return jwkSelector.select(getJWKSet());
+    }
+
+    /**
+     * @return The last retrieved JWK set, waits for the first retrieval only.
+     */
+    public JWKSet getJWKSet() throws KeySourceException {
+        Retrieved current = retrieved;
+
+        if (current == null) {
+            return await(refresh());
+        }
+
+        if (clock.millis() >= current.refreshAt) {
+            refresh();
+        }
+
+        return current.jwkSet;
+    }
+
+    /**
+     * Starts retrieving the JWK set in the background, unless a retrieval is in flight already.
+     *
+     * @return The retrieval in flight.
+     */
+    public CompletableFuture<JWKSet> refresh() {
+        while (true) {
+            CompletableFuture<JWKSet> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+
+            CompletableFuture<JWKSet> started = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, started)) {
+                execute(() -> retrieve(started));
+                return started;
+            }
+        }
+    }
+
+    private void execute(Runnable retrieval) {
+        try {
+            executor.execute(retrieval);
+        } catch (RejectedExecutionException e) {
+            retrieval.run();
+        }
+    }
+
+    private void retrieve(CompletableFuture<JWKSet> result) {
+        JWKSet jwkSet;
+
+        try {
+            jwkSet = JWKSet.parse(resourceRetriever.retrieveResource(jwkSetUrl).getContent());
+        } catch (IOException | ParseException | RuntimeException e) {
+            onRetrievalFailed(e);
+            inFlight.set(null);
+            result.completeExceptionally(e);
+            return;
+        }
+
+        retrieved = new Retrieved(jwkSet, clock.millis() + refreshAfterMillis);
+        inFlight.set(null);
+        result.complete(jwkSet);
+    }
+
+    private void onRetrievalFailed(Exception e) {
+        Retrieved current = retrieved;
+        if (current == null) {
+            LOG.warn("Couldn't retrieve JWK set from {}", jwkSetUrl, e);
+            return;
+        }
+
+        LOG.warn("Couldn't refresh JWK set from {}, serving the last retrieved one", jwkSetUrl, e);
+        retrieved = new Retrieved(current.jwkSet, clock.millis() + FAILED_REFRESH_RETRY_MILLIS);
+    }
+
+    /**
+     * Waits for the given retrieval.
+     */
+    JWKSet await(CompletableFuture<JWKSet> retrieval) throws KeySourceException {
+        try {
+            return retrieval.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KeySourceException("Interrupted while retrieving JWK set from " + jwkSetUrl, e);
+        } catch (ExecutionException e) {
+            throw new RemoteKeySourceException("Couldn't retrieve JWK set from " + jwkSetUrl + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static final class Retrieved {
+        private final JWKSet jwkSet;
+        private final long refreshAt;
+
+        private Retrieved(JWKSet jwkSet, long refreshAt) {
+            this.jwkSet = jwkSet;
+            this.refreshAt = refreshAt;
+        }
+    }
+}
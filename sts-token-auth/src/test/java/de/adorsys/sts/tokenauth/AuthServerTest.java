@@ -0,0 +1,158 @@
+package de.adorsys.sts.tokenauth;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.sts.common.signer.Ed25519JcaSigner;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+public class AuthServerTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private RSAKey rsaKey;
+    private volatile byte[] jwks;
+    private AuthServer authServer;
+
+    @Before
+    public void setup() throws Exception {
+        rsaKey = new RSAKeyGenerator(2048).keyID("key").generate();
+        jwks = jwks(rsaKey);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            byte[] served = jwks;
+            exchange.sendResponseHeaders(200, served.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(served);
+            }
+        });
+        server.start();
+
+        String url = "http://localhost:" + server.getAddress().getPort();
+        authServer = new AuthServer("test", url, url + "/jwks");
+    }
+
+    @After
+    public void teardown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldConvertKeysOncePerJwkSet() throws Exception {
+        Key key = authServer.getJWK("key");
+
+        assertThat(key.getEncoded(), equalTo(rsaKey.toPublicKey().getEncoded()));
+        assertThat(authServer.getJWK("key"), sameInstance(key));
+        assertThat(requests.get(), equalTo(1));
+    }
+
+    @Test(expected = AuthServer.JsonWebKeyRetrievalException.class)
+    public void shouldNotReturnUnknownKey() {
+        authServer.getJWK("unknown");
+    }
+
+    @Test
+    public void shouldRetrieveJwkSetOnceForUnknownKey() throws Exception {
+        authServer.getJWK("key");
+
+        RSAKey rolled = new RSAKeyGenerator(2048).keyID("rolled").generate();
+        jwks = jwks(rsaKey, rolled);
+
+        assertThat(authServer.getJWK("rolled").getEncoded(), equalTo(rolled.toPublicKey().getEncoded()));
+        assertThat(requests.get(), equalTo(2));
+
+        assertUnknown("unknown");
+        assertUnknown("unknown");
+        assertThat(requests.get(), equalTo(2));
+        assertThat(authServer.getUnknownKeyCount(), equalTo(3L));
+    }
+
+    @Test
+    public void shouldVerifyEd25519SignedToken() throws Exception {
+        KeyPair keyPair = ed25519KeyPair();
+        jwks = jwks(rsaKey, octetKeyPair("ed", keyPair));
+
+        JWTClaimsSet claims = authServer.getJwtProcessor().process(ed25519Signed("ed", keyPair), null);
+
+        assertThat(claims.getSubject(), equalTo("subject"));
+    }
+
+    @Test(expected = BadJOSEException.class)
+    public void shouldRejectEd25519TokenSignedWithOtherKey() throws Exception {
+        jwks = jwks(rsaKey, octetKeyPair("ed", ed25519KeyPair()));
+
+        authServer.getJwtProcessor().process(ed25519Signed("ed", ed25519KeyPair()), null);
+    }
+
+    private static KeyPair ed25519KeyPair() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        return KeyPairGenerator.getInstance("Ed25519", BouncyCastleProvider.PROVIDER_NAME).generateKeyPair();
+    }
+
+    private static OctetKeyPair octetKeyPair(String keyID, KeyPair keyPair) {
+        // the raw public key is the tail of its X.509 encoding
+        byte[] encoded = keyPair.getPublic().getEncoded();
+        byte[] x = Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length);
+
+        return new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(x)).keyID(keyID).build();
+    }
+
+    private static String ed25519Signed(String keyID, KeyPair keyPair) throws Exception {
+        SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.EdDSA).keyID(keyID).build(),
+                new JWTClaimsSet.Builder()
+                        .subject("subject")
+                        .expirationTime(new Date(System.currentTimeMillis() + 60_000L))
+                        .build()
+        );
+        jwt.sign(new Ed25519JcaSigner(keyPair.getPrivate()));
+
+        return jwt.serialize();
+    }
+
+    private void assertUnknown(String keyID) {
+        try {
+            authServer.getJWK(keyID);
+            fail("Key " + keyID + " is not in the JWK set");
+        } catch (AuthServer.JsonWebKeyRetrievalException expected) {
+            // expected
+        }
+    }
+
+    private static byte[] jwks(JWK... keys) {
+        return new JWKSet(Arrays.asList(keys)).toJSONObject(true).toJSONString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package de.adorsys.sts.tokenauth;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BearerTokenCacheTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private Clock clock;
+    private BearerTokenCache cache;
+
+    @Before
+    public void setup() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(NOW);
+        cache = new BearerTokenCache(16, Duration.ofSeconds(300), clock);
+    }
+
+    @Test
+    public void shouldCacheValidTokenUntilItExpires() {
+        BearerToken token = validToken("token", NOW + 10_000L);
+        cache.put(token);
+
+        assertThat(cache.get("token"), sameInstance(token));
+
+        when(clock.millis()).thenReturn(NOW + 10_000L);
+        assertThat(cache.get("token"), nullValue());
+    }
+
+    @Test
+    public void shouldCacheValidTokenNotLongerThanMaxTimeToLive() {
+        cache.put(validToken("token", NOW + 3_600_000L));
+
+        when(clock.millis()).thenReturn(NOW + 300_000L);
+        assertThat(cache.get("token"), nullValue());
+    }
+
+    @Test
+    public void shouldNotCacheInvalidToken() {
+        cache.put(BearerToken.builder().token("token").isValid(false).build());
+
+        assertThat(cache.get("token"), nullValue());
+    }
+
+    @Test
+    public void shouldNotReturnOtherTokenOfSameSlot() {
+        BearerTokenCache singleSlot = new BearerTokenCache(1, Duration.ofSeconds(300), clock);
+        BearerToken first = validToken("first", NOW + 10_000L);
+        BearerToken second = validToken("second", NOW + 10_000L);
+
+        singleSlot.put(first);
+        singleSlot.put(second);
+
+        assertThat(singleSlot.get("first"), nullValue());
+        assertThat(singleSlot.get("second"), sameInstance(second));
+    }
+
+    private static BearerToken validToken(String token, long expiresAt) {
+        return BearerToken.builder()
+                .token(token)
+                .claims(new JWTClaimsSet.Builder().expirationTime(new Date(expiresAt)).build())
+                .roles(Collections.emptyList())
+                .isValid(true)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package de.adorsys.sts.tokenauth;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jose.jwk.gen.OctetSequenceKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RefreshAheadJWKSourceTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+
+    private ResourceRetriever resourceRetriever;
+    private Clock clock;
+    private RefreshAheadJWKSource<?> source;
+
+    @Before
+    public void setup() throws Exception {
+        resourceRetriever = mock(ResourceRetriever.class);
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(NOW);
+
+        source = new RefreshAheadJWKSource<>(
+                new URL("http://localhost/jwks"),
+                resourceRetriever,
+                Duration.ofSeconds(100),
+                scheduled::add,
+                clock
+        );
+    }
+
+    @Test
+    public void shouldRefreshOnceInBackgroundBeforeExpiry() throws Exception {
+        Resource first = jwkSet("first");
+        Resource second = jwkSet("second");
+        when(resourceRetriever.retrieveResource(any())).thenReturn(first, second);
+        retrieveFirst();
+
+        when(clock.millis()).thenReturn(NOW + 80_000L);
+        assertThat(keyId(source.getJWKSet()), equalTo("first"));
+        assertThat(keyId(source.getJWKSet()), equalTo("first"));
+        assertThat(scheduled.size(), equalTo(1));
+
+        runScheduled();
+        assertThat(keyId(source.getJWKSet()), equalTo("second"));
+        verify(resourceRetriever, times(2)).retrieveResource(any());
+    }
+
+    @Test
+    public void shouldServeLastSetWhileRefreshFails() throws Exception {
+        Resource first = jwkSet("first");
+        when(resourceRetriever.retrieveResource(any())).thenReturn(first).thenThrow(new IOException("unavailable"));
+        retrieveFirst();
+
+        when(clock.millis()).thenReturn(NOW + 200_000L);
+        source.getJWKSet();
+        runScheduled();
+
+        assertThat(keyId(source.getJWKSet()), equalTo("first"));
+        assertThat(scheduled.size(), equalTo(0));
+
+        when(clock.millis()).thenReturn(NOW + 200_000L + RefreshAheadJWKSource.FAILED_REFRESH_RETRY_MILLIS);
+        source.getJWKSet();
+        assertThat(scheduled.size(), equalTo(1));
+    }
+
+    private void retrieveFirst() {
+        source.refresh();
+        runScheduled();
+    }
+
+    private void runScheduled() {
+        List<Runnable> toRun = new ArrayList<>(scheduled);
+        scheduled.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+    private static String keyId(JWKSet jwkSet) {
+        return jwkSet.getKeys().get(0).getKeyID();
+    }
+
+    private static Resource jwkSet(String keyId) throws JOSEException {
+        OctetSequenceKey key = new OctetSequenceKeyGenerator(256).keyID(keyId).generate();
+        return new Resource(new JWKSet(key).toJSONObject(false).toJSONString(), "application/json");
+    }
+}
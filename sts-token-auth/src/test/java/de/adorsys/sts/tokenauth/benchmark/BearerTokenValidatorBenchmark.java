@@ -0,0 +1,88 @@
+package de.adorsys.sts.tokenauth.benchmark;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import de.adorsys.sts.tokenauth.AuthServer;
+import de.adorsys.sts.tokenauth.JWTClaimsSetVerifierWithLogs;
+import de.adorsys.sts.tokenauth.MultiAuthJWSKeySelector;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the validations per second of a RS256 token with a JWT processor built for every token (as before) and
+ * the processor built once per auth server, both with the key already known. Run with `main` from the IDE, it is not
+ * executed as part of the test phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BearerTokenValidatorBenchmark {
+
+    private static final String ISSUER = "https://issuer.example.com";
+
+    @Param({"perToken", "perServer"})
+    private String processor;
+
+    private AuthServer authServer;
+    private String token;
+
+    @Setup
+    public void setup() throws JOSEException {
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("key").generate();
+        Key publicKey = rsaKey.toPublicKey();
+
+        authServer = new AuthServer("benchmark", ISSUER, ISSUER + "/jwks") {
+            @Override
+            public Key getJWK(String keyID) {
+                return publicKey;
+            }
+        };
+
+        SignedJWT signedJWT = new SignedJWT(
+                new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaKey.getKeyID()).build(),
+                new JWTClaimsSet.Builder()
+                        .issuer(ISSUER)
+                        .subject("benchmark")
+                        .expirationTime(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                        .build()
+        );
+        signedJWT.sign(new RSASSASigner(rsaKey));
+        token = signedJWT.serialize();
+    }
+
+    @Benchmark
+    public JWTClaimsSet validate() throws Exception {
+        SignedJWT signedJWT = SignedJWT.parse(token);
+
+        if ("perServer".equals(processor)) {
+            return authServer.getJwtProcessor().process(signedJWT, null);
+        }
+
+        ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new MultiAuthJWSKeySelector<>(authServer));
+        jwtProcessor.setJWTClaimsSetVerifier(new JWTClaimsSetVerifierWithLogs<>());
+
+        return jwtProcessor.process(signedJWT, null);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(BearerTokenValidatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
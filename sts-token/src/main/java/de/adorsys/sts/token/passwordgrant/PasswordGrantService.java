@@ -96,7 +96,7 @@ public class PasswordGrantService {
 
         SignedJWT signedJWT = new SignedJWT(jwsHeader, jwtClaimsSet);
         try {
-            signedJWT.sign(KeyConverter.findSigner(randomKey));
+            signedJWT.sign(keyManager.findSigner(randomKey));
         } catch (JOSEException e) {
             throw new IllegalStateException(e);
         }
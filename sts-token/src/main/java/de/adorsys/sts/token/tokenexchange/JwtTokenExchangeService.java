@@ -172,7 +172,7 @@ public class JwtTokenExchangeService implements TokenExchangeService {
 
         SignedJWT signedJWT = new SignedJWT(jwsHeader, jwtClaimsSet);
         try {
-            signedJWT.sign(KeyConverter.findSigner(randomKey));
+            signedJWT.sign(keyManager.findSigner(randomKey));
         } catch (JOSEException e) {
             throw new IllegalStateException(e);
         }